@@ -0,0 +1,352 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Map from accession to value that keeps the accessions as primitive longs, for the results of accessioning big
+ * batches. The accessions and the values are stored in two arrays, in insertion order, and found through an open
+ * addressing table of positions in those arrays, so an entry takes a few bytes instead of a boxed {@link Long} and a
+ * hash map node.
+ *
+ * It is also a {@link Map} from boxed accessions, so it can be passed to the generic APIs; the accessions are boxed
+ * only when read through them. The methods that take an accession as a {@code long} or a position do not box.
+ * Accessions can't be removed, except by clearing the whole map.
+ */
+public class AccessionMap<V> extends AbstractMap<Long, V> {
+
+    @FunctionalInterface
+    public interface AccessionConsumer<V> {
+
+        void accept(long accession, V value);
+
+    }
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The table of positions has at least twice as many slots as entries, and its size is a power of two
+     */
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private static final int EMPTY_SLOT = 0;
+
+    private long[] accessions;
+
+    private Object[] values;
+
+    /**
+     * Position plus one of the entry in each slot, or {@link #EMPTY_SLOT}
+     */
+    private int[] table;
+
+    private int size;
+
+    public AccessionMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize Number of entries that fit without growing the map
+     */
+    public AccessionMap(int expectedSize) {
+        if (expectedSize < 0 || expectedSize > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Invalid expected size: " + expectedSize);
+        }
+        this.accessions = new long[expectedSize];
+        this.values = new Object[expectedSize];
+        this.table = new int[tableSizeFor(expectedSize)];
+        this.size = 0;
+    }
+
+    public AccessionMap(Map<Long, ? extends V> map) {
+        this(Math.min(map.size(), MAX_CAPACITY));
+        putAll(map);
+    }
+
+    private AccessionMap(long[] accessions, Object[] values, int[] table, int size) {
+        this.accessions = accessions;
+        this.values = values;
+        this.table = table;
+        this.size = size;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 1) * 2 - 1) << 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public V get(long accession) {
+        int position = positionOf(accession);
+        return position >= 0 ? getValue(position) : null;
+    }
+
+    @Override
+    public V get(Object accession) {
+        return accession instanceof Long ? get((long) (Long) accession) : null;
+    }
+
+    public boolean containsAccession(long accession) {
+        return positionOf(accession) >= 0;
+    }
+
+    @Override
+    public boolean containsKey(Object accession) {
+        return accession instanceof Long && containsAccession((Long) accession);
+    }
+
+    /**
+     * @return Previous value of the accession, or null if it was not in the map
+     */
+    public V put(long accession, V value) {
+        if (size == accessions.length) {
+            grow(size + 1);
+        }
+        int slot = slotOf(accession);
+        if (table[slot] != EMPTY_SLOT) {
+            int position = table[slot] - 1;
+            V previousValue = getValue(position);
+            values[position] = value;
+            return previousValue;
+        }
+        accessions[size] = accession;
+        values[size] = value;
+        size++;
+        table[slot] = size;
+        return null;
+    }
+
+    @Override
+    public V put(Long accession, V value) {
+        return put((long) accession, value);
+    }
+
+    @Override
+    public void putAll(Map<? extends Long, ? extends V> map) {
+        if (size + map.size() > accessions.length) {
+            grow((int) Math.min((long) size + map.size(), MAX_CAPACITY));
+        }
+        if (map instanceof AccessionMap) {
+            AccessionMap<? extends V> accessionMap = (AccessionMap<? extends V>) map;
+            for (int i = 0; i < accessionMap.size; i++) {
+                put(accessionMap.accessions[i], accessionMap.getValue(i));
+            }
+        } else {
+            for (Map.Entry<? extends Long, ? extends V> entry : map.entrySet()) {
+                put((long) entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(table, EMPTY_SLOT);
+        size = 0;
+    }
+
+    /**
+     * @param position Between 0 (the first accession inserted) and {@link #size()} - 1
+     */
+    public long getAccession(int position) {
+        checkPosition(position);
+        return accessions[position];
+    }
+
+    /**
+     * @param position Between 0 (the value of the first accession inserted) and {@link #size()} - 1
+     */
+    @SuppressWarnings("unchecked")
+    public V getValue(int position) {
+        checkPosition(position);
+        return (V) values[position];
+    }
+
+    /**
+     * @return Copy of the accessions, in insertion order
+     */
+    public long[] getAccessions() {
+        return Arrays.copyOf(accessions, size);
+    }
+
+    public void forEachAccession(AccessionConsumer<? super V> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(accessions[i], getValue(i));
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Long, ? super V> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(accessions[i], getValue(i));
+        }
+    }
+
+    /**
+     * @return New map with the same accessions, in the same order, and the result of applying {@code function} to
+     * each value. The accessions and the table of positions are copied as arrays, without looking them up again.
+     */
+    public <W> AccessionMap<W> mapValues(Function<? super V, ? extends W> function) {
+        Object[] mappedValues = new Object[size];
+        for (int i = 0; i < size; i++) {
+            mappedValues[i] = function.apply(getValue(i));
+        }
+        return new AccessionMap<>(Arrays.copyOf(accessions, size), mappedValues, table.clone(), size);
+    }
+
+    @Override
+    public Set<Map.Entry<Long, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Long, V>>() {
+            @Override
+            public Iterator<Map.Entry<Long, V>> iterator() {
+                return new Iterator<Map.Entry<Long, V>>() {
+
+                    private int position = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < size;
+                    }
+
+                    @Override
+                    public Map.Entry<Long, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return new Entry(position++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int positionOf(long accession) {
+        int slot = slotOf(accession);
+        return table[slot] - 1;
+    }
+
+    /**
+     * @return Slot of the accession if it is in the map, otherwise the empty slot where it would be inserted
+     */
+    private int slotOf(long accession) {
+        int mask = table.length - 1;
+        int slot = hash(accession) & mask;
+        while (table[slot] != EMPTY_SLOT && accessions[table[slot] - 1] != accession) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Spreads consecutive accessions, which are the most common, over the whole table
+     */
+    private static int hash(long accession) {
+        long hash = accession * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private void grow(int minCapacity) {
+        if (minCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Can't hold more than " + MAX_CAPACITY + " accessions");
+        }
+        int capacity = (int) Math.min(Math.max((long) accessions.length * 2, Math.max(minCapacity, DEFAULT_CAPACITY)),
+                                      MAX_CAPACITY);
+        accessions = Arrays.copyOf(accessions, capacity);
+        values = Arrays.copyOf(values, capacity);
+        int tableSize = tableSizeFor(capacity);
+        if (tableSize > table.length) {
+            table = new int[tableSize];
+            for (int i = 0; i < size; i++) {
+                table[slotOf(accessions[i])] = i + 1;
+            }
+        }
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " of " + size + " accessions");
+        }
+    }
+
+    private class Entry implements Map.Entry<Long, V> {
+
+        private final int position;
+
+        Entry(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public Long getKey() {
+            return accessions[position];
+        }
+
+        @Override
+        public V getValue() {
+            return AccessionMap.this.getValue(position);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V previousValue = getValue();
+            values[position] = value;
+            return previousValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> that = (Map.Entry<?, ?>) o;
+            return getKey().equals(that.getKey()) && Objects.equals(getValue(), that.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(accessions[position]) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return accessions[position] + "=" + getValue();
+        }
+    }
+}
@@ -17,11 +17,9 @@
  */
 package uk.ac.ebi.eva.accession.core;
 
-import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
-
 /**
  * Abstract representation of the fields that uniquely identify an accessioned submitted variant. Implemented by the
- * entity serialized into the database {@link SubmittedVariantEntity} and the message/DTO used by the REST API.
+ * entity serialized into the database {@code SubmittedVariantEntity} and the message/DTO used by the REST API.
  */
 public interface ISubmittedVariant {
 
@@ -0,0 +1,156 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+/**
+ * Bounded pool of canonical instances of short strings, so that the values repeated across the variants of a batch
+ * are held in memory once. The assembly, taxonomy, project and contig only take a few values in a submission, and
+ * most alleles are a few bases long, so a batch of millions of variants needs only a handful of instances.
+ *
+ * Strings can also be looked up from a range of characters, so that a parser only allocates a string the first time
+ * it reads a value. Strings longer than the maximum length are not pooled, and once the pool is full, new values are
+ * returned as they are. A pool is meant to be used while reading a single batch, by a single thread, and its strings
+ * are released with it.
+ */
+public class StringPool {
+
+    public static final int DEFAULT_MAX_SIZE = 1 << 12;
+
+    public static final int DEFAULT_MAX_LENGTH = 64;
+
+    private static final int INITIAL_TABLE_SIZE = 16;
+
+    private final int maxSize;
+
+    private final int maxLength;
+
+    /**
+     * Open addressing table of the pooled strings, at most half full
+     */
+    private String[] table;
+
+    private int size;
+
+    public StringPool() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * @param maxSize Maximum number of strings pooled
+     * @param maxLength Strings longer than this are not pooled
+     */
+    public StringPool(int maxSize, int maxLength) {
+        this.maxSize = maxSize;
+        this.maxLength = maxLength;
+        this.table = new String[INITIAL_TABLE_SIZE];
+        this.size = 0;
+    }
+
+    /**
+     * @return The pooled instance equal to the value, if any, otherwise the value itself
+     */
+    public String canonicalize(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        int mask = table.length - 1;
+        int hash = value.hashCode();
+        int slot = spread(hash) & mask;
+        while (table[slot] != null) {
+            String candidate = table[slot];
+            if (candidate.hashCode() == hash && candidate.equals(value)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, value);
+    }
+
+    /**
+     * @return The pooled instance equal to the characters, if any, otherwise a new string with them
+     */
+    public String canonicalize(char[] chars, int offset, int length) {
+        if (length > maxLength) {
+            return new String(chars, offset, length);
+        }
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        while (table[slot] != null) {
+            String candidate = table[slot];
+            if (candidate.hashCode() == hash && contentEquals(candidate, chars, offset, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, new String(chars, offset, length));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean contentEquals(String candidate, char[] chars, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mixes the highest bits of the hash code into the lowest ones, which are the only ones used by small tables
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private String add(int slot, String value) {
+        if (size >= maxSize) {
+            return value;
+        }
+        table[slot] = value;
+        size++;
+        if (size * 2 > table.length) {
+            rehash();
+        }
+        return value;
+    }
+
+    private void rehash() {
+        String[] oldTable = table;
+        table = new String[oldTable.length * 2];
+        int mask = table.length - 1;
+        for (String value : oldTable) {
+            if (value != null) {
+                int slot = spread(value.hashCode()) & mask;
+                while (table[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdScalarDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+import uk.ac.ebi.eva.accession.core.StringPool;
+
+import java.io.IOException;
+
+/**
+ * Reads strings through a {@link StringPool}, directly from the characters of the parser, so a value repeated in the
+ * input is only allocated the first time.
+ *
+ * The pool is kept as an attribute of the deserialization, so by default there is one for each call to the object
+ * mapper, e.g. one for the whole body of a request. A reader can share one across calls by setting the
+ * {@link #POOL_ATTRIBUTE} attribute.
+ */
+public class CanonicalStringDeserializer extends StdScalarDeserializer<String> {
+
+    public static final String POOL_ATTRIBUTE = CanonicalStringDeserializer.class.getName() + ".pool";
+
+    public CanonicalStringDeserializer() {
+        super(String.class);
+    }
+
+    @Override
+    public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.VALUE_STRING) {
+            return StringDeserializer.instance.deserialize(parser, context);
+        }
+        StringPool pool = (StringPool) context.getAttribute(POOL_ATTRIBUTE);
+        if (pool == null) {
+            pool = new StringPool();
+            context.setAttribute(POOL_ATTRIBUTE, pool);
+        }
+        return pool.canonicalize(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import uk.ac.ebi.eva.accession.core.AccessionMap;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of lists of variants and maps from accession to variant, the bodies of the
+ * {@code /v1/variant} endpoints, as an alternative to JSON for big batches.
+ *
+ * A message starts with the bytes "EVA", a version byte, a byte of flags and the number of variants. Each variant
+ * follows as a record of the accession (only in maps), assembly, taxonomy, project, contig, start, reference allele,
+ * alternate allele and a byte of flags. Integers are variable length, and the start and accession are written as the
+ * difference to those of the previous record, so variants sorted by position take a few bytes. Strings are
+ * dictionary encoded: the first occurrence of a short string is written in full and added to a dictionary, and later
+ * occurrences are written as their index in it, so the assembly, taxonomy, project, contig and most alleles take one
+ * or two bytes per variant.
+ */
+public class SubmittedVariantBinaryFormat {
+
+    public static final String CONTENT_TYPE = "application/x-eva-variants";
+
+    private static final byte[] MAGIC = {'E', 'V', 'A'};
+
+    private static final int VERSION = 1;
+
+    private static final int HAS_ACCESSIONS = 1;
+
+    private static final int SUPPORTED_BY_EVIDENCE = 1;
+
+    /**
+     * Strings longer than this, like the alleles of long indels, are not added to the dictionary
+     */
+    static final int MAX_DICTIONARY_STRING_LENGTH = 64;
+
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    private static final int MAX_STRING_LENGTH = 1 << 24;
+
+    private static final int NULL_STRING = 0;
+
+    private static final int LITERAL_STRING = 1;
+
+    private static final int NEW_DICTIONARY_STRING = 2;
+
+    private static final int FIRST_DICTIONARY_INDEX = 3;
+
+    private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+    private SubmittedVariantBinaryFormat() {
+    }
+
+    public static void writeVariants(Collection<? extends ISubmittedVariant> variants, OutputStream outputStream)
+            throws IOException {
+        Writer writer = new Writer(outputStream, false, variants.size());
+        for (ISubmittedVariant variant : variants) {
+            writer.write(0, variant);
+        }
+        writer.flush();
+    }
+
+    public static void writeAccessions(Map<Long, ? extends ISubmittedVariant> accessions, OutputStream outputStream)
+            throws IOException {
+        Writer writer = new Writer(outputStream, true, accessions.size());
+        if (accessions instanceof AccessionMap) {
+            AccessionMap<? extends ISubmittedVariant> accessionMap =
+                    (AccessionMap<? extends ISubmittedVariant>) accessions;
+            for (int i = 0; i < accessionMap.size(); i++) {
+                writer.write(accessionMap.getAccession(i), accessionMap.getValue(i));
+            }
+        } else {
+            for (Map.Entry<Long, ? extends ISubmittedVariant> entry : accessions.entrySet()) {
+                writer.write(entry.getKey(), entry.getValue());
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * @throws StreamCorruptedException If the input is not a list of variants in this format
+     */
+    public static List<SubmittedVariantDTO> readVariants(InputStream inputStream) throws IOException {
+        Reader reader = new Reader(inputStream);
+        if (reader.hasAccessions) {
+            throw new StreamCorruptedException("Expected variants without accessions");
+        }
+        List<SubmittedVariantDTO> variants = new ArrayList<>(Math.min(reader.size, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < reader.size; i++) {
+            variants.add(reader.readVariant());
+        }
+        reader.checkEnd();
+        return variants;
+    }
+
+    /**
+     * @throws StreamCorruptedException If the input is not a map from accessions to variants in this format
+     */
+    public static AccessionMap<SubmittedVariantDTO> readAccessions(InputStream inputStream) throws IOException {
+        Reader reader = new Reader(inputStream);
+        if (!reader.hasAccessions) {
+            throw new StreamCorruptedException("Expected variants with accessions");
+        }
+        AccessionMap<SubmittedVariantDTO> accessions = new AccessionMap<>(Math.min(reader.size, MAX_INITIAL_CAPACITY));
+        for (int i = 0; i < reader.size; i++) {
+            long accession = reader.readAccession();
+            accessions.put(accession, reader.readVariant());
+        }
+        reader.checkEnd();
+        return accessions;
+    }
+
+    private static class Writer {
+
+        private final OutputStream outputStream;
+
+        private final boolean hasAccessions;
+
+        private final Map<String, Integer> dictionary;
+
+        private long previousAccession;
+
+        private long previousStart;
+
+        Writer(OutputStream outputStream, boolean hasAccessions, int size) throws IOException {
+            this.outputStream = new BufferedOutputStream(outputStream);
+            this.hasAccessions = hasAccessions;
+            this.dictionary = new HashMap<>();
+            this.outputStream.write(MAGIC);
+            this.outputStream.write(VERSION);
+            this.outputStream.write(hasAccessions ? HAS_ACCESSIONS : 0);
+            writeUnsigned(size);
+        }
+
+        void write(long accession, ISubmittedVariant variant) throws IOException {
+            if (hasAccessions) {
+                writeUnsigned(zigZag(accession - previousAccession));
+                previousAccession = accession;
+            }
+            writeString(variant.getAssemblyAccession());
+            writeString(variant.getTaxonomyAccession());
+            writeString(variant.getProjectAccession());
+            writeString(variant.getContig());
+            writeUnsigned(zigZag(variant.getStart() - previousStart));
+            previousStart = variant.getStart();
+            writeString(variant.getReferenceAllele());
+            writeString(variant.getAlternateAllele());
+            outputStream.write(variant.isSupportedByEvidence() ? SUPPORTED_BY_EVIDENCE : 0);
+        }
+
+        void flush() throws IOException {
+            outputStream.flush();
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                writeUnsigned(NULL_STRING);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index != null) {
+                writeUnsigned(FIRST_DICTIONARY_INDEX + index);
+                return;
+            }
+            if (value.length() <= MAX_DICTIONARY_STRING_LENGTH && dictionary.size() < MAX_DICTIONARY_SIZE) {
+                dictionary.put(value, dictionary.size());
+                writeUnsigned(NEW_DICTIONARY_STRING);
+            } else {
+                writeUnsigned(LITERAL_STRING);
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsigned(bytes.length);
+            outputStream.write(bytes);
+        }
+
+        private void writeUnsigned(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                outputStream.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            outputStream.write((int) value);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+    }
+
+    private static class Reader {
+
+        private final InputStream inputStream;
+
+        private final boolean hasAccessions;
+
+        private final int size;
+
+        private final List<String> dictionary;
+
+        private long previousAccession;
+
+        private long previousStart;
+
+        Reader(InputStream inputStream) throws IOException {
+            this.inputStream = new BufferedInputStream(inputStream);
+            for (byte magicByte : MAGIC) {
+                if (readByte() != magicByte) {
+                    throw new StreamCorruptedException("Not a list of variants in binary format");
+                }
+            }
+            int version = readByte();
+            if (version != VERSION) {
+                throw new StreamCorruptedException("Unsupported version of the binary format: " + version);
+            }
+            this.hasAccessions = (readByte() & HAS_ACCESSIONS) != 0;
+            long size = readUnsigned();
+            if (size > Integer.MAX_VALUE) {
+                throw new StreamCorruptedException("Too many variants: " + size);
+            }
+            this.size = (int) size;
+            this.dictionary = new ArrayList<>();
+        }
+
+        long readAccession() throws IOException {
+            previousAccession += unZigZag(readUnsigned());
+            return previousAccession;
+        }
+
+        SubmittedVariantDTO readVariant() throws IOException {
+            String assemblyAccession = readString();
+            String taxonomyAccession = readString();
+            String projectAccession = readString();
+            String contig = readString();
+            previousStart += unZigZag(readUnsigned());
+            String referenceAllele = readString();
+            String alternateAllele = readString();
+            boolean supportedByEvidence = (readByte() & SUPPORTED_BY_EVIDENCE) != 0;
+            return new SubmittedVariantDTO(assemblyAccession, taxonomyAccession, projectAccession, contig,
+                                           previousStart, referenceAllele, alternateAllele, supportedByEvidence);
+        }
+
+        void checkEnd() throws IOException {
+            if (inputStream.read() != -1) {
+                throw new StreamCorruptedException("Unexpected data after the last variant");
+            }
+        }
+
+        private String readString() throws IOException {
+            long code = readUnsigned();
+            if (code == NULL_STRING) {
+                return null;
+            }
+            if (code >= FIRST_DICTIONARY_INDEX) {
+                long index = code - FIRST_DICTIONARY_INDEX;
+                if (index >= dictionary.size()) {
+                    throw new StreamCorruptedException("Unknown string index " + index);
+                }
+                return dictionary.get((int) index);
+            }
+            long length = readUnsigned();
+            if (length > MAX_STRING_LENGTH) {
+                throw new StreamCorruptedException("String too long: " + length);
+            }
+            byte[] bytes = new byte[(int) length];
+            int read = 0;
+            while (read < bytes.length) {
+                int count = inputStream.read(bytes, read, bytes.length - read);
+                if (count < 0) {
+                    throw new EOFException();
+                }
+                read += count;
+            }
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            if (code == NEW_DICTIONARY_STRING) {
+                if (dictionary.size() >= MAX_DICTIONARY_SIZE) {
+                    throw new StreamCorruptedException("Too many strings in the dictionary");
+                }
+                dictionary.add(value);
+            }
+            return value;
+        }
+
+        private long readUnsigned() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length integer");
+        }
+
+        private int readByte() throws IOException {
+            int b = inputStream.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            return b;
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+    }
+}
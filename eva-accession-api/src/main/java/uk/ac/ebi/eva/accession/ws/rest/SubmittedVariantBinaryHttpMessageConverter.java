@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import uk.ac.ebi.eva.accession.core.AccessionMap;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Reads and writes lists of variants and maps from accession to variant in {@link SubmittedVariantBinaryFormat}, for
+ * clients that send or accept {@value SubmittedVariantBinaryFormat#CONTENT_TYPE}.
+ *
+ * Only collections whose declared element type is a variant are converted, so that other maps and lists keep being
+ * written as JSON. A collection without generic type information, like the body of a request of a
+ * {@link org.springframework.web.client.RestTemplate}, is only written if the binary content type was requested
+ * explicitly.
+ */
+public class SubmittedVariantBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(SubmittedVariantBinaryFormat.CONTENT_TYPE);
+
+    public SubmittedVariantBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz) || Map.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return canRead(clazz, null, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        if (!canRead(mediaType)) {
+            return false;
+        }
+        ResolvableType resolvableType = ResolvableType.forType(type);
+        Class<?> rawClass = resolvableType.resolve();
+        if (rawClass == null) {
+            return false;
+        }
+        ResolvableType variantType;
+        if (rawClass.isAssignableFrom(AccessionMap.class)) {
+            variantType = resolvableType.asMap().getGeneric(1);
+        } else if (rawClass.isAssignableFrom(ArrayList.class)) {
+            variantType = resolvableType.asCollection().getGeneric(0);
+        } else {
+            return false;
+        }
+        Class<?> variantClass = variantType.resolve();
+        return variantClass != null && variantClass.isAssignableFrom(SubmittedVariantDTO.class);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return canWrite(clazz, clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!supports(clazz) || !canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType resolvableType = ResolvableType.forType(type != null ? type : clazz);
+        ResolvableType variantType = Map.class.isAssignableFrom(clazz) ? resolvableType.asMap().getGeneric(1)
+                                                                       : resolvableType.asCollection().getGeneric(0);
+        Class<?> variantClass = variantType.resolve();
+        if (variantClass == null) {
+            return mediaType != null && mediaType.isConcrete();
+        }
+        return ISubmittedVariant.class.isAssignableFrom(variantClass);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        Class<?> rawClass = ResolvableType.forType(type).resolve();
+        return readInternal(rawClass, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            if (Map.class.isAssignableFrom(clazz)) {
+                return SubmittedVariantBinaryFormat.readAccessions(inputMessage.getBody());
+            } else {
+                return SubmittedVariantBinaryFormat.readVariants(inputMessage.getBody());
+            }
+        } catch (StreamCorruptedException | EOFException e) {
+            throw new HttpMessageNotReadableException("Could not read variants: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (object instanceof Map) {
+            SubmittedVariantBinaryFormat.writeAccessions((Map<Long, ? extends ISubmittedVariant>) object,
+                                                         outputMessage.getBody());
+        } else {
+            SubmittedVariantBinaryFormat.writeVariants((Collection<? extends ISubmittedVariant>) object,
+                                                       outputMessage.getBody());
+        }
+    }
+}
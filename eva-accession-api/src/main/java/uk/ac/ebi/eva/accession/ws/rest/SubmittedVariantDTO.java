@@ -17,22 +17,34 @@
  */
 package uk.ac.ebi.eva.accession.ws.rest;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 
+/**
+ * The strings of the variants read from JSON are canonicalized with a {@link CanonicalStringDeserializer}, so the
+ * variants of a request share the instances of their repeated values.
+ */
 public class SubmittedVariantDTO implements ISubmittedVariant {
 
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String assemblyAccession;
 
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String taxonomyAccession;
 
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String projectAccession;
 
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String contig;
 
     private long start;
 
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String referenceAllele;
 
+    @JsonDeserialize(using = CanonicalStringDeserializer.class)
     private String alternateAllele;
 
     private boolean supportedByEvidence;
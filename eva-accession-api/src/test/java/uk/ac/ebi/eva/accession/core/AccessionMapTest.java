@@ -0,0 +1,140 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AccessionMapTest {
+
+    private static final int ACCESSIONS = 10000;
+
+    @Test
+    public void accessionsAreFoundAfterGrowing() {
+        AccessionMap<String> accessions = new AccessionMap<>(0);
+        for (long accession = 0; accession < ACCESSIONS; accession++) {
+            assertNull(accessions.put(5000000000L + accession * 3, "variant" + accession));
+        }
+
+        assertEquals(ACCESSIONS, accessions.size());
+        for (long accession = 0; accession < ACCESSIONS; accession++) {
+            assertEquals("variant" + accession, accessions.get(5000000000L + accession * 3));
+            assertFalse(accessions.containsAccession(5000000000L + accession * 3 + 1));
+        }
+        assertNull(accessions.get(-1L));
+    }
+
+    @Test
+    public void insertionOrderIsKept() {
+        AccessionMap<String> accessions = new AccessionMap<>();
+        accessions.put(30L, "C");
+        accessions.put(10L, "A");
+        assertEquals("A", accessions.put(10L, "B"));
+        accessions.put(20L, "D");
+
+        assertArrayEquals(new long[]{30, 10, 20}, accessions.getAccessions());
+        assertEquals(Arrays.asList(30L, 10L, 20L), new ArrayList<>(accessions.keySet()));
+        assertEquals(Arrays.asList("C", "B", "D"), new ArrayList<>(accessions.values()));
+        assertEquals(10L, accessions.getAccession(1));
+        assertEquals("B", accessions.getValue(1));
+
+        List<String> entries = new ArrayList<>();
+        accessions.forEachAccession((accession, value) -> entries.add(accession + value));
+        assertEquals(Arrays.asList("30C", "10B", "20D"), entries);
+    }
+
+    @Test
+    public void equalToOtherMaps() {
+        Map<Long, String> hashMap = new HashMap<>();
+        for (long accession = 0; accession < 100; accession++) {
+            hashMap.put(accession, "variant" + accession);
+        }
+
+        AccessionMap<String> accessions = new AccessionMap<>(hashMap);
+
+        assertEquals(hashMap, accessions);
+        assertEquals(accessions, hashMap);
+        assertEquals(hashMap.hashCode(), accessions.hashCode());
+        assertTrue(accessions.containsKey(50L));
+        assertFalse(accessions.containsKey(50));
+    }
+
+    @Test
+    public void mapValuesKeepsAccessions() {
+        AccessionMap<Integer> accessions = new AccessionMap<>();
+        for (int accession = 0; accession < ACCESSIONS; accession++) {
+            accessions.put(accession, accession);
+        }
+
+        AccessionMap<String> mapped = accessions.mapValues(value -> "variant" + value);
+        mapped.put(-1L, "new");
+
+        assertEquals(ACCESSIONS + 1, mapped.size());
+        assertEquals("variant123", mapped.get(123L));
+        assertEquals("new", mapped.get(-1L));
+        assertEquals(ACCESSIONS, accessions.size());
+        assertFalse(accessions.containsAccession(-1L));
+    }
+
+    @Test
+    public void putAllMergesMaps() {
+        AccessionMap<String> accessions = new AccessionMap<>();
+        accessions.put(1L, "A");
+        AccessionMap<String> otherAccessions = new AccessionMap<>();
+        otherAccessions.put(1L, "B");
+        otherAccessions.put(2L, "C");
+
+        accessions.putAll(otherAccessions);
+
+        assertEquals(2, accessions.size());
+        assertEquals("B", accessions.get(1L));
+        assertEquals("C", accessions.get(2L));
+    }
+
+    @Test
+    public void clearRemovesAllAccessions() {
+        AccessionMap<String> accessions = new AccessionMap<>();
+        accessions.put(1L, "A");
+
+        accessions.clear();
+
+        assertTrue(accessions.isEmpty());
+        assertFalse(accessions.containsAccession(1L));
+        accessions.put(2L, "B");
+        assertEquals(1, accessions.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void positionMustBeInMap() {
+        AccessionMap<String> accessions = new AccessionMap<>();
+        accessions.put(1L, "A");
+
+        accessions.getValue(1);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class StringPoolTest {
+
+    @Test
+    public void equalStringsAreCanonicalized() {
+        StringPool pool = new StringPool();
+        String contig = pool.canonicalize(new String("chr20"));
+
+        assertSame(contig, pool.canonicalize(new String("chr20")));
+        assertSame(contig, pool.canonicalize("xchr20x".toCharArray(), 1, 5));
+        assertEquals("chr2", pool.canonicalize("chr2".toCharArray(), 0, 4));
+        assertNull(pool.canonicalize(null));
+        assertEquals(2, pool.size());
+    }
+
+    @Test
+    public void manyStringsAreCanonicalized() {
+        StringPool pool = new StringPool();
+        for (int i = 0; i < 1000; i++) {
+            pool.canonicalize(Integer.toString(i));
+        }
+
+        assertEquals(1000, pool.size());
+        for (int i = 0; i < 1000; i++) {
+            String value = Integer.toString(i);
+            assertSame(pool.canonicalize(value), pool.canonicalize(value.toCharArray(), 0, value.length()));
+        }
+    }
+
+    @Test
+    public void poolIsBounded() {
+        StringPool pool = new StringPool(2, 3);
+        pool.canonicalize("A");
+        pool.canonicalize("C");
+        String longAllele = new String("ACGT");
+
+        assertSame(longAllele, pool.canonicalize(longAllele));
+        assertNotSame(pool.canonicalize(new String("G")), pool.canonicalize(new String("G")));
+        assertNotSame(pool.canonicalize(new String("ACGT")), pool.canonicalize(new String("ACGT")));
+        assertEquals(2, pool.size());
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CanonicalStringDeserializerTest {
+
+    private static final String VARIANTS = "[" +
+            "{\"assemblyAccession\":\"GCA_1\",\"taxonomyAccession\":\"9606\",\"projectAccession\":\"PRJEB1\"," +
+            "\"contig\":\"20\",\"start\":1000,\"referenceAllele\":\"A\",\"alternateAllele\":\"T\"}," +
+            "{\"assemblyAccession\":\"GCA_1\",\"taxonomyAccession\":\"9606\",\"projectAccession\":\"PRJEB1\"," +
+            "\"contig\":\"20\",\"start\":2000,\"referenceAllele\":\"T\",\"alternateAllele\":null}]";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void variantsOfARequestShareStrings() throws IOException {
+        List<SubmittedVariantDTO> variants = objectMapper.readValue(
+                VARIANTS, new TypeReference<List<SubmittedVariantDTO>>() {
+                });
+
+        assertEquals(2, variants.size());
+        assertEquals("GCA_1", variants.get(0).getAssemblyAccession());
+        assertSame(variants.get(0).getAssemblyAccession(), variants.get(1).getAssemblyAccession());
+        assertSame(variants.get(0).getContig(), variants.get(1).getContig());
+        assertSame(variants.get(0).getAlternateAllele(), variants.get(1).getReferenceAllele());
+        assertNull(variants.get(1).getAlternateAllele());
+    }
+
+    @Test
+    public void separateRequestsDoNotShareStrings() throws IOException {
+        List<SubmittedVariantDTO> firstVariants = objectMapper.readValue(
+                VARIANTS, new TypeReference<List<SubmittedVariantDTO>>() {
+                });
+        List<SubmittedVariantDTO> secondVariants = objectMapper.readValue(
+                VARIANTS, new TypeReference<List<SubmittedVariantDTO>>() {
+                });
+
+        assertNotSame(firstVariants.get(0).getContig(), secondVariants.get(0).getContig());
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SubmittedVariantBinaryFormatTest {
+
+    @Test
+    public void variantsAreReadAsWritten() throws IOException {
+        List<SubmittedVariantDTO> variants = asList(
+                new SubmittedVariantDTO("GCA_000001405.27", "9606", "PRJEB12345", "chr2", 2000, "A", "T", true),
+                new SubmittedVariantDTO("GCA_000001405.27", "9606", "PRJEB12345", "chr1", 1000, "", "CT", false),
+                new SubmittedVariantDTO("GCA_000001405.27", "9606", "PRJEB12345", "chr1", Long.MAX_VALUE, "A", "T",
+                                        false));
+
+        List<SubmittedVariantDTO> readVariants = SubmittedVariantBinaryFormat.readVariants(
+                new ByteArrayInputStream(writeVariants(variants)));
+
+        assertEquals(variants.size(), readVariants.size());
+        for (int i = 0; i < variants.size(); i++) {
+            assertSameVariant(variants.get(i), readVariants.get(i));
+        }
+    }
+
+    @Test
+    public void accessionsAreReadAsWritten() throws IOException {
+        Map<Long, SubmittedVariantDTO> accessions = new LinkedHashMap<>();
+        accessions.put(5000000123L, new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM1", 1500,
+                                                            "REF", "ALT", false));
+        accessions.put(5000000001L, new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM1", 1000,
+                                                            "REF", "ALT", true));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SubmittedVariantBinaryFormat.writeAccessions(accessions, outputStream);
+
+        Map<Long, SubmittedVariantDTO> readAccessions = SubmittedVariantBinaryFormat.readAccessions(
+                new ByteArrayInputStream(outputStream.toByteArray()));
+
+        assertEquals(new ArrayList<>(accessions.keySet()), new ArrayList<>(readAccessions.keySet()));
+        for (Long accession : accessions.keySet()) {
+            assertSameVariant(accessions.get(accession), readAccessions.get(accession));
+        }
+    }
+
+    @Test
+    public void nullAndLongStringsAreSupported() throws IOException {
+        char[] longAllele = new char[SubmittedVariantBinaryFormat.MAX_DICTIONARY_STRING_LENGTH * 2];
+        Arrays.fill(longAllele, 'A');
+        List<SubmittedVariantDTO> variants = asList(
+                new SubmittedVariantDTO(null, "TAXACC01", "PROJACC01", "CHROM1", 1, new String(longAllele),
+                                        "\u00c4", false),
+                new SubmittedVariantDTO(null, "TAXACC01", "PROJACC01", "CHROM1", 1, new String(longAllele), "\u00c4",
+                                        false));
+
+        List<SubmittedVariantDTO> readVariants = SubmittedVariantBinaryFormat.readVariants(
+                new ByteArrayInputStream(writeVariants(variants)));
+
+        assertNull(readVariants.get(1).getAssemblyAccession());
+        assertSameVariant(variants.get(1), readVariants.get(1));
+    }
+
+    @Test
+    public void binaryFormatIsSmallerThanJson() throws IOException {
+        List<SubmittedVariantDTO> variants = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            variants.add(new SubmittedVariantDTO("GCA_000001405.27", "9606", "PRJEB12345", "chr1", 10000 + i * 100,
+                                                 "A", "T", false));
+        }
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(variants);
+        byte[] binary = writeVariants(variants);
+
+        assertTrue(binary.length * 10 < json.length);
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void otherContentIsRejected() throws IOException {
+        SubmittedVariantBinaryFormat.readVariants(new ByteArrayInputStream("[{\"start\": 1}]".getBytes()));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void unknownDictionaryIndexesAreRejected() throws IOException {
+        SubmittedVariantBinaryFormat.readVariants(new ByteArrayInputStream(new byte[]{'E', 'V', 'A', 1, 0, 1, 10}));
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void variantsWithAccessionsAreNotReadAsVariants() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SubmittedVariantBinaryFormat.writeAccessions(new LinkedHashMap<>(), outputStream);
+        SubmittedVariantBinaryFormat.readVariants(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    private byte[] writeVariants(List<SubmittedVariantDTO> variants) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SubmittedVariantBinaryFormat.writeVariants(variants, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private void assertSameVariant(SubmittedVariantDTO expected, SubmittedVariantDTO actual) {
+        assertEquals(expected.getAssemblyAccession(), actual.getAssemblyAccession());
+        assertEquals(expected.getTaxonomyAccession(), actual.getTaxonomyAccession());
+        assertEquals(expected.getProjectAccession(), actual.getProjectAccession());
+        assertEquals(expected.getContig(), actual.getContig());
+        assertEquals(expected.getStart(), actual.getStart());
+        assertEquals(expected.getReferenceAllele(), actual.getReferenceAllele());
+        assertEquals(expected.getAlternateAllele(), actual.getAlternateAllele());
+        assertEquals(expected.isSupportedByEvidence(), actual.isSupportedByEvidence());
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.ebi.eva.accession.core.AccessionMap;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Cost of the result of accessioning a batch in the service and the REST layer: collecting the accessions of the
+ * batch, converting the variants to DTOs for the response, and reading back every accession and DTO as the response is
+ * written. {@link #hashMap} does it with boxed accessions like the generic accessioning APIs, and
+ * {@link #accessionMap} with an {@link AccessionMap}. Run with {@code -prof gc} to compare the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AccessionMapBenchmark {
+
+    private static final long FIRST_ACCESSION = 5000000000L;
+
+    @Param({"1000000"})
+    private int batchSize;
+
+    private List<ISubmittedVariant> variants;
+
+    @Setup
+    public void setUp() {
+        variants = SubmittedVariantGenerator.generate(batchSize, 0);
+    }
+
+    @Benchmark
+    public long hashMap() {
+        Map<Long, ISubmittedVariant> accessions = new HashMap<>();
+        long accession = FIRST_ACCESSION;
+        for (ISubmittedVariant variant : variants) {
+            accessions.put(accession++, variant);
+        }
+        Map<Long, SubmittedVariantDTO> response = accessions.entrySet().stream().collect(
+                Collectors.toMap(Map.Entry::getKey, entry -> new SubmittedVariantDTO(entry.getValue())));
+        long checksum = 0;
+        for (Map.Entry<Long, SubmittedVariantDTO> entry : response.entrySet()) {
+            checksum += entry.getKey() + entry.getValue().getStart();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long accessionMap() {
+        AccessionMap<ISubmittedVariant> accessions = new AccessionMap<>();
+        long accession = FIRST_ACCESSION;
+        for (ISubmittedVariant variant : variants) {
+            accessions.put(accession++, variant);
+        }
+        AccessionMap<SubmittedVariantDTO> response = accessions.mapValues(SubmittedVariantDTO::new);
+        long checksum = 0;
+        for (int i = 0; i < response.size(); i++) {
+            checksum += response.getAccession(i) + response.getValue(i).getStart();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+
+/**
+ * Accessioning service backed by an in-memory H2 database, for the benchmarks that go through the persistence layer.
+ */
+@Configuration
+@EnableAutoConfiguration
+@Import({SubmittedVariantAccessioningConfiguration.class})
+@PropertySource("classpath:benchmark.properties")
+public class BenchmarkConfiguration {
+
+    public static ConfigurableApplicationContext startContext() {
+        return new SpringApplicationBuilder(BenchmarkConfiguration.class).bannerMode(Banner.Mode.OFF)
+                                                                         .web(false)
+                                                                         .run();
+    }
+
+}
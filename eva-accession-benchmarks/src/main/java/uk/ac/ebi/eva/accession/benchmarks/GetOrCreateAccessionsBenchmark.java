@@ -0,0 +1,120 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to accession a batch of variants, either all of them new ({@link #newVariants}) or all of them already
+ * accessioned ({@link #existingVariants}). Within the batch, a fraction {@link #duplicateRatio} of the variants are
+ * repeated.
+ *
+ * The variants inserted by {@link #newVariants} are deleted before each iteration, so that every iteration starts
+ * from a database with only the existing batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetOrCreateAccessionsBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int batchSize;
+
+    @Param({"0.0", "0.5", "0.9"})
+    private double duplicateRatio;
+
+    private ConfigurableApplicationContext context;
+
+    private SubmittedVariantAccessioningService service;
+
+    private List<ISubmittedVariant> existingBatch;
+
+    private List<ISubmittedVariant> newBatch;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private long lastExistingAccession;
+
+    private long nextStart;
+
+    @Setup(Level.Trial)
+    public void startContext() throws AccessionCouldNotBeGeneratedException {
+        context = BenchmarkConfiguration.startContext();
+        service = context.getBean(SubmittedVariantAccessioningService.class);
+        existingBatch = SubmittedVariantGenerator.generate(batchSize, duplicateRatio);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        lastExistingAccession = service.getOrCreateAccessions(existingBatch).keySet().stream()
+                                       .mapToLong(Long::longValue).max().getAsLong();
+        nextStart = Integer.MAX_VALUE;
+    }
+
+    /**
+     * The accessions of the new variants are all after the ones of the existing batch, as they are generated later by
+     * the same instance
+     */
+    @Setup(Level.Iteration)
+    public void deleteNewVariants() {
+        jdbcTemplate.update("delete from submitted_variant_entity where accession > ?", lastExistingAccession);
+    }
+
+    @Setup(Level.Invocation)
+    public void generateNewBatch() {
+        newBatch = SubmittedVariantGenerator.generate(batchSize, duplicateRatio, nextStart);
+        nextStart = newBatch.stream().mapToLong(ISubmittedVariant::getStart).max().getAsLong();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Long, ISubmittedVariant> newVariants() throws AccessionCouldNotBeGeneratedException {
+        return service.getOrCreateAccessions(newBatch);
+    }
+
+    @Benchmark
+    public Map<Long, ISubmittedVariant> existingVariants() throws AccessionCouldNotBeGeneratedException {
+        return service.getOrCreateAccessions(existingBatch);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.service.ContiguousIdBlockService;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to generate the accessions of a batch of new variants, including the reservation of new blocks in the database
+ * whenever the current one is exhausted. Smaller block sizes mean more frequent reservations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonotonicAccessionGeneratorBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Param({"100", "1000", "10000"})
+    private long blockSize;
+
+    private ConfigurableApplicationContext context;
+
+    private MonotonicAccessionGenerator<ISubmittedVariant> generator;
+
+    private Map<String, ISubmittedVariant> batch;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkConfiguration.startContext();
+        generator = new MonotonicAccessionGenerator<>(blockSize, "benchmark-generator", "benchmark-instance",
+                                                      context.getBean(ContiguousIdBlockService.class));
+        SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+        batch = new HashMap<>();
+        for (ISubmittedVariant variant : SubmittedVariantGenerator.generate(BATCH_SIZE, 0)) {
+            batch.put(hashingFunction.apply(variant), variant);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ModelHashAccession<ISubmittedVariant, String, Long>> generateAccessions()
+            throws AccessionCouldNotBeGeneratedException {
+        return generator.generateAccessions(batch);
+    }
+}
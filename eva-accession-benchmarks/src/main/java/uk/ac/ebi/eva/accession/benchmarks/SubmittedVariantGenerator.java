@@ -0,0 +1,65 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates realistic-looking submitted variants (SNVs on a few contigs of a single assembly and project) with a
+ * fixed seed, so that every benchmark run uses the same data.
+ */
+public class SubmittedVariantGenerator {
+
+    private static final String[] BASES = {"A", "C", "G", "T"};
+
+    private static final long SEED = 42;
+
+    /**
+     * @param duplicateRatio Fraction of the returned variants that are copies of a previous variant of the list
+     */
+    public static List<ISubmittedVariant> generate(int size, double duplicateRatio) {
+        return generate(size, duplicateRatio, 0);
+    }
+
+    /**
+     * @param firstStart Position of the first distinct variant, so that different calls can generate disjoint sets
+     */
+    public static List<ISubmittedVariant> generate(int size, double duplicateRatio, long firstStart) {
+        Random random = new Random(SEED);
+        List<ISubmittedVariant> variants = new ArrayList<>(size);
+        long start = firstStart;
+        for (int i = 0; i < size; i++) {
+            if (!variants.isEmpty() && random.nextDouble() < duplicateRatio) {
+                variants.add(new SubmittedVariant(variants.get(random.nextInt(variants.size()))));
+            } else {
+                start += 1 + random.nextInt(1000);
+                int reference = random.nextInt(BASES.length);
+                int alternate = (reference + 1 + random.nextInt(BASES.length - 1)) % BASES.length;
+                variants.add(new SubmittedVariant("GCA_000001405.27", "9606", "PRJEB12345",
+                                                  "chr" + (1 + random.nextInt(22)), start, BASES[reference],
+                                                  BASES[alternate], random.nextBoolean()));
+            }
+        }
+        return variants;
+    }
+}
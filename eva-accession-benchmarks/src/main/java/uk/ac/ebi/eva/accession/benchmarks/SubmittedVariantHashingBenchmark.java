@@ -0,0 +1,92 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantModelSummaryFunction;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the hash computed through the summary string with the one computed directly from the fields. Run with
+ * {@code -prof gc} to see the bytes allocated per variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SubmittedVariantHashingBenchmark {
+
+    private static final int VARIANTS = 1000;
+
+    private final Function<ISubmittedVariant, String> summaryFunction = new SubmittedVariantModelSummaryFunction();
+
+    private final Function<String, String> sha1HashingFunction = new SHA1HashingFunction();
+
+    private final SubmittedVariantHashingFunction submittedVariantHashingFunction =
+            new SubmittedVariantHashingFunction();
+
+    private final byte[] rawHash = new byte[20];
+
+    private List<ISubmittedVariant> variants;
+
+    @Setup
+    public void setUp() {
+        variants = SubmittedVariantGenerator.generate(VARIANTS, 0);
+    }
+
+    @Benchmark
+    public void summaryAndSha1(Blackhole blackhole) {
+        for (ISubmittedVariant variant : variants) {
+            blackhole.consume(sha1HashingFunction.apply(summaryFunction.apply(variant)));
+        }
+    }
+
+    @Benchmark
+    public void submittedVariantHashingFunction(Blackhole blackhole) {
+        for (ISubmittedVariant variant : variants) {
+            blackhole.consume(submittedVariantHashingFunction.apply(variant));
+        }
+    }
+
+    @Benchmark
+    public void submittedVariantHashingFunctionRawHash(Blackhole blackhole) {
+        for (ISubmittedVariant variant : variants) {
+            submittedVariantHashingFunction.apply(variant, rawHash);
+            blackhole.consume(rawHash);
+        }
+    }
+}
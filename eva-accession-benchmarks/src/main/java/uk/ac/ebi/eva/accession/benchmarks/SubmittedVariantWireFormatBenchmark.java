@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantBinaryFormat;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares JSON and {@link SubmittedVariantBinaryFormat} as wire formats of {@code POST /v1/variant}, both on the
+ * server (reading the request, writing the response) and on the client (writing the request, reading the response).
+ * The size of the payloads of each format is listed in the README of this module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SubmittedVariantWireFormatBenchmark {
+
+    private static final TypeReference<List<SubmittedVariantDTO>> REQUEST_TYPE =
+            new TypeReference<List<SubmittedVariantDTO>>() {
+            };
+
+    private static final TypeReference<Map<Long, SubmittedVariantDTO>> RESPONSE_TYPE =
+            new TypeReference<Map<Long, SubmittedVariantDTO>>() {
+            };
+
+    @Param({"json", "binary"})
+    private String format;
+
+    @Param({"100", "10000"})
+    private int batchSize;
+
+    private ObjectMapper objectMapper;
+
+    private List<SubmittedVariantDTO> request;
+
+    private Map<Long, SubmittedVariantDTO> response;
+
+    private byte[] serializedRequest;
+
+    private byte[] serializedResponse;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        request = SubmittedVariantGenerator.generate(batchSize, 0).stream().map(SubmittedVariantDTO::new)
+                                           .collect(Collectors.toList());
+        response = new LinkedHashMap<>();
+        long accession = 5000000000L;
+        for (ISubmittedVariant variant : request) {
+            response.put(accession++, new SubmittedVariantDTO(variant));
+        }
+        serializedRequest = serializeRequest();
+        serializedResponse = serializeResponse();
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() throws IOException {
+        if (isJson()) {
+            return objectMapper.writeValueAsBytes(request);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SubmittedVariantBinaryFormat.writeVariants(request, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public List<SubmittedVariantDTO> deserializeRequest() throws IOException {
+        if (isJson()) {
+            return objectMapper.readValue(serializedRequest, REQUEST_TYPE);
+        }
+        return SubmittedVariantBinaryFormat.readVariants(new ByteArrayInputStream(serializedRequest));
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws IOException {
+        if (isJson()) {
+            return objectMapper.writeValueAsBytes(response);
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SubmittedVariantBinaryFormat.writeAccessions(response, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public Map<Long, SubmittedVariantDTO> deserializeResponse() throws IOException {
+        if (isJson()) {
+            return objectMapper.readValue(serializedResponse, RESPONSE_TYPE);
+        }
+        return SubmittedVariantBinaryFormat.readAccessions(new ByteArrayInputStream(serializedResponse));
+    }
+
+    private boolean isJson() {
+        return "json".equals(format);
+    }
+}
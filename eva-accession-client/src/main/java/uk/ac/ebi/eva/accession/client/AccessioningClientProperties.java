@@ -0,0 +1,134 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.client;
+
+public class AccessioningClientProperties {
+
+    /**
+     * Maximum number of variants sent in each request. Bigger lists are split into several requests
+     */
+    private int maxBatchSize = 1000;
+
+    /**
+     * Minimum number of variants sent in each request when a list is split to use several connections
+     */
+    private int minBatchSize = 100;
+
+    /**
+     * Maximum number of accessions retrieved in each request, limited by the length of the URL
+     */
+    private int lookupBatchSize = 200;
+
+    /**
+     * Maximum number of requests in flight, and of pooled connections
+     */
+    private int concurrency = 4;
+
+    /**
+     * Number of times a request is sent before failing, if the previous attempts fail with a connection error or a
+     * server error
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Time to wait before the first retry, doubled on every further retry
+     */
+    private long retryBackoffMillis = 500;
+
+    private int connectTimeoutMillis = 5000;
+
+    private int readTimeoutMillis = 300000;
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getMinBatchSize() {
+        return minBatchSize;
+    }
+
+    public void setMinBatchSize(int minBatchSize) {
+        this.minBatchSize = minBatchSize;
+    }
+
+    public int getLookupBatchSize() {
+        return lookupBatchSize;
+    }
+
+    public void setLookupBatchSize(int lookupBatchSize) {
+        this.lookupBatchSize = lookupBatchSize;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "AccessioningClientProperties{" +
+                "maxBatchSize=" + maxBatchSize +
+                ", minBatchSize=" + minBatchSize +
+                ", lookupBatchSize=" + lookupBatchSize +
+                ", concurrency=" + concurrency +
+                ", maxAttempts=" + maxAttempts +
+                ", retryBackoffMillis=" + retryBackoffMillis +
+                ", connectTimeoutMillis=" + connectTimeoutMillis +
+                ", readTimeoutMillis=" + readTimeoutMillis +
+                '}';
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.client;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import uk.ac.ebi.eva.accession.core.AccessionMap;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantBinaryHttpMessageConverter;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Client of the {@code /v1/variant} endpoints of the accessioning web service.
+ *
+ * Lists of any size are split into requests of at most {@link AccessioningClientProperties#getMaxBatchSize()}
+ * variants, sent concurrently over a pool of keep-alive connections in the compact binary format of the web service.
+ * Requests that fail because of a connection error or a server error are retried, which is safe because accessioning
+ * a variant that already has an accession returns the same accession. If a request still fails after all the
+ * attempts, the call fails, but the variants of the other requests keep the accessions they may have received; calling
+ * again with the same variants returns them.
+ *
+ * The client should be reused, and closed when no longer needed to release the connections and threads.
+ */
+public class SubmittedVariantAccessioningClient implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmittedVariantAccessioningClient.class);
+
+    private static final String VARIANT_PATH = "/v1/variant";
+
+    private static final ParameterizedTypeReference<Map<Long, SubmittedVariantDTO>> ACCESSIONS_TYPE =
+            new ParameterizedTypeReference<Map<Long, SubmittedVariantDTO>>() {
+            };
+
+    private final String baseUrl;
+
+    private final AccessioningClientProperties properties;
+
+    private final RestTemplate restTemplate;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param baseUrl URL of the web service, without the {@code /v1/variant} path
+     */
+    public SubmittedVariantAccessioningClient(String baseUrl) {
+        this(baseUrl, new AccessioningClientProperties());
+    }
+
+    public SubmittedVariantAccessioningClient(String baseUrl, AccessioningClientProperties properties) {
+        this(baseUrl, properties, new RestTemplate(new HttpComponentsClientHttpRequestFactory(
+                createHttpClient(properties))));
+    }
+
+    SubmittedVariantAccessioningClient(String baseUrl, AccessioningClientProperties properties,
+                                       RestTemplate restTemplate) {
+        this.baseUrl = baseUrl;
+        this.properties = properties;
+        this.restTemplate = restTemplate;
+        restTemplate.getMessageConverters().add(0, new SubmittedVariantBinaryHttpMessageConverter());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(properties.getConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "accessioning-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static CloseableHttpClient createHttpClient(AccessioningClientProperties properties) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(properties.getConcurrency());
+        connectionManager.setDefaultMaxPerRoute(properties.getConcurrency());
+        RequestConfig requestConfig = RequestConfig.custom()
+                                                   .setConnectTimeout(properties.getConnectTimeoutMillis())
+                                                   .setSocketTimeout(properties.getReadTimeoutMillis())
+                                                   .build();
+        // retries are done by the client, for server errors as well as connection errors
+        return HttpClients.custom()
+                          .setConnectionManager(connectionManager)
+                          .setDefaultRequestConfig(requestConfig)
+                          .disableAutomaticRetries()
+                          .build();
+    }
+
+    /**
+     * @return Accession of each variant, including those that already had one
+     * @throws RestClientException If any request fails after all the attempts
+     */
+    public AccessionMap<ISubmittedVariant> getOrCreateAccessions(List<? extends ISubmittedVariant> variants) {
+        return join(getOrCreateAccessionsAsync(variants));
+    }
+
+    /**
+     * @return Future completed with the accession of each variant, or with the error of the first request that fails
+     * after all the attempts
+     */
+    public CompletableFuture<AccessionMap<ISubmittedVariant>> getOrCreateAccessionsAsync(
+            List<? extends ISubmittedVariant> variants) {
+        return sendInBatches(variants, getBatchSize(variants.size()), this::postVariants);
+    }
+
+    /**
+     * @return Variants of the accessions that exist
+     * @throws RestClientException If any request fails after all the attempts
+     */
+    public AccessionMap<ISubmittedVariant> getByAccessions(List<Long> accessions) {
+        return join(getByAccessionsAsync(accessions));
+    }
+
+    public CompletableFuture<AccessionMap<ISubmittedVariant>> getByAccessionsAsync(List<Long> accessions) {
+        return sendInBatches(accessions, properties.getLookupBatchSize(), this::getVariants);
+    }
+
+    /**
+     * Splits the list in as many batches as concurrent requests are allowed, so that all the connections are used,
+     * as long as the batches are between the minimum and maximum sizes.
+     */
+    int getBatchSize(int totalVariants) {
+        int batchSizeForAllConnections = (totalVariants + properties.getConcurrency() - 1) /
+                properties.getConcurrency();
+        int batchSize = Math.max(properties.getMinBatchSize(), batchSizeForAllConnections);
+        return Math.max(1, Math.min(properties.getMaxBatchSize(), batchSize));
+    }
+
+    private <T> CompletableFuture<AccessionMap<ISubmittedVariant>> sendInBatches(
+            List<T> items, int batchSize, Function<List<T>, Map<Long, SubmittedVariantDTO>> request) {
+        List<CompletableFuture<Map<Long, SubmittedVariantDTO>>> futures = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += batchSize) {
+            List<T> batch = items.subList(start, Math.min(start + batchSize, items.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> withRetries(() -> request.apply(batch)), executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            AccessionMap<ISubmittedVariant> accessions = new AccessionMap<>(items.size());
+            for (CompletableFuture<Map<Long, SubmittedVariantDTO>> future : futures) {
+                accessions.putAll(future.join());
+            }
+            return accessions;
+        });
+    }
+
+    private Map<Long, SubmittedVariantDTO> postVariants(List<? extends ISubmittedVariant> variants) {
+        HttpHeaders headers = createHeaders();
+        headers.setContentType(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE);
+        return restTemplate.exchange(baseUrl + VARIANT_PATH, HttpMethod.POST, new HttpEntity<>(variants, headers),
+                                     ACCESSIONS_TYPE).getBody();
+    }
+
+    private Map<Long, SubmittedVariantDTO> getVariants(List<Long> accessions) {
+        String joinedAccessions = accessions.stream().map(Object::toString).collect(Collectors.joining(","));
+        return restTemplate.exchange(baseUrl + VARIANT_PATH + "/{accessions}", HttpMethod.GET,
+                                     new HttpEntity<>(createHeaders()), ACCESSIONS_TYPE, joinedAccessions).getBody();
+    }
+
+    private HttpHeaders createHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE));
+        return headers;
+    }
+
+    private <T> T withRetries(Supplier<T> request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return request.get();
+            } catch (ResourceAccessException | HttpServerErrorException e) {
+                if (attempt >= properties.getMaxAttempts()) {
+                    throw e;
+                }
+                long backoffMillis = properties.getRetryBackoffMillis() << (attempt - 1);
+                logger.warn("Request failed (attempt {} of {}), retrying in {} ms: {}", attempt,
+                            properties.getMaxAttempts(), backoffMillis, e.getMessage());
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        ClientHttpRequestFactory requestFactory = restTemplate.getRequestFactory();
+        if (requestFactory instanceof DisposableBean) {
+            try {
+                ((DisposableBean) requestFactory).destroy();
+            } catch (Exception e) {
+                logger.warn("Could not close the connections: {}", e.getMessage());
+            }
+        }
+    }
+}
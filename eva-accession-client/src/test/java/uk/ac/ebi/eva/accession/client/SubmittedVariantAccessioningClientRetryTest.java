@@ -0,0 +1,122 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.client;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantBinaryFormat;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantBinaryHttpMessageConverter;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class SubmittedVariantAccessioningClientRetryTest {
+
+    private static final String URL = "http://localhost/v1/variant";
+
+    private static final SubmittedVariantDTO VARIANT = new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01",
+                                                                               "CHROM1", 1000, "A", "T", false);
+
+    private static final List<ISubmittedVariant> VARIANTS = Collections.singletonList(VARIANT);
+
+    private AccessioningClientProperties properties;
+
+    private MockRestServiceServer server;
+
+    private SubmittedVariantAccessioningClient client;
+
+    @Before
+    public void setUp() {
+        properties = new AccessioningClientProperties();
+        properties.setMaxAttempts(3);
+        properties.setRetryBackoffMillis(1);
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        client = new SubmittedVariantAccessioningClient("http://localhost", properties, restTemplate);
+    }
+
+    @Test
+    public void serverErrorsAreRetried() throws IOException {
+        server.expect(requestTo(URL)).andExpect(method(HttpMethod.POST)).andRespond(withServerError());
+        server.expect(requestTo(URL)).andExpect(method(HttpMethod.POST)).andRespond(
+                withSuccess(serializeAccession(5000000000L), SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE));
+
+        Map<Long, ISubmittedVariant> accessions = client.getOrCreateAccessions(VARIANTS);
+
+        assertEquals(Collections.singleton(5000000000L), accessions.keySet());
+        assertEquals(VARIANT.getStart(), accessions.get(5000000000L).getStart());
+        server.verify();
+    }
+
+    @Test(expected = HttpServerErrorException.class)
+    public void serverErrorsAreRetriedUpToMaxAttempts() {
+        for (int attempt = 0; attempt < properties.getMaxAttempts(); attempt++) {
+            server.expect(requestTo(URL)).andRespond(withServerError());
+        }
+        try {
+            client.getOrCreateAccessions(VARIANTS);
+        } finally {
+            server.verify();
+        }
+    }
+
+    @Test(expected = HttpClientErrorException.class)
+    public void clientErrorsAreNotRetried() {
+        server.expect(requestTo(URL)).andRespond(withBadRequest());
+        try {
+            client.getOrCreateAccessions(VARIANTS);
+        } finally {
+            server.verify();
+        }
+    }
+
+    @Test
+    public void listsAreSplitToUseAllConnections() {
+        properties.setConcurrency(4);
+        properties.setMinBatchSize(100);
+        properties.setMaxBatchSize(1000);
+
+        assertEquals(100, client.getBatchSize(10));
+        assertEquals(625, client.getBatchSize(2500));
+        assertEquals(1000, client.getBatchSize(100000));
+    }
+
+    private byte[] serializeAccession(long accession) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        SubmittedVariantBinaryFormat.writeAccessions(Collections.singletonMap(accession, VARIANT), outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -17,17 +17,390 @@
  */
 package uk.ac.ebi.eva.accession.core;
 
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uk.ac.ebi.eva.accession.core.metrics.AccessioningMetrics;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
 
 import uk.ac.ebi.ampt2d.commons.accession.core.BasicMonotonicAccessioningService;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
 import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
 import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 public class SubmittedVariantAccessioningService extends BasicMonotonicAccessioningService<ISubmittedVariant, String> {
 
+    private static final Logger logger = LoggerFactory.getLogger(SubmittedVariantAccessioningService.class);
+
+    /**
+     * Batches are not split into partitions smaller than this, as the overhead would outweigh the concurrency
+     */
+    static final int MIN_PARTITION_SIZE = 500;
+
+    private final int parallelism;
+
+    private final ExecutorService executor;
+
+    private final SubmittedVariantAccessioningDatabaseService dbService;
+
+    private final SubmittedVariantNormalizer normalizer;
+
+    private final MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator;
+
+    private final SubmittedVariantHashingFunction hashingFunction;
+
+    private final Function<ISubmittedVariant, String> sampledHashingFunction;
+
+    private final TransactionTemplate insertTransactionTemplate;
+
+    private final AccessioningMetrics metrics;
+
+    /**
+     * The new variants are inserted in the transaction of the caller, if any, so a conflict with a concurrent batch
+     * can only be retried when there is none
+     */
     public SubmittedVariantAccessioningService(MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator,
                                                SubmittedVariantAccessioningDatabaseService dbService) {
-        super(accessionGenerator, dbService, new SubmittedVariantModelSummaryFunction(), new SHA1HashingFunction());
+        this(accessionGenerator, dbService, null, 1, null, new AccessioningMetrics(Metrics.globalRegistry));
+    }
+
+    /**
+     * @param transactionManager If not null, the new variants of each partition are inserted in a new transaction,
+     *                           flushed and committed independently of the caller's, so that a conflict with a
+     *                           concurrent batch only rolls back that insertion and can be retried even if the caller
+     *                           runs in a transaction. Accessions committed this way are kept if the caller's
+     *                           transaction is rolled back, and accessioning the same variants again returns them.
+     * @param parallelism Maximum number of partitions of each batch accessioned concurrently. With more than one, each
+     *                    batch is partitioned by variant, and each partition is looked up, assigned accessions and
+     *                    inserted by a thread of a pool of this size. The same variant always falls in the same
+     *                    partition, and the unique hash constraint prevents concurrent batches from inserting it
+     *                    twice, so no variant gets two accessions.
+     * @param normalizer If not null, variants are normalized before being accessioned. Enabling it in a database
+     *                   with variants accessioned without normalization gives new accessions to the variants that
+     *                   change.
+     */
+    public SubmittedVariantAccessioningService(MonotonicAccessionGenerator<ISubmittedVariant> accessionGenerator,
+                                               SubmittedVariantAccessioningDatabaseService dbService,
+                                               PlatformTransactionManager transactionManager, int parallelism,
+                                               SubmittedVariantNormalizer normalizer, AccessioningMetrics metrics) {
+        super(accessionGenerator, dbService, new SubmittedVariantModelSummaryFunction(),
+              metrics.timeSampleOf(new SHA1HashingFunction()));
+        this.parallelism = parallelism;
+        this.accessionGenerator = accessionGenerator;
+        this.dbService = dbService;
+        this.normalizer = normalizer;
+        this.hashingFunction = new SubmittedVariantHashingFunction();
+        this.sampledHashingFunction = metrics.timeSampleOf(hashingFunction);
+        if (transactionManager != null) {
+            this.insertTransactionTemplate = new TransactionTemplate(transactionManager);
+            this.insertTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } else {
+            this.insertTransactionTemplate = null;
+        }
+        this.metrics = metrics;
+        if (parallelism > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "accessioning-partition-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Collapses the repeated variants of the batch, after normalizing them if enabled, so that each distinct variant
+     * is hashed and looked up once. The returned variants are the normalized ones.
+     */
+    @Override
+    public AccessionMap<ISubmittedVariant> getOrCreateAccessions(List<? extends ISubmittedVariant> variants)
+            throws AccessionCouldNotBeGeneratedException {
+        return getOrCreateDistinctAccessions(variants, distinctVariants(variants, null));
+    }
+
+    /**
+     * @return The accession of each variant, in the same order, so repeated variants get the same accession
+     */
+    public List<Long> getOrCreateAccessionOfEach(List<? extends ISubmittedVariant> variants)
+            throws AccessionCouldNotBeGeneratedException {
+        List<VariantKey> keys = new ArrayList<>(variants.size());
+        Map<VariantKey, ISubmittedVariant> distinctVariants = distinctVariants(variants, keys);
+        AccessionMap<ISubmittedVariant> accessions = getOrCreateDistinctAccessions(variants, distinctVariants);
+        Map<VariantKey, Long> accessionsByKey = new HashMap<>(accessions.size() * 2);
+        accessions.forEachAccession((accession, variant) -> accessionsByKey.put(new VariantKey(variant), accession));
+        List<Long> accessionOfEach = new ArrayList<>(variants.size());
+        for (VariantKey key : keys) {
+            accessionOfEach.add(accessionsByKey.get(key));
+        }
+        return accessionOfEach;
+    }
+
+    /**
+     * Finds the accessions of the variants that are already accessioned, without creating any. The variants are
+     * normalized, if enabled, and hashed like in {@link #getOrCreateAccessions}, and the hashes are looked up with
+     * {@link SubmittedVariantAccessioningDatabaseService#findAccessionsOfHashes}, so neither the variants are loaded
+     * nor accessions are reserved.
+     *
+     * @return Accession of each variant that has one. The variants returned are the ones looked up, which may differ
+     * from the stored ones in the fields that are not part of the hash, like {@code supportedByEvidence}.
+     */
+    public AccessionMap<ISubmittedVariant> findAccessions(List<? extends ISubmittedVariant> variants) {
+        Map<String, ISubmittedVariant> variantsByHash = new LinkedHashMap<>(variants.size() * 2);
+        for (ISubmittedVariant variant : distinctVariants(variants, null).values()) {
+            variantsByHash.put(hashingFunction.apply(variant), variant);
+        }
+        Map<String, Long> accessions = dbService.findAccessionsOfHashes(variantsByHash.keySet());
+        AccessionMap<ISubmittedVariant> accessionedVariants = new AccessionMap<>(accessions.size());
+        variantsByHash.forEach((hash, variant) -> {
+            Long accession = accessions.get(hash);
+            if (accession != null) {
+                accessionedVariants.put(accession, variant);
+            }
+        });
+        return accessionedVariants;
+    }
+
+    /**
+     * @param keys If not null, the key of each variant is added to it
+     */
+    private Map<VariantKey, ISubmittedVariant> distinctVariants(List<? extends ISubmittedVariant> variants,
+                                                                List<VariantKey> keys) {
+        Map<VariantKey, ISubmittedVariant> distinctVariants = new LinkedHashMap<>(variants.size() * 2);
+        for (ISubmittedVariant variant : variants) {
+            ISubmittedVariant normalizedVariant = normalizer != null ? normalizer.apply(variant) : variant;
+            VariantKey key = new VariantKey(normalizedVariant);
+            distinctVariants.putIfAbsent(key, normalizedVariant);
+            if (keys != null) {
+                keys.add(key);
+            }
+        }
+        return distinctVariants;
+    }
+
+    private AccessionMap<ISubmittedVariant> getOrCreateDistinctAccessions(
+            List<? extends ISubmittedVariant> variants, Map<VariantKey, ISubmittedVariant> distinctVariants)
+            throws AccessionCouldNotBeGeneratedException {
+        long start = System.nanoTime();
+        AccessionMap<ISubmittedVariant> accessions = getOrCreatePartitionedAccessions(distinctVariants);
+        metrics.recordBatch(variants.size(), distinctVariants.size(), System.nanoTime() - start);
+        return accessions;
+    }
+
+    private AccessionMap<ISubmittedVariant> getOrCreatePartitionedAccessions(
+            Map<VariantKey, ISubmittedVariant> distinctVariants) throws AccessionCouldNotBeGeneratedException {
+        int partitions = Math.min(parallelism, distinctVariants.size() / MIN_PARTITION_SIZE);
+        if (partitions <= 1) {
+            return getOrCreatePartitionAccessions(new ArrayList<>(distinctVariants.values()));
+        }
+        List<Future<AccessionMap<ISubmittedVariant>>> futures = new ArrayList<>(partitions);
+        for (List<ISubmittedVariant> partition : partition(distinctVariants, partitions)) {
+            futures.add(executor.submit(() -> getOrCreatePartitionAccessions(partition)));
+        }
+        AccessionMap<ISubmittedVariant> accessions = new AccessionMap<>(distinctVariants.size());
+        try {
+            for (Future<AccessionMap<ISubmittedVariant>> future : futures) {
+                accessions.putAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while accessioning variants", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof AccessionCouldNotBeGeneratedException) {
+                throw (AccessionCouldNotBeGeneratedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return accessions;
+    }
+
+    /**
+     * Variants are assigned to partitions by their key, so concurrent batches always accession the same variant in
+     * the same partition
+     */
+    private List<List<ISubmittedVariant>> partition(Map<VariantKey, ISubmittedVariant> distinctVariants,
+                                                    int partitions) {
+        List<List<ISubmittedVariant>> partitionedVariants = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            partitionedVariants.add(new ArrayList<>(distinctVariants.size() / partitions + 1));
+        }
+        for (Map.Entry<VariantKey, ISubmittedVariant> variant : distinctVariants.entrySet()) {
+            int partition = Math.floorMod(variant.getKey().hashCode(), partitions);
+            partitionedVariants.get(partition).add(variant.getValue());
+        }
+        return partitionedVariants;
+    }
+
+    /**
+     * If another batch inserted some of the same variants at the same time, the insertion fails on the unique hash
+     * constraint and is rolled back. Retrying then finds the accessions of those variants, and only creates the rest.
+     * The hashing and lookup of the retry are not counted by the metrics, as the first attempt counted them. The
+     * Bloom filter, if enabled, is updated with the variants of the partition before retrying, in case another
+     * instance accessioned them.
+     */
+    private AccessionMap<ISubmittedVariant> getOrCreatePartitionAccessions(List<? extends ISubmittedVariant> variants)
+            throws AccessionCouldNotBeGeneratedException {
+        try {
+            return getOrCreateDistinctVariantAccessions(variants, true);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Some variants were accessioned concurrently by another batch, retrying: {}",
+                        e.getMessage());
+            if (dbService.getBloomFilter() != null) {
+                dbService.addAccessionedHashesToBloomFilter(
+                        variants.stream().map(hashingFunction).collect(Collectors.toList()));
+            }
+            return getOrCreateDistinctVariantAccessions(variants, false);
+        }
+    }
+
+    /**
+     * Same steps as {@code BasicAccessioningService#getOrCreateAccessions}, which collects the accessions into a boxed
+     * map, but collecting them straight into an {@link AccessionMap}. The variants are already distinct, and they are
+     * hashed from their fields instead of their summary. If the insertion fails for any reason, it is not committed,
+     * so the accessions generated for it are released to be used again.
+     */
+    private AccessionMap<ISubmittedVariant> getOrCreateDistinctVariantAccessions(
+            List<? extends ISubmittedVariant> variants, boolean recordLookupMetrics)
+            throws AccessionCouldNotBeGeneratedException {
+        Map<String, ISubmittedVariant> variantsByHash = new LinkedHashMap<>(variants.size() * 2);
+        Function<ISubmittedVariant, String> hashing = recordLookupMetrics ? sampledHashingFunction : hashingFunction;
+        for (ISubmittedVariant variant : variants) {
+            variantsByHash.put(hashing.apply(variant), variant);
+        }
+        AccessionMap<ISubmittedVariant> accessions = new AccessionMap<>(variantsByHash.size());
+        Map<Long, ISubmittedVariant> accessionedVariants = dbService.findAllAccessionsByHash(variantsByHash.keySet(),
+                                                                                             recordLookupMetrics);
+        accessionedVariants.forEach((accession, accessionedVariant) -> {
+            variantsByHash.remove(hashingFunction.apply(accessionedVariant));
+            accessions.put((long) accession, accessionedVariant);
+        });
+        if (!variantsByHash.isEmpty()) {
+            List<ModelHashAccession<ISubmittedVariant, String, Long>> newVariants =
+                    accessionGenerator.generateAccessions(variantsByHash);
+            long[] newAccessions = new long[newVariants.size()];
+            for (int i = 0; i < newAccessions.length; i++) {
+                newAccessions[i] = newVariants.get(i).accession();
+            }
+            try {
+                insert(newVariants);
+            } catch (RuntimeException e) {
+                accessionGenerator.release(newAccessions);
+                throw e;
+            }
+            for (int i = 0; i < newAccessions.length; i++) {
+                accessions.put(newAccessions[i], newVariants.get(i).model());
+            }
+            accessionGenerator.commit(newAccessions);
+        }
+        return accessions;
+    }
+
+    /**
+     * The accessions are generated before this transaction starts, so the blocks reserved for them are not rolled
+     * back with a failed insertion. Flushing inside the transaction makes a violation of the unique hash constraint
+     * surface here, instead of when the caller's transaction is committed.
+     */
+    private void insert(List<ModelHashAccession<ISubmittedVariant, String, Long>> newVariants) {
+        if (insertTransactionTemplate == null) {
+            dbService.insert(newVariants);
+            return;
+        }
+        insertTransactionTemplate.execute(status -> {
+            dbService.insert(newVariants);
+            status.flush();
+            return null;
+        });
+    }
+
+    /**
+     * Finds the variants of the accessions, without boxing the accessions of the result
+     */
+    @Override
+    public AccessionMap<ISubmittedVariant> getByAccessions(List<Long> accessions) {
+        return dbService.findAllAccessionsByAccession(accessions);
+    }
+
+    /**
+     * Stops the threads that accession partitions in parallel. Called by Spring when the context is closed.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Identifies a variant by the same fields as its hash, but without computing it
+     */
+    private static final class VariantKey {
+
+        private final ISubmittedVariant variant;
+
+        private final int hashCode;
+
+        VariantKey(ISubmittedVariant variant) {
+            this.variant = variant;
+            // computed inline, as Objects.hash would allocate an array and box the start of every variant
+            int hash = Objects.hashCode(variant.getAssemblyAccession());
+            hash = 31 * hash + Objects.hashCode(variant.getTaxonomyAccession());
+            hash = 31 * hash + Objects.hashCode(variant.getProjectAccession());
+            hash = 31 * hash + Objects.hashCode(variant.getContig());
+            hash = 31 * hash + Long.hashCode(variant.getStart());
+            hash = 31 * hash + Objects.hashCode(variant.getReferenceAllele());
+            hash = 31 * hash + Objects.hashCode(variant.getAlternateAllele());
+            this.hashCode = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof VariantKey)) {
+                return false;
+            }
+            ISubmittedVariant that = ((VariantKey) o).variant;
+            return variant.getStart() == that.getStart() &&
+                    Objects.equals(variant.getAlternateAllele(), that.getAlternateAllele()) &&
+                    Objects.equals(variant.getReferenceAllele(), that.getReferenceAllele()) &&
+                    Objects.equals(variant.getContig(), that.getContig()) &&
+                    Objects.equals(variant.getProjectAccession(), that.getProjectAccession()) &&
+                    Objects.equals(variant.getAssemblyAccession(), that.getAssemblyAccession()) &&
+                    Objects.equals(variant.getTaxonomyAccession(), that.getTaxonomyAccession());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
     }
 
 }
@@ -0,0 +1,234 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Computes the same hash as {@link SubmittedVariantModelSummaryFunction} followed by {@link SHA1HashingFunction}, but
+ * without building the intermediate summary string. The fields are encoded into a buffer and digested with a
+ * {@link MessageDigest}, both reused by each thread, so the only allocation per variant is the returned hash.
+ *
+ * Like {@link SHA1HashingFunction}, the summary is encoded with the platform default charset, so the hashes are the
+ * same as the stored ones for any value. ASCII characters, which are most of them, are copied as they are; the rest of
+ * a value is encoded with the charset from its first non-ASCII character. Charsets that do not encode ASCII
+ * characters as themselves fall back to encoding the whole summary string.
+ */
+public class SubmittedVariantHashingFunction implements Function<ISubmittedVariant, String> {
+
+    private static final String HASHING_ALGORITHM = "SHA-1";
+
+    private static final int HASH_LENGTH = 20;
+
+    private static final byte SEPARATOR = '_';
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final ThreadLocal<HashingState> hashingState = ThreadLocal.withInitial(HashingState::new);
+
+    private final Charset charset;
+
+    private final boolean asciiCompatible;
+
+    private final SubmittedVariantModelSummaryFunction summaryFunction;
+
+    public SubmittedVariantHashingFunction() {
+        this(Charset.defaultCharset());
+    }
+
+    /**
+     * @param charset Charset of the summaries hashed by the hashes to match, only other than the platform default in
+     *                tests
+     */
+    SubmittedVariantHashingFunction(Charset charset) {
+        this.charset = charset;
+        this.asciiCompatible = isAsciiCompatible(charset);
+        this.summaryFunction = new SubmittedVariantModelSummaryFunction();
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        byte[] ascii = new byte[0x80];
+        for (int i = 0; i < ascii.length; i++) {
+            ascii[i] = (byte) i;
+        }
+        return Arrays.equals(ascii, new String(ascii, StandardCharsets.US_ASCII).getBytes(charset));
+    }
+
+    @Override
+    public String apply(ISubmittedVariant model) {
+        HashingState state = hashingState.get();
+        digest(state, model);
+        return state.hashAsHex();
+    }
+
+    /**
+     * Writes the raw hash of the variant into the first 20 bytes of {@code hash}, without allocating any memory.
+     */
+    public void apply(ISubmittedVariant model, byte[] hash) {
+        HashingState state = hashingState.get();
+        digest(state, model);
+        System.arraycopy(state.hash, 0, hash, 0, HASH_LENGTH);
+    }
+
+    private void digest(HashingState state, ISubmittedVariant model) {
+        if (asciiCompatible) {
+            state.digest(model, charset);
+        } else {
+            state.digest(summaryFunction.apply(model).getBytes(charset));
+        }
+    }
+
+    private static class HashingState {
+
+        private final MessageDigest messageDigest;
+
+        private final byte[] hash;
+
+        private final char[] hexHash;
+
+        private byte[] buffer;
+
+        private int length;
+
+        private Charset charset;
+
+        HashingState() {
+            try {
+                messageDigest = MessageDigest.getInstance(HASHING_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            hash = new byte[HASH_LENGTH];
+            hexHash = new char[HASH_LENGTH * 2];
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+
+        void digest(ISubmittedVariant model, Charset charset) {
+            this.charset = charset;
+            length = 0;
+            append(model.getAssemblyAccession());
+            appendSeparator();
+            append(model.getTaxonomyAccession());
+            appendSeparator();
+            append(model.getProjectAccession());
+            appendSeparator();
+            append(model.getContig());
+            appendSeparator();
+            append(model.getStart());
+            appendSeparator();
+            append(model.getReferenceAllele());
+            appendSeparator();
+            append(model.getAlternateAllele());
+            digest(buffer, length);
+        }
+
+        void digest(byte[] summary) {
+            digest(summary, summary.length);
+        }
+
+        private void digest(byte[] summary, int summaryLength) {
+            messageDigest.update(summary, 0, summaryLength);
+            try {
+                messageDigest.digest(hash, 0, HASH_LENGTH);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        String hashAsHex() {
+            for (int i = 0; i < HASH_LENGTH; i++) {
+                hexHash[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+                hexHash[2 * i + 1] = HEX_DIGITS[hash[i] & 0xF];
+            }
+            return new String(hexHash);
+        }
+
+        private void appendSeparator() {
+            ensureCapacity(1);
+            buffer[length++] = SEPARATOR;
+        }
+
+        private void append(String value) {
+            if (value == null) {
+                // same as StringBuilder.append(null)
+                value = "null";
+            }
+            int valueLength = value.length();
+            ensureCapacity(valueLength);
+            for (int i = 0; i < valueLength; i++) {
+                char character = value.charAt(i);
+                if (character >= 0x80) {
+                    appendNonAscii(value, i);
+                    return;
+                }
+                buffer[length + i] = (byte) character;
+            }
+            length += valueLength;
+        }
+
+        private void appendNonAscii(String value, int asciiPrefixLength) {
+            byte[] encoded = value.substring(asciiPrefixLength).getBytes(charset);
+            length += asciiPrefixLength;
+            ensureCapacity(encoded.length);
+            System.arraycopy(encoded, 0, buffer, length, encoded.length);
+            length += encoded.length;
+        }
+
+        private void append(long value) {
+            // longest value is Long.MIN_VALUE, 19 digits plus sign
+            ensureCapacity(20);
+            if (value == 0) {
+                buffer[length++] = '0';
+                return;
+            }
+            if (value < 0) {
+                buffer[length++] = '-';
+            }
+            int digitsStart = length;
+            // negative values are used so that Long.MIN_VALUE doesn't overflow
+            long remaining = value < 0 ? value : -value;
+            while (remaining != 0) {
+                buffer[length++] = (byte) ('0' - (remaining % 10));
+                remaining /= 10;
+            }
+            for (int i = digitsStart, j = length - 1; i < j; i++, j--) {
+                byte digit = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = digit;
+            }
+        }
+
+        private void ensureCapacity(int extraBytes) {
+            if (length + extraBytes > buffer.length) {
+                byte[] newBuffer = new byte[Math.max(buffer.length * 2, length + extraBytes)];
+                System.arraycopy(buffer, 0, newBuffer, 0, length);
+                buffer = newBuffer;
+            }
+        }
+    }
+}
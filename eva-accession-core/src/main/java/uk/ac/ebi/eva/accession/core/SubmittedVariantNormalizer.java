@@ -0,0 +1,82 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import java.util.function.Function;
+
+/**
+ * Gives the same representation to the alleles of variants that can be written in several ways: alleles are
+ * uppercased, and the bases shared by both alleles are removed, first from the end and then from the start, moving
+ * the start of the variant forward. For instance, reference "TTA" and alternate "TA" at position 100 become reference
+ * "T" and alternate "" at position 100.
+ *
+ * Variants with symbolic or breakend alleles, or any allele not made of nucleotides, are not changed. Indels are not
+ * left-aligned, as that requires the sequence of the reference genome.
+ *
+ * The variant is returned unchanged, without allocating memory, if it is already normalized.
+ */
+public class SubmittedVariantNormalizer implements Function<ISubmittedVariant, ISubmittedVariant> {
+
+    @Override
+    public ISubmittedVariant apply(ISubmittedVariant variant) {
+        String reference = variant.getReferenceAllele();
+        String alternate = variant.getAlternateAllele();
+        if (!isNucleotideSequence(reference) || !isNucleotideSequence(alternate) || reference.equals(alternate)) {
+            return variant;
+        }
+        int suffix = 0;
+        while (suffix < reference.length() && suffix < alternate.length()
+                && equalsIgnoreCase(reference.charAt(reference.length() - 1 - suffix),
+                                    alternate.charAt(alternate.length() - 1 - suffix))) {
+            suffix++;
+        }
+        int prefix = 0;
+        while (prefix < reference.length() - suffix && prefix < alternate.length() - suffix
+                && equalsIgnoreCase(reference.charAt(prefix), alternate.charAt(prefix))) {
+            prefix++;
+        }
+        String normalizedReference = reference.substring(prefix, reference.length() - suffix).toUpperCase();
+        String normalizedAlternate = alternate.substring(prefix, alternate.length() - suffix).toUpperCase();
+        if (prefix == 0 && normalizedReference.equals(reference) && normalizedAlternate.equals(alternate)) {
+            return variant;
+        }
+        return new SubmittedVariant(variant.getAssemblyAccession(), variant.getTaxonomyAccession(),
+                                    variant.getProjectAccession(), variant.getContig(), variant.getStart() + prefix,
+                                    normalizedReference, normalizedAlternate, variant.isSupportedByEvidence());
+    }
+
+    private static boolean isNucleotideSequence(String allele) {
+        if (allele == null) {
+            return false;
+        }
+        for (int i = 0; i < allele.length(); i++) {
+            switch (allele.charAt(i)) {
+                case 'A': case 'C': case 'G': case 'T': case 'N':
+                case 'a': case 'c': case 'g': case 't': case 'n':
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsIgnoreCase(char a, char b) {
+        return Character.toUpperCase(a) == Character.toUpperCase(b);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceBuilder;
+import org.springframework.boot.bind.RelaxedPropertyResolver;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+import uk.ac.ebi.eva.accession.core.persistence.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Wraps the data source in a {@link ReplicaRoutingDataSource} when there are replicas in
+ * {@code accessioning.replica.urls}. The replicas are reached with {@code accessioning.replica.username} and
+ * {@code accessioning.replica.password}, or with the credentials of the primary database if those are empty.
+ *
+ * The primary data source is wrapped after being created, instead of replaced, so that it is still configured by
+ * Spring Boot from the {@code spring.datasource} properties.
+ */
+public class ReplicaDataSourcePostProcessor implements BeanPostProcessor, EnvironmentAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaDataSourcePostProcessor.class);
+
+    private static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!DATA_SOURCE_BEAN_NAME.equals(beanName) || !(bean instanceof DataSource)
+                || bean instanceof ReplicaRoutingDataSource) {
+            return bean;
+        }
+        RelaxedPropertyResolver replicaProperties = new RelaxedPropertyResolver(environment, "accessioning.replica.");
+        String[] urls = StringUtils.tokenizeToStringArray(replicaProperties.getProperty("urls", ""), ",");
+        if (urls.length == 0) {
+            return bean;
+        }
+        RelaxedPropertyResolver primaryProperties = new RelaxedPropertyResolver(environment, "spring.datasource.");
+        String username = replicaProperties.getProperty("username", "");
+        String password = replicaProperties.getProperty("password", "");
+        if (username.isEmpty()) {
+            username = primaryProperties.getProperty("username");
+            password = primaryProperties.getProperty("password");
+        }
+        List<DataSource> replicas = new ArrayList<>(urls.length);
+        for (String url : urls) {
+            replicas.add(DataSourceBuilder.create().url(url).username(username).password(password).build());
+        }
+        logger.info("Sending the read-only requests to {} replicas of the database", replicas.size());
+        return new ReplicaRoutingDataSource((DataSource) bean, replicas);
+    }
+
+}
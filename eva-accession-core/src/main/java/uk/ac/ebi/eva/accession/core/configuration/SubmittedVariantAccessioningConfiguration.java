@@ -17,54 +17,234 @@
  */
 package uk.ac.ebi.eva.accession.core.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantExporter;
+import uk.ac.ebi.eva.accession.core.metrics.AccessioningMetrics;
+import uk.ac.ebi.eva.accession.core.persistence.AdaptiveContiguousIdBlockService;
+import uk.ac.ebi.eva.accession.core.persistence.ReplicaRoutingDataSource;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
 import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantNormalizer;
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessionCache;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessionIndex;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantCopyInserter;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantHashBloomFilter;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantSchema;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantSchemaCheck;
+import uk.ac.ebi.eva.accession.core.persistence.compact.SubmittedVariantTermDictionary;
+import uk.ac.ebi.eva.accession.core.persistence.compact.SubmittedVariantTermRepository;
 import uk.ac.ebi.ampt2d.commons.accession.autoconfigure.EnableSpringDataContiguousIdService;
 import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.repositories.ContiguousIdBlockRepository;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.service.ContiguousIdBlockService;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
 @Configuration
 @EnableSpringDataContiguousIdService
-@EntityScan({"uk.ac.ebi.eva.accession.core.persistence"})
-@EnableJpaRepositories(
-        basePackages = {"uk.ac.ebi.eva.accession.core.persistence"}
-)
 public class SubmittedVariantAccessioningConfiguration {
 
     private static final Logger logger = LoggerFactory.getLogger(SubmittedVariantAccessioningConfiguration.class);
 
+    private static final int ACCESSION_INDEX_RUN_SIZE = 1000000;
+
     @Autowired
-    private SubmittedVariantAccessioningRepository repository;
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    /**
+     * Only created for the compact schema
+     */
+    @Autowired(required = false)
+    private SubmittedVariantTermDictionary termDictionary;
 
     @Autowired
     private ContiguousIdBlockService service;
 
+    @Autowired
+    private ContiguousIdBlockRepository blockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private AdaptiveContiguousIdBlockService adaptiveBlockService;
+
+    private SubmittedVariantAccessionIndex accessionIndex;
+
     @Bean
     @ConfigurationProperties(prefix = "accessioning")
     public ApplicationProperties applicationProperties() {
         return new ApplicationProperties();
     }
 
+    /**
+     * Static, so that the data source can be wrapped before this configuration is instantiated
+     */
+    @Bean
+    public static ReplicaDataSourcePostProcessor replicaDataSourcePostProcessor() {
+        return new ReplicaDataSourcePostProcessor();
+    }
+
     @Bean
     public SubmittedVariantAccessioningService submittedVariantAccessioningService() {
+        VariantAccessioningProperties properties = applicationProperties().getVariant();
+        int parallelism = properties.getParallelism();
+        if (parallelism > 1) {
+            logger.info("Accessioning up to {} partitions of each batch in parallel", parallelism);
+        }
+        SubmittedVariantNormalizer normalizer = null;
+        if (properties.isNormalizeAlleles()) {
+            logger.info("Normalizing the alleles of the variants before accessioning them");
+            normalizer = new SubmittedVariantNormalizer();
+        }
         return new SubmittedVariantAccessioningService(submittedVariantAccessionGenerator(),
-                                                       submittedVariantAccessioningDatabaseService());
+                                                       submittedVariantAccessioningDatabaseService(),
+                                                       transactionManager, parallelism, normalizer,
+                                                       accessioningMetrics());
+    }
+
+    /**
+     * The meters are registered in the application registry if there is one, as in the web service, and otherwise in
+     * the global registry, which discards them unless a registry is added to it.
+     */
+    @Bean
+    public AccessioningMetrics accessioningMetrics() {
+        return new AccessioningMetrics(meterRegistry != null ? meterRegistry : Metrics.globalRegistry);
     }
 
     @Bean
     public SubmittedVariantAccessioningDatabaseService submittedVariantAccessioningDatabaseService() {
-        return new SubmittedVariantAccessioningDatabaseService(repository);
+        return new SubmittedVariantAccessioningDatabaseService(applicationProperties().getVariant().getSchema(),
+                                                               repository, termDictionary,
+                                                               buildSubmittedVariantAccessionCache(),
+                                                               buildSubmittedVariantHashBloomFilter(),
+                                                               buildSubmittedVariantAccessionIndex(),
+                                                               buildSubmittedVariantCopyInserter(),
+                                                               getReplicaRoutingDataSource(), accessioningMetrics());
+    }
+
+    @Bean
+    public SubmittedVariantExporter submittedVariantExporter() {
+        return new SubmittedVariantExporter(submittedVariantAccessioningDatabaseService());
+    }
+
+    private SubmittedVariantAccessionCache buildSubmittedVariantAccessionCache() {
+        long cacheSize = applicationProperties().getVariant().getCacheSize();
+        if (cacheSize <= 0) {
+            logger.info("Accessioned variants cache disabled");
+            return null;
+        }
+        logger.info("Caching up to {} accessioned variants", cacheSize);
+        return new SubmittedVariantAccessionCache(cacheSize);
+    }
+
+    private SubmittedVariantHashBloomFilter buildSubmittedVariantHashBloomFilter() {
+        VariantAccessioningProperties properties = applicationProperties().getVariant();
+        if (properties.getBloomFilterExpectedVariants() <= 0) {
+            logger.info("Bloom filter of accessioned hashes disabled");
+            return null;
+        }
+        String categoryId = properties.getCategoryId();
+        if (repository.countBlocksOfOtherInstances(categoryId, applicationProperties().getInstanceId()) > 0) {
+            logger.warn("Bloom filter of accessioned hashes disabled, because other instances accession variants of " +
+                                "category {} and the filter would miss them", categoryId);
+            return null;
+        }
+        SubmittedVariantHashBloomFilter bloomFilter = new SubmittedVariantHashBloomFilter(
+                properties.getBloomFilterExpectedVariants(), properties.getBloomFilterFalsePositiveProbability());
+        long start = System.currentTimeMillis();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.execute(status -> {
+            try (Stream<String> hashes = repository.streamAllHashedMessages()) {
+                bloomFilter.putAll(hashes);
+            }
+            return null;
+        });
+        logger.info("Bloom filter of accessioned hashes ({} bits, {} hash functions) loaded in {} ms",
+                    bloomFilter.getNumberOfBits(), bloomFilter.getNumberOfHashFunctions(),
+                    System.currentTimeMillis() - start);
+        return bloomFilter;
+    }
+
+    private SubmittedVariantAccessionIndex buildSubmittedVariantAccessionIndex() {
+        VariantAccessioningProperties properties = applicationProperties().getVariant();
+        if (properties.getAccessionIndexDirectory() == null || properties.getAccessionIndexDirectory().isEmpty()) {
+            logger.info("Accession index disabled");
+            return null;
+        }
+        long inactiveBlockMillis = TimeUnit.SECONDS.toMillis(properties.getAccessionIndexInactiveBlockSeconds());
+        try {
+            accessionIndex = new SubmittedVariantAccessionIndex(Paths.get(properties.getAccessionIndexDirectory()),
+                                                                repository, transactionManager,
+                                                                properties.getCategoryId(), ACCESSION_INDEX_RUN_SIZE,
+                                                                inactiveBlockMillis);
+            accessionIndex.refresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the accession index", e);
+        }
+        logger.info("Accession index of {} variants loaded from {}, refreshed every {} seconds", accessionIndex.size(),
+                    properties.getAccessionIndexDirectory(), properties.getAccessionIndexRefreshSeconds());
+        accessionIndex.refreshPeriodically(TimeUnit.SECONDS.toMillis(properties.getAccessionIndexRefreshSeconds()));
+        return accessionIndex;
+    }
+
+    private ReplicaRoutingDataSource getReplicaRoutingDataSource() {
+        if (!(dataSource instanceof ReplicaRoutingDataSource)) {
+            return null;
+        }
+        ReplicaRoutingDataSource replicaRoutingDataSource = (ReplicaRoutingDataSource) dataSource;
+        logger.info("Reading accessions, lookups and regions from {} replicas of the database",
+                    replicaRoutingDataSource.getNumberOfReplicas());
+        return replicaRoutingDataSource;
+    }
+
+    private SubmittedVariantCopyInserter buildSubmittedVariantCopyInserter() {
+        if (!applicationProperties().getVariant().isBulkLoad()) {
+            return null;
+        }
+        String databaseProductName;
+        try {
+            databaseProductName = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not find out whether the database supports bulk loading", e);
+        }
+        if (!"PostgreSQL".equals(databaseProductName)) {
+            logger.warn("Bulk loading is only supported for PostgreSQL, using batched inserts into {}",
+                        databaseProductName);
+            return null;
+        }
+        logger.info("Inserting new variants using PostgreSQL COPY");
+        return new SubmittedVariantCopyInserter(dataSource, applicationProperties().getVariant().getSchema());
     }
 
     @Bean
@@ -75,7 +255,77 @@ public class SubmittedVariantAccessioningConfiguration {
                 properties.getVariant().getBlockSize(),
                 properties.getVariant().getCategoryId(),
                 properties.getInstanceId(),
-                service);
+                buildContiguousIdBlockService(),
+                submittedVariantAccessioningDatabaseService());
+    }
+
+    private ContiguousIdBlockService buildContiguousIdBlockService() {
+        VariantAccessioningProperties properties = applicationProperties().getVariant();
+        long minBlockSize = properties.getMinBlockSize() > 0 ? properties.getMinBlockSize() : properties.getBlockSize();
+        long maxBlockSize = properties.getMaxBlockSize() > 0 ? properties.getMaxBlockSize() : properties.getBlockSize();
+        if (minBlockSize == maxBlockSize && !properties.isPrefetchBlocks()) {
+            return service;
+        }
+        logger.info("Reserving blocks of {} to {} accessions{}", minBlockSize, maxBlockSize,
+                    properties.isPrefetchBlocks() ? ", prefetching the next one" : "");
+        adaptiveBlockService = new AdaptiveContiguousIdBlockService(
+                blockRepository, transactionManager, minBlockSize, maxBlockSize,
+                TimeUnit.SECONDS.toMillis(properties.getBlockLifetimeSeconds()), properties.isPrefetchBlocks());
+        accessioningMetrics().bindBlockService(adaptiveBlockService);
+        return adaptiveBlockService;
+    }
+
+    @PostConstruct
+    public void checkSchema() {
+        SubmittedVariantSchemaCheck.check(dataSource, applicationProperties().getVariant().getSchema());
+    }
+
+    @PreDestroy
+    public void shutdownContiguousIdBlockService() {
+        if (adaptiveBlockService != null) {
+            adaptiveBlockService.shutdown();
+        }
+    }
+
+    @PreDestroy
+    public void closeAccessionIndex() {
+        if (accessionIndex != null) {
+            accessionIndex.close();
+        }
+    }
+
+    /**
+     * Entities and repository of the original schema of the submitted variants, which is used until the database is
+     * migrated to the compact one
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "accessioning.variant.schema", havingValue = "original", matchIfMissing = true)
+    @EntityScan({"uk.ac.ebi.eva.accession.core.persistence.original"})
+    @EnableJpaRepositories(
+            basePackages = {"uk.ac.ebi.eva.accession.core.persistence.original"}
+    )
+    public static class OriginalSchemaConfiguration {
+
+    }
+
+    /**
+     * Entities and repositories of the compact schema of the submitted variants, selected with
+     * {@code accessioning.variant.schema=compact}
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "accessioning.variant.schema", havingValue = "compact")
+    @EntityScan({"uk.ac.ebi.eva.accession.core.persistence.compact"})
+    @EnableJpaRepositories(
+            basePackages = {"uk.ac.ebi.eva.accession.core.persistence.compact"}
+    )
+    public static class CompactSchemaConfiguration {
+
+        @Bean
+        public SubmittedVariantTermDictionary submittedVariantTermDictionary(
+                SubmittedVariantTermRepository termRepository, PlatformTransactionManager transactionManager) {
+            return new SubmittedVariantTermDictionary(termRepository, transactionManager);
+        }
+
     }
 
 }
@@ -17,12 +17,91 @@
  */
 package uk.ac.ebi.eva.accession.core.configuration;
 
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantSchema;
+
 public class VariantAccessioningProperties {
 
     private String categoryId;
 
     private long blockSize;
 
+    /**
+     * Smallest block size when the size adapts to the accessioning rate. Zero means {@link #blockSize}.
+     */
+    private long minBlockSize;
+
+    /**
+     * Largest block size when the size adapts to the accessioning rate. Zero means {@link #blockSize}. If the minimum
+     * and maximum sizes are equal, all blocks have that size.
+     */
+    private long maxBlockSize;
+
+    /**
+     * Time that each block should last when the size adapts to the accessioning rate
+     */
+    private long blockLifetimeSeconds = 60;
+
+    /**
+     * Reserve the next block of accessions in the background before the current one is exhausted
+     */
+    private boolean prefetchBlocks;
+
+    /**
+     * Maximum number of accessioned variants kept in memory to avoid database lookups. Zero disables the cache.
+     */
+    private long cacheSize;
+
+    /**
+     * Expected number of accessioned variants, used to size a Bloom filter of their hashes so that new variants are
+     * not looked up in the database. Zero disables the filter.
+     *
+     * The filter is loaded at startup and only updated with the variants accessioned by this instance, so it is not
+     * enabled if other instances have reserved blocks of the category. If another instance starts later, inserting a
+     * variant it accessioned violates the unique hash constraint, and the batch is retried after adding the hashes of
+     * the failed insertion to the filter.
+     */
+    private long bloomFilterExpectedVariants;
+
+    private double bloomFilterFalsePositiveProbability = 0.01;
+
+    /**
+     * Insert new variants with the PostgreSQL COPY protocol. Ignored, with a warning, for other databases, which use
+     * batched inserts.
+     */
+    private boolean bulkLoad;
+
+    /**
+     * Number of partitions of each batch accessioned concurrently, each one in its own transaction. One disables the
+     * parallel accessioning. Values above the number of cores of the database are unlikely to help.
+     */
+    private int parallelism = 1;
+
+    /**
+     * Uppercase the alleles and remove the bases shared by both before accessioning. Variants accessioned without
+     * normalization get new accessions if their normalized form differs.
+     */
+    private boolean normalizeAlleles;
+
+    /**
+     * Directory of a local index from hash to accession, memory-mapped and refreshed in the background, that is
+     * consulted before the database in read-only lookups. Empty disables the index.
+     */
+    private String accessionIndexDirectory;
+
+    private long accessionIndexRefreshSeconds = 60;
+
+    /**
+     * Seconds without changes after which the index stops reading again a block of accessions, unless it is not
+     * complete and its instance changed another block in that time. Must be longer than the transactions that insert
+     * variants.
+     */
+    private long accessionIndexInactiveBlockSeconds = 600;
+
+    /**
+     * Schema of the submitted variants in the database. The compact one requires migrating the original first.
+     */
+    private SubmittedVariantSchema schema = SubmittedVariantSchema.ORIGINAL;
+
     public String getCategoryId() {
         return categoryId;
     }
@@ -31,6 +110,62 @@ public class VariantAccessioningProperties {
         return blockSize;
     }
 
+    public long getMinBlockSize() {
+        return minBlockSize;
+    }
+
+    public long getMaxBlockSize() {
+        return maxBlockSize;
+    }
+
+    public long getBlockLifetimeSeconds() {
+        return blockLifetimeSeconds;
+    }
+
+    public boolean isPrefetchBlocks() {
+        return prefetchBlocks;
+    }
+
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    public long getBloomFilterExpectedVariants() {
+        return bloomFilterExpectedVariants;
+    }
+
+    public double getBloomFilterFalsePositiveProbability() {
+        return bloomFilterFalsePositiveProbability;
+    }
+
+    public boolean isBulkLoad() {
+        return bulkLoad;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public boolean isNormalizeAlleles() {
+        return normalizeAlleles;
+    }
+
+    public String getAccessionIndexDirectory() {
+        return accessionIndexDirectory;
+    }
+
+    public long getAccessionIndexRefreshSeconds() {
+        return accessionIndexRefreshSeconds;
+    }
+
+    public long getAccessionIndexInactiveBlockSeconds() {
+        return accessionIndexInactiveBlockSeconds;
+    }
+
+    public SubmittedVariantSchema getSchema() {
+        return schema;
+    }
+
     public void setCategoryId(String categoryId) {
         this.categoryId = categoryId;
     }
@@ -39,11 +174,81 @@ public class VariantAccessioningProperties {
         this.blockSize = blockSize;
     }
 
+    public void setMinBlockSize(long minBlockSize) {
+        this.minBlockSize = minBlockSize;
+    }
+
+    public void setMaxBlockSize(long maxBlockSize) {
+        this.maxBlockSize = maxBlockSize;
+    }
+
+    public void setBlockLifetimeSeconds(long blockLifetimeSeconds) {
+        this.blockLifetimeSeconds = blockLifetimeSeconds;
+    }
+
+    public void setPrefetchBlocks(boolean prefetchBlocks) {
+        this.prefetchBlocks = prefetchBlocks;
+    }
+
+    public void setCacheSize(long cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public void setBloomFilterExpectedVariants(long bloomFilterExpectedVariants) {
+        this.bloomFilterExpectedVariants = bloomFilterExpectedVariants;
+    }
+
+    public void setBloomFilterFalsePositiveProbability(double bloomFilterFalsePositiveProbability) {
+        this.bloomFilterFalsePositiveProbability = bloomFilterFalsePositiveProbability;
+    }
+
+    public void setBulkLoad(boolean bulkLoad) {
+        this.bulkLoad = bulkLoad;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setNormalizeAlleles(boolean normalizeAlleles) {
+        this.normalizeAlleles = normalizeAlleles;
+    }
+
+    public void setAccessionIndexDirectory(String accessionIndexDirectory) {
+        this.accessionIndexDirectory = accessionIndexDirectory;
+    }
+
+    public void setAccessionIndexRefreshSeconds(long accessionIndexRefreshSeconds) {
+        this.accessionIndexRefreshSeconds = accessionIndexRefreshSeconds;
+    }
+
+    public void setAccessionIndexInactiveBlockSeconds(long accessionIndexInactiveBlockSeconds) {
+        this.accessionIndexInactiveBlockSeconds = accessionIndexInactiveBlockSeconds;
+    }
+
+    public void setSchema(SubmittedVariantSchema schema) {
+        this.schema = schema;
+    }
+
     @Override
     public String toString() {
         return "VariantAccessioningProperties{" +
                 "categoryId='" + categoryId + '\'' +
                 ", blockSize=" + blockSize +
+                ", minBlockSize=" + minBlockSize +
+                ", maxBlockSize=" + maxBlockSize +
+                ", blockLifetimeSeconds=" + blockLifetimeSeconds +
+                ", prefetchBlocks=" + prefetchBlocks +
+                ", cacheSize=" + cacheSize +
+                ", bloomFilterExpectedVariants=" + bloomFilterExpectedVariants +
+                ", bloomFilterFalsePositiveProbability=" + bloomFilterFalsePositiveProbability +
+                ", bulkLoad=" + bulkLoad +
+                ", parallelism=" + parallelism +
+                ", normalizeAlleles=" + normalizeAlleles +
+                ", accessionIndexDirectory='" + accessionIndexDirectory + '\'' +
+                ", accessionIndexRefreshSeconds=" + accessionIndexRefreshSeconds +
+                ", accessionIndexInactiveBlockSeconds=" + accessionIndexInactiveBlockSeconds +
+                ", schema=" + schema +
                 '}';
     }
 }
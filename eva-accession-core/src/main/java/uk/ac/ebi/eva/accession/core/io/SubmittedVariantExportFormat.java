@@ -0,0 +1,51 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum SubmittedVariantExportFormat {
+
+    NDJSON("application/x-ndjson") {
+        @Override
+        public SubmittedVariantWriter createWriter(OutputStream outputStream) throws IOException {
+            return new SubmittedVariantNdjsonWriter(outputStream);
+        }
+    },
+
+    VCF("text/plain") {
+        @Override
+        public SubmittedVariantWriter createWriter(OutputStream outputStream) throws IOException {
+            return new SubmittedVariantVcfWriter(outputStream);
+        }
+    };
+
+    private final String contentType;
+
+    SubmittedVariantExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public abstract SubmittedVariantWriter createWriter(OutputStream outputStream) throws IOException;
+
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Writes all the variants of an assembly or a project while they are read from the database, so that exports of any
+ * size use a constant amount of memory
+ */
+public class SubmittedVariantExporter {
+
+    private final SubmittedVariantAccessioningDatabaseService databaseService;
+
+    public SubmittedVariantExporter(SubmittedVariantAccessioningDatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    /**
+     * @return Number of variants written
+     */
+    public long exportAssembly(String assemblyAccession, SubmittedVariantWriter writer) throws IOException {
+        return export(databaseService::forEachInAssembly, assemblyAccession, writer);
+    }
+
+    /**
+     * @return Number of variants written
+     */
+    public long exportProject(String projectAccession, SubmittedVariantWriter writer) throws IOException {
+        return export(databaseService::forEachInProject, projectAccession, writer);
+    }
+
+    private long export(BiConsumer<String, Consumer<SubmittedVariantEntity>> forEach, String accession,
+                        SubmittedVariantWriter writer) throws IOException {
+        long[] count = {0};
+        try {
+            forEach.accept(accession, variant -> {
+                try {
+                    writer.write(variant);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return count[0];
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes each variant as a JSON object in its own line (newline delimited JSON)
+ */
+public class SubmittedVariantNdjsonWriter implements SubmittedVariantWriter {
+
+    private final JsonGenerator generator;
+
+    public SubmittedVariantNdjsonWriter(OutputStream outputStream) throws IOException {
+        generator = new JsonFactory().createGenerator(outputStream);
+        // the new lines are written after each variant instead of the default separator between root values
+        generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+    }
+
+    @Override
+    public void write(SubmittedVariantEntity variant) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("accession", variant.getAccession());
+        generator.writeStringField("assemblyAccession", variant.getAssemblyAccession());
+        generator.writeStringField("taxonomyAccession", variant.getTaxonomyAccession());
+        generator.writeStringField("projectAccession", variant.getProjectAccession());
+        generator.writeStringField("contig", variant.getContig());
+        generator.writeNumberField("start", variant.getStart());
+        generator.writeStringField("referenceAllele", variant.getReferenceAllele());
+        generator.writeStringField("alternateAllele", variant.getAlternateAllele());
+        generator.writeBooleanField("supportedByEvidence", variant.isSupportedByEvidence());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
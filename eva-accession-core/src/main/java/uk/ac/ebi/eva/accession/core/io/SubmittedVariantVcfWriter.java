@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes each variant as a VCF data line, with the accession as ID. The fields of the variants not represented in
+ * the VCF columns are written in the INFO column.
+ */
+public class SubmittedVariantVcfWriter implements SubmittedVariantWriter {
+
+    static final String ACCESSION_PREFIX = "ss";
+
+    static final String HEADER = "##fileformat=VCFv4.2\n" +
+            "##INFO=<ID=ASSEMBLY,Number=1,Type=String,Description=\"Assembly accession\">\n" +
+            "##INFO=<ID=TAXONOMY,Number=1,Type=String,Description=\"Taxonomy accession\">\n" +
+            "##INFO=<ID=PROJECT,Number=1,Type=String,Description=\"Project accession\">\n" +
+            "##INFO=<ID=EVIDENCE,Number=0,Type=Flag,Description=\"Supported by evidence (genotypes or " +
+            "frequencies)\">\n" +
+            "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO\n";
+
+    private final Writer writer;
+
+    public SubmittedVariantVcfWriter(OutputStream outputStream) throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+    }
+
+    @Override
+    public void write(SubmittedVariantEntity variant) throws IOException {
+        writer.write(variant.getContig());
+        writer.write('\t');
+        writer.write(Long.toString(variant.getStart()));
+        writer.write('\t');
+        writer.write(ACCESSION_PREFIX);
+        writer.write(variant.getAccession().toString());
+        writer.write('\t');
+        writer.write(variant.getReferenceAllele());
+        writer.write('\t');
+        writer.write(variant.getAlternateAllele());
+        writer.write("\t.\t.\tASSEMBLY=");
+        writer.write(variant.getAssemblyAccession());
+        writer.write(";TAXONOMY=");
+        writer.write(variant.getTaxonomyAccession());
+        writer.write(";PROJECT=");
+        writer.write(variant.getProjectAccession());
+        if (variant.isSupportedByEvidence()) {
+            writer.write(";EVIDENCE");
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
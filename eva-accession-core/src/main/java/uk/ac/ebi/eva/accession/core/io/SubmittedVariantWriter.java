@@ -0,0 +1,32 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes accessioned variants one by one into an output stream. Closing the writer flushes and closes the stream.
+ */
+public interface SubmittedVariantWriter extends Closeable {
+
+    void write(SubmittedVariantEntity variant) throws IOException;
+
+}
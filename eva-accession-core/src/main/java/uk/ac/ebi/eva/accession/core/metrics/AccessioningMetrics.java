@@ -0,0 +1,202 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import uk.ac.ebi.eva.accession.core.persistence.AdaptiveContiguousIdBlockService;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Meters of the accessioning of submitted variants. Most of them are recorded once per batch, so their overhead does
+ * not depend on the number of variants; hashing, which happens once per variant, is timed in a sample of the calls.
+ */
+public class AccessioningMetrics {
+
+    private static final String PREFIX = "accessioning.";
+
+    /**
+     * One in this many hash computations is timed
+     */
+    static final int HASHING_SAMPLE_RATE = 100;
+
+    private static final long MAX_EXPECTED_BATCH_SIZE = 1000000;
+
+    private final MeterRegistry registry;
+
+    private final Timer batchTimer;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter requestedVariants;
+
+    private final Counter duplicatedVariants;
+
+    private final Counter createdVariants;
+
+    private final Counter foundVariants;
+
+    private final Timer lookupTimer;
+
+    private final Timer readOnlyLookupTimer;
+
+    private final Timer insertTimer;
+
+    private final Timer hashingTimer;
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
+
+    private final Counter bloomFilterNegatives;
+
+    private final Counter replicaFallbacks;
+
+    public AccessioningMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        batchTimer = Timer.builder(PREFIX + "batch")
+                          .description("Time to get or create the accessions of a batch of variants")
+                          .register(registry);
+        batchSize = DistributionSummary.builder(PREFIX + "batch.size")
+                                       .description("Number of variants in each batch")
+                                       .baseUnit("variants")
+                                       .publishPercentileHistogram()
+                                       .minimumExpectedValue(1L)
+                                       .maximumExpectedValue(MAX_EXPECTED_BATCH_SIZE)
+                                       .register(registry);
+        requestedVariants = variantCounter("requested", "Variants received, including repeated ones");
+        duplicatedVariants = variantCounter("duplicated", "Variants repeated within the same batch");
+        createdVariants = variantCounter("created", "Variants that got a new accession");
+        foundVariants = variantCounter("found", "Variants whose accession was found");
+        lookupTimer = Timer.builder(PREFIX + "lookup")
+                           .description("Time to find the accessions of a set of hashes")
+                           .register(registry);
+        readOnlyLookupTimer = Timer.builder(PREFIX + "lookup.readonly")
+                                   .description("Time to find the accessions of a set of hashes, without loading "
+                                                        + "the variants nor creating accessions")
+                                   .register(registry);
+        insertTimer = Timer.builder(PREFIX + "insert")
+                           .description("Time to insert a set of new variants")
+                           .register(registry);
+        hashingTimer = Timer.builder(PREFIX + "hashing")
+                            .description("Time to hash a variant, measured in 1 of every " + HASHING_SAMPLE_RATE
+                                                 + " variants")
+                            .register(registry);
+        cacheHits = Counter.builder(PREFIX + "cache.requests").tag("result", "hit").register(registry);
+        cacheMisses = Counter.builder(PREFIX + "cache.requests").tag("result", "miss").register(registry);
+        bloomFilterNegatives = Counter.builder(PREFIX + "bloom.filter.negatives")
+                                      .description("Hashes not looked up because they are not in the Bloom filter")
+                                      .register(registry);
+        replicaFallbacks = Counter.builder(PREFIX + "replica.fallbacks")
+                                  .description("Accessions not found in a replica and read again from the primary "
+                                                       + "database")
+                                  .register(registry);
+    }
+
+    private Counter variantCounter(String outcome, String description) {
+        return Counter.builder(PREFIX + "variants").tag("outcome", outcome).description(description)
+                      .register(registry);
+    }
+
+    public void recordBatch(int variants, int accessionedVariants, long elapsedNanos) {
+        batchTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        batchSize.record(variants);
+        requestedVariants.increment(variants);
+        duplicatedVariants.increment(variants - accessionedVariants);
+    }
+
+    public void recordLookup(int foundHashes, long elapsedNanos) {
+        lookupTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        foundVariants.increment(foundHashes);
+    }
+
+    public void recordReadOnlyLookup(long elapsedNanos) {
+        readOnlyLookupTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordInsert(long elapsedNanos) {
+        insertTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Called after the insertion of the variants is committed
+     */
+    public void recordCreatedVariants(int variants) {
+        createdVariants.increment(variants);
+    }
+
+    public void recordCacheRequests(int hits, int misses) {
+        cacheHits.increment(hits);
+        cacheMisses.increment(misses);
+    }
+
+    public void recordBloomFilterNegatives(int hashes) {
+        bloomFilterNegatives.increment(hashes);
+    }
+
+    public void recordReplicaFallbacks(int accessions) {
+        replicaFallbacks.increment(accessions);
+    }
+
+    /**
+     * @return A function that applies {@code hashingFunction} and times a random sample of the calls
+     */
+    public <T> Function<T, String> timeSampleOf(Function<T, String> hashingFunction) {
+        return input -> {
+            if (ThreadLocalRandom.current().nextInt(HASHING_SAMPLE_RATE) != 0) {
+                return hashingFunction.apply(input);
+            }
+            long start = System.nanoTime();
+            String hash = hashingFunction.apply(input);
+            hashingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return hash;
+        };
+    }
+
+    /**
+     * Exposes the statistics of the reservation of accession blocks
+     */
+    public void bindBlockService(AdaptiveContiguousIdBlockService blockService) {
+        FunctionTimer.builder(PREFIX + "block.reservation", blockService,
+                              AdaptiveContiguousIdBlockService::getReservations,
+                              service -> service.getTotalReservationTime(TimeUnit.NANOSECONDS),
+                              TimeUnit.NANOSECONDS)
+                     .description("Time to reserve a block of accessions in the database")
+                     .register(registry);
+        Gauge.builder(PREFIX + "block.reservation.max", blockService,
+                      service -> service.getMaxReservationTime(TimeUnit.MILLISECONDS))
+             .baseUnit("milliseconds")
+             .register(registry);
+        FunctionCounter.builder(PREFIX + "block.prefetched", blockService,
+                                AdaptiveContiguousIdBlockService::getPrefetchedReservations)
+                       .description("Blocks of accessions that were reserved in the background")
+                       .register(registry);
+        Gauge.builder(PREFIX + "block.size", blockService, AdaptiveContiguousIdBlockService::getCurrentBlockSize)
+             .description("Size of the next block of accessions to be reserved")
+             .register(registry);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.entities.ContiguousIdBlock;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.repositories.ContiguousIdBlockRepository;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.service.ContiguousIdBlockService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reserves blocks of accessions whose size adapts to how fast they are used, so that instances accessioning many
+ * variants do not contend on the block table, while idle instances do not leave large ranges unused.
+ *
+ * Each new block doubles the size of the previous one (up to {@code maxBlockSize}) if the previous block was used in
+ * less than half of {@code targetBlockLifetimeMillis}, and halves it (down to {@code minBlockSize}) if it lasted more
+ * than twice that time. The size requested by the accession generator is only used for the first block.
+ *
+ * Optionally, the next block is reserved in the background as soon as the current one is handed out, so the generator
+ * does not wait for the database when the current block is exhausted. A prefetched block is saved like any other, so
+ * if the instance stops before using it, the generator will find it among its uncompleted blocks when it restarts with
+ * the same instance id.
+ *
+ * Every block is reserved and committed in its own short serializable transaction, regardless of the transaction of
+ * the caller, so that the last block row is not locked while the caller accessions variants, and a prefetched block
+ * never overlaps a block reserved but not yet committed by the caller. Reservations that fail because another
+ * instance reserved a block at the same time are retried.
+ */
+public class AdaptiveContiguousIdBlockService extends ContiguousIdBlockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveContiguousIdBlockService.class);
+
+    static final int MAX_RESERVATION_ATTEMPTS = 3;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long minBlockSize;
+
+    private final long maxBlockSize;
+
+    private final long targetBlockLifetimeMillis;
+
+    private final ExecutorService prefetchExecutor;
+
+    private final Map<String, Allocation> allocations;
+
+    private final AtomicLong reservations;
+
+    private final AtomicLong prefetchedReservations;
+
+    private final AtomicLong totalReservationNanos;
+
+    private final AtomicLong maxReservationNanos;
+
+    private volatile long currentBlockSize;
+
+    public AdaptiveContiguousIdBlockService(ContiguousIdBlockRepository repository,
+                                            PlatformTransactionManager transactionManager, long minBlockSize,
+                                            long maxBlockSize, long targetBlockLifetimeMillis, boolean prefetch) {
+        super(repository);
+        if (minBlockSize <= 0 || maxBlockSize < minBlockSize) {
+            throw new IllegalArgumentException(
+                    "Block sizes must satisfy 0 < minBlockSize <= maxBlockSize, but were " + minBlockSize + " and "
+                            + maxBlockSize);
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.minBlockSize = minBlockSize;
+        this.maxBlockSize = maxBlockSize;
+        this.targetBlockLifetimeMillis = targetBlockLifetimeMillis;
+        this.prefetchExecutor = prefetch ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "accession-block-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        this.allocations = new HashMap<>();
+        this.reservations = new AtomicLong();
+        this.prefetchedReservations = new AtomicLong();
+        this.totalReservationNanos = new AtomicLong();
+        this.maxReservationNanos = new AtomicLong();
+    }
+
+    @Override
+    public synchronized ContiguousIdBlock reserveNewBlock(String categoryId, String instanceId, long size) {
+        Allocation allocation = allocations.computeIfAbsent(
+                categoryId + "/" + instanceId,
+                key -> new Allocation(categoryId, instanceId, Math.max(minBlockSize, Math.min(maxBlockSize, size))));
+        ContiguousIdBlock block = allocation.takePrefetchedBlock();
+        if (block != null) {
+            prefetchedReservations.incrementAndGet();
+        } else {
+            block = reserve(categoryId, instanceId, allocation.blockSize);
+        }
+        allocation.adaptBlockSize();
+        currentBlockSize = allocation.blockSize;
+        if (prefetchExecutor != null && !prefetchExecutor.isShutdown()) {
+            long nextBlockSize = allocation.blockSize;
+            allocation.prefetchedBlock = prefetchExecutor.submit(() -> reserve(categoryId, instanceId,
+                                                                               nextBlockSize));
+        }
+        return block;
+    }
+
+    private ContiguousIdBlock reserve(String categoryId, String instanceId, long size) {
+        long start = System.nanoTime();
+        ContiguousIdBlock block = null;
+        for (int attempt = 1; block == null; attempt++) {
+            try {
+                block = transactionTemplate.execute(status -> super.reserveNewBlock(categoryId, instanceId, size));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == MAX_RESERVATION_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Block reservation conflicted with another instance, retrying", e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        reservations.incrementAndGet();
+        totalReservationNanos.addAndGet(elapsed);
+        maxReservationNanos.accumulateAndGet(elapsed, Math::max);
+        logger.debug("Reserved accessions {} to {} for instance {} in {} ms", block.getFirstValue(),
+                     block.getLastValue(), instanceId, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return block;
+    }
+
+    /**
+     * Waits for the block being prefetched, and logs the accessions that were reserved by this instance but not used.
+     * Those accessions will only be used if an instance with the same id is started again.
+     *
+     * @return Number of accessions reserved but not used
+     */
+    public synchronized long shutdown() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdown();
+            allocations.values().forEach(Allocation::takePrefetchedBlock);
+        }
+        long unusedIds = 0;
+        for (Allocation allocation : allocations.values()) {
+            for (ContiguousIdBlock block : getUncompletedBlocksByCategoryIdAndApplicationInstanceIdOrderByEndAsc(
+                    allocation.categoryId, allocation.instanceId)) {
+                unusedIds += block.getLastValue() - block.getLastCommitted();
+            }
+        }
+        if (unusedIds > 0) {
+            logger.info("{} reserved accessions were not used, and will be used if an instance with the same id is "
+                                + "started again", unusedIds);
+        }
+        return unusedIds;
+    }
+
+    public long getReservations() {
+        return reservations.get();
+    }
+
+    /**
+     * @return Number of blocks handed out that had been reserved in the background
+     */
+    public long getPrefetchedReservations() {
+        return prefetchedReservations.get();
+    }
+
+    public long getTotalReservationTime(TimeUnit unit) {
+        return unit.convert(totalReservationNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxReservationTime(TimeUnit unit) {
+        return unit.convert(maxReservationNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return Size of the next block to be reserved
+     */
+    public long getCurrentBlockSize() {
+        return currentBlockSize;
+    }
+
+    private class Allocation {
+
+        private final String categoryId;
+
+        private final String instanceId;
+
+        private long blockSize;
+
+        private long lastReservationMillis;
+
+        private Future<ContiguousIdBlock> prefetchedBlock;
+
+        Allocation(String categoryId, String instanceId, long blockSize) {
+            this.categoryId = categoryId;
+            this.instanceId = instanceId;
+            this.blockSize = blockSize;
+        }
+
+        /**
+         * @return The block reserved in the background, or null if there is none or its reservation failed
+         */
+        ContiguousIdBlock takePrefetchedBlock() {
+            if (prefetchedBlock == null) {
+                return null;
+            }
+            try {
+                return prefetchedBlock.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                logger.warn("Could not reserve the next block of accessions in the background", e.getCause());
+                return null;
+            } finally {
+                prefetchedBlock = null;
+            }
+        }
+
+        void adaptBlockSize() {
+            long now = System.currentTimeMillis();
+            if (lastReservationMillis > 0) {
+                long blockLifetime = now - lastReservationMillis;
+                if (blockLifetime < targetBlockLifetimeMillis / 2) {
+                    blockSize = Math.min(maxBlockSize, blockSize * 2);
+                } else if (blockLifetime > targetBlockLifetimeMillis * 2) {
+                    blockSize = Math.max(minBlockSize, blockSize / 2);
+                }
+            }
+            lastReservationMillis = now;
+        }
+    }
+}
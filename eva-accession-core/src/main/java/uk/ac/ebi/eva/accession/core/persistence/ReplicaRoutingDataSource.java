@@ -0,0 +1,126 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ReflectionUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Data source that sends the read-only transactions started within {@link #readFromReplica} to the replicas, in
+ * turn, and everything else to the primary database.
+ *
+ * Replicas may lag behind the primary, so only the reads that can do without the latest writes should be made through
+ * {@link #readFromReplica}; the lookups that decide which variants get a new accession must see all the accessioned
+ * variants and always go to the primary. The connections are only obtained when the first statement is run, because
+ * transaction managers ask for them before the transaction is marked as read-only, so whether a transaction was
+ * started within {@link #readFromReplica} is decided when it is called, not when the connection is routed.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<DataSource> dataSources;
+
+    private final List<String> replicaKeys;
+
+    private final AtomicInteger nextReplica;
+
+    private final ThreadLocal<Boolean> replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is needed");
+        }
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        replicaKeys = new ArrayList<>(replicas.size());
+        for (DataSource replica : replicas) {
+            String key = "replica-" + replicaKeys.size();
+            targetDataSources.put(key, replica);
+            replicaKeys.add(key);
+        }
+        dataSources = new ArrayList<>(replicas.size() + 1);
+        dataSources.add(primary);
+        dataSources.addAll(replicas);
+        nextReplica = new AtomicInteger();
+        replicaReads = new ThreadLocal<>();
+
+        Router router = new Router();
+        router.setTargetDataSources(targetDataSources);
+        router.setDefaultTargetDataSource(primary);
+        router.afterPropertiesSet();
+        setTargetDataSource(router);
+        afterPropertiesSet();
+    }
+
+    public int getNumberOfReplicas() {
+        return replicaKeys.size();
+    }
+
+    /**
+     * Runs {@code reads} so that the read-only transactions it starts are served by a replica. Transactions already
+     * started, or that are not read-only, keep using the primary database.
+     */
+    public <T> T readFromReplica(Supplier<T> reads) {
+        if (replicaReads.get() != null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return reads.get();
+        }
+        replicaReads.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            replicaReads.remove();
+        }
+    }
+
+    /**
+     * Closes the primary and the replicas, if they can be closed, as Spring would do with the primary data source if
+     * it were not wrapped
+     */
+    public void close() {
+        for (DataSource dataSource : dataSources) {
+            Method closeMethod = ReflectionUtils.findMethod(dataSource.getClass(), "close");
+            if (closeMethod != null) {
+                ReflectionUtils.invokeMethod(closeMethod, dataSource);
+            }
+        }
+    }
+
+    private class Router extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (replicaReads.get() == null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                return PRIMARY;
+            }
+            return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+        }
+    }
+
+}
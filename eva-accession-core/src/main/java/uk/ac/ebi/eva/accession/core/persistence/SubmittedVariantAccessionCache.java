@@ -0,0 +1,107 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size-bounded cache of hash to accessioned variant. When full, the least valuable entries (by frequency and recency
+ * of use) are evicted.
+ *
+ * Variants are copied into plain {@link SubmittedVariant} objects, so that the cache doesn't retain JPA entities.
+ */
+public class SubmittedVariantAccessionCache {
+
+    private final Cache<String, AccessionedVariant> cache;
+
+    public SubmittedVariantAccessionCache(long maximumSize) {
+        // evictions are done by the calling thread, so the size never exceeds the maximum for long
+        cache = Caffeine.newBuilder().maximumSize(maximumSize).executor(Runnable::run).recordStats().build();
+    }
+
+    /**
+     * Adds the cached variants with the given hashes to {@code accessionedVariants}.
+     *
+     * @return The hashes not present in the cache
+     */
+    public List<String> getAll(Collection<String> hashes, Map<Long, ISubmittedVariant> accessionedVariants) {
+        List<String> missingHashes = new ArrayList<>();
+        for (String hash : hashes) {
+            AccessionedVariant accessionedVariant = cache.getIfPresent(hash);
+            if (accessionedVariant == null) {
+                missingHashes.add(hash);
+            } else {
+                accessionedVariants.put(accessionedVariant.accession, accessionedVariant.variant);
+            }
+        }
+        return missingHashes;
+    }
+
+    /**
+     * Adds the accessions of the cached hashes to {@code accessions}.
+     *
+     * @return The hashes not present in the cache
+     */
+    public List<String> getAllAccessions(Collection<String> hashes, Map<String, Long> accessions) {
+        List<String> missingHashes = new ArrayList<>();
+        for (String hash : hashes) {
+            AccessionedVariant accessionedVariant = cache.getIfPresent(hash);
+            if (accessionedVariant == null) {
+                missingHashes.add(hash);
+            } else {
+                accessions.put(hash, accessionedVariant.accession);
+            }
+        }
+        return missingHashes;
+    }
+
+    public void put(String hash, Long accession, ISubmittedVariant variant) {
+        cache.put(hash, new AccessionedVariant(accession, new SubmittedVariant(variant)));
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    private static class AccessionedVariant {
+
+        private final Long accession;
+
+        private final ISubmittedVariant variant;
+
+        AccessionedVariant(Long accession, ISubmittedVariant variant) {
+            this.accession = accession;
+            this.variant = variant;
+        }
+    }
+}
@@ -0,0 +1,763 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.entities.ContiguousIdBlock;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Read-side index from the hash of each accessioned variant to its accession, kept in a local file outside the heap.
+ *
+ * The file contains the 20 bytes of every hash followed by its accession as a primitive long, sorted by hash, and is
+ * memory-mapped, so a lookup is a binary search over the pages of the file that the operating system keeps cached,
+ * without database queries nor per-entry objects.
+ *
+ * The index is refreshed incrementally: each refresh reads from the database the variants whose accessions are in the
+ * ranges that may have changed since the previous refresh, sorts them in runs of limited size and merges them with the
+ * current file into a new one, which replaces it atomically. The accessions of a block can be committed in any order,
+ * and the ones released after a failed insertion are used again later, so the whole range of a block is read again
+ * while the block is in flight: while the last commit recorded in it is recent, or while it is not complete and its
+ * application instance has committed accessions recently. The blocks of instances that stopped committing, like the
+ * ones left by an instance that was retired, or prefetched and never used, are not read again until their last commit
+ * changes, so they don't make every refresh read again all the accessions after them. Accessions after all the known
+ * blocks are always read.
+ *
+ * Variants accessioned after the last refresh are not found, so a missing hash must still be looked up in the
+ * database.
+ */
+public class SubmittedVariantAccessionIndex implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmittedVariantAccessionIndex.class);
+
+    /**
+     * Accessions are never negative
+     */
+    public static final long NOT_FOUND = -1;
+
+    private static final int MAGIC = 0x45564149;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 24;
+
+    private static final int HASH_HEX_LENGTH = 40;
+
+    private static final int ENTRY_SIZE = 28;
+
+    /**
+     * The file is mapped in segments, because a buffer cannot exceed 2GB
+     */
+    private static final int SEGMENT_ENTRIES_BITS = 25;
+
+    private static final int SEGMENT_ENTRIES = 1 << SEGMENT_ENTRIES_BITS;
+
+    private static final String FILE_PREFIX = "accession-index-";
+
+    private static final String FILE_SUFFIX = ".bin";
+
+    private final Path directory;
+
+    private final SubmittedVariantAccessioningRepository<?> repository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final String categoryId;
+
+    private final int runSize;
+
+    private final long inactiveBlockMillis;
+
+    private volatile IndexFile indexFile;
+
+    /**
+     * Blocks of accessions that may be read again, by id. Empty until the first refresh, which reads everything after
+     * the range start of the index file.
+     */
+    private Map<Long, TrackedBlock> trackedBlocks;
+
+    /**
+     * First accession after all the tracked blocks
+     */
+    private long tailStart;
+
+    private ScheduledExecutorService refreshExecutor;
+
+    /**
+     * Opens the most recent index file of the directory, if any. The index is not refreshed until {@link #refresh()}
+     * is called.
+     *
+     * @param categoryId Category of the blocks of accessions of the variants
+     * @param runSize Maximum number of variants sorted in memory at a time during a refresh
+     * @param inactiveBlockMillis Time after the last change of a block seen by a refresh after which the block is no
+     *                            longer in flight, unless it is not complete and another block of its instance changed
+     *                            in that time. Must be longer than the transactions that insert variants.
+     */
+    public SubmittedVariantAccessionIndex(Path directory, SubmittedVariantAccessioningRepository<?> repository,
+                                          PlatformTransactionManager transactionManager, String categoryId,
+                                          int runSize, long inactiveBlockMillis) throws IOException {
+        this.directory = directory;
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.categoryId = categoryId;
+        this.runSize = runSize;
+        this.inactiveBlockMillis = inactiveBlockMillis;
+        Files.createDirectories(directory);
+        this.indexFile = openLatestIndexFile();
+    }
+
+    private IndexFile openLatestIndexFile() throws IOException {
+        try (Stream<Path> temporaryFiles = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) temporaryFiles::iterator) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        List<Path> files = listIndexFiles();
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return IndexFile.open(files.get(i), getGeneration(files.get(i)));
+            } catch (IOException e) {
+                logger.warn("Ignoring invalid accession index file {}: {}", files.get(i), e.getMessage());
+            }
+        }
+        return IndexFile.EMPTY;
+    }
+
+    private List<Path> listIndexFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX);
+            }).forEach(files::add);
+        }
+        files.sort((file, otherFile) -> Long.compare(getGeneration(file), getGeneration(otherFile)));
+        return files;
+    }
+
+    private static long getGeneration(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+    }
+
+    /**
+     * @return The accession of the hash, or {@link #NOT_FOUND} if it was not accessioned at the last refresh
+     */
+    public long getAccession(String hash) {
+        if (hash == null || hash.length() != HASH_HEX_LENGTH) {
+            return NOT_FOUND;
+        }
+        return indexFile.find(getHigh(hash), getMiddle(hash), getLow(hash));
+    }
+
+    private static long getHigh(String hash) {
+        return parseHex(hash, 0, 16);
+    }
+
+    private static long getMiddle(String hash) {
+        return parseHex(hash, 16, 32);
+    }
+
+    private static int getLow(String hash) {
+        return (int) parseHex(hash, 32, 40);
+    }
+
+    /**
+     * Parses the hexadecimal digits of the hash between two positions, at most 16, without allocating a substring
+     */
+    private static long parseHex(String hash, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(hash.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Hash is not hexadecimal: " + hash);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    /**
+     * @param accessions Map to which the accessions found are added, by hash
+     * @return The hashes not found
+     */
+    public List<String> getAccessions(Collection<String> hashes, Map<String, Long> accessions) {
+        List<String> missingHashes = new ArrayList<>();
+        for (String hash : hashes) {
+            long accession = getAccession(hash);
+            if (accession == NOT_FOUND) {
+                missingHashes.add(hash);
+            } else {
+                accessions.put(hash, accession);
+            }
+        }
+        return missingHashes;
+    }
+
+    public long size() {
+        return indexFile.size;
+    }
+
+    /**
+     * Refreshes the index every {@code periodMillis} in a background thread, until the index is closed
+     */
+    public synchronized void refreshPeriodically(long periodMillis) {
+        if (refreshExecutor != null) {
+            throw new IllegalStateException("The index is already refreshed periodically");
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "accession-index-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not refresh the accession index", e);
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds to the index the variants accessioned since the previous refresh
+     */
+    public synchronized void refresh() throws IOException {
+        long start = System.currentTimeMillis();
+        IndexFile currentFile = indexFile;
+        List<Path> runs = new ArrayList<>();
+        long generation = currentFile.generation + 1;
+        Path newPath = directory.resolve(FILE_PREFIX + generation + FILE_SUFFIX);
+        Path temporaryPath = directory.resolve(newPath.getFileName() + ".tmp");
+        try {
+            long nextRangeStart = readRuns(currentFile, runs);
+            if (runs.isEmpty()) {
+                if (nextRangeStart != currentFile.nextRangeStart) {
+                    indexFile = currentFile.withNextRangeStart(nextRangeStart);
+                }
+                return;
+            }
+            if (currentFile.path != null) {
+                runs.add(currentFile.path);
+            }
+            merge(runs, temporaryPath, nextRangeStart);
+            Files.move(temporaryPath, newPath, StandardCopyOption.ATOMIC_MOVE);
+            indexFile = IndexFile.open(newPath, generation);
+        } finally {
+            for (Path run : runs) {
+                if (!run.equals(currentFile.path)) {
+                    Files.deleteIfExists(run);
+                }
+            }
+            Files.deleteIfExists(temporaryPath);
+        }
+        if (currentFile.path != null && !currentFile.path.equals(indexFile.path)) {
+            // the mapping of the old file stays valid for the lookups still using it
+            Files.deleteIfExists(currentFile.path);
+        }
+        logger.info("Accession index refreshed with {} variants in {} ms", indexFile.size,
+                    System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Writes the variants not yet in the index file, with accessions in the ranges of the blocks in flight or after
+     * all the known blocks, into sorted runs
+     *
+     * @return Start of the range to read in the next refresh
+     */
+    private long readRuns(IndexFile currentFile, List<Path> runs) {
+        return transactionTemplate.execute(status -> {
+            // the blocks are read before the variants, so that the accessions committed up to their last change are
+            // read now, and the ones committed later change them again before the next refresh
+            List<ContiguousIdBlock> blocks = repository.findBlocksToIndex(categoryId, currentFile.nextRangeStart);
+            long now = System.currentTimeMillis();
+            boolean firstRefresh = trackedBlocks == null;
+            long rangeEnd = firstRefresh ? currentFile.nextRangeStart : tailStart;
+            Map<Long, TrackedBlock> updatedBlocks = new HashMap<>();
+            for (ContiguousIdBlock block : blocks) {
+                TrackedBlock trackedBlock = firstRefresh ? null : trackedBlocks.get(block.getId());
+                updatedBlocks.put(block.getId(), trackedBlock == null ? new TrackedBlock(block, now)
+                                                                      : trackedBlock.update(block, now));
+            }
+            Set<String> activeInstances = new HashSet<>();
+            for (TrackedBlock block : updatedBlocks.values()) {
+                if (block.isRecent(now, inactiveBlockMillis)) {
+                    activeInstances.add(block.instanceId);
+                }
+            }
+            long nextTailStart = rangeEnd;
+            long nextRangeStart = Long.MAX_VALUE;
+            try {
+                Run run = new Run(runSize);
+                for (TrackedBlock block : updatedBlocks.values()) {
+                    nextTailStart = Math.max(nextTailStart, block.lastValue + 1);
+                    if (!block.isInFlight(now, inactiveBlockMillis, activeInstances)) {
+                        continue;
+                    }
+                    nextRangeStart = Math.min(nextRangeStart, block.firstValue);
+                    if (block.firstValue < rangeEnd) {
+                        try (Stream<Object[]> variants = repository.streamHashesAndAccessionsInRange(
+                                block.firstValue, Math.min(block.lastValue, rangeEnd - 1))) {
+                            addToRuns(variants, currentFile, run, runs);
+                        }
+                    }
+                }
+                try (Stream<Object[]> variants = repository.streamHashesAndAccessionsFrom(rangeEnd)) {
+                    addToRuns(variants, currentFile, run, runs);
+                }
+                if (!run.isEmpty()) {
+                    runs.add(run.write(directory));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            trackedBlocks = updatedBlocks;
+            tailStart = nextTailStart;
+            return Math.min(nextRangeStart, nextTailStart);
+        });
+    }
+
+    private void addToRuns(Stream<Object[]> variants, IndexFile currentFile, Run run, List<Path> runs)
+            throws IOException {
+        for (Object[] variant : (Iterable<Object[]>) variants::iterator) {
+            String hash = (String) variant[0];
+            long high = getHigh(hash);
+            long middle = getMiddle(hash);
+            int low = getLow(hash);
+            if (currentFile.find(high, middle, low) != NOT_FOUND) {
+                continue;
+            }
+            run.add(high, middle, low, (Long) variant[1]);
+            if (run.isFull()) {
+                runs.add(run.write(directory));
+            }
+        }
+    }
+
+    /**
+     * Merges sorted files into an index file, keeping one entry per hash
+     */
+    private static void merge(List<Path> inputs, Path output, long nextRangeStart) throws IOException {
+        PriorityQueue<EntryReader> readers = new PriorityQueue<>();
+        long size = 0;
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(output), 1 << 16))) {
+            outputStream.write(new byte[HEADER_SIZE]);
+            for (Path input : inputs) {
+                EntryReader reader = new EntryReader(input);
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            boolean first = true;
+            long lastHigh = 0;
+            long lastMiddle = 0;
+            int lastLow = 0;
+            while (!readers.isEmpty()) {
+                EntryReader reader = readers.poll();
+                if (first || reader.high != lastHigh || reader.middle != lastMiddle || reader.low != lastLow) {
+                    outputStream.writeLong(reader.high);
+                    outputStream.writeLong(reader.middle);
+                    outputStream.writeInt(reader.low);
+                    outputStream.writeLong(reader.accession);
+                    lastHigh = reader.high;
+                    lastMiddle = reader.middle;
+                    lastLow = reader.low;
+                    first = false;
+                    size++;
+                }
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (EntryReader reader : readers) {
+                reader.close();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.WRITE)) {
+            writeHeader(channel, size, nextRangeStart);
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, long size, long nextRangeStart) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(nextRangeStart).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(true);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Hashes are compared as three unsigned numbers of 8, 8 and 4 bytes, which sorts them like their bytes
+     */
+    private static int compare(long high, long middle, int low, long otherHigh, long otherMiddle, int otherLow) {
+        int result = Long.compareUnsigned(high, otherHigh);
+        if (result == 0) {
+            result = Long.compareUnsigned(middle, otherMiddle);
+        }
+        if (result == 0) {
+            result = Integer.compareUnsigned(low, otherLow);
+        }
+        return result;
+    }
+
+    /**
+     * State of a block of accessions as seen by the refreshes
+     */
+    private static class TrackedBlock {
+
+        final String instanceId;
+
+        final long firstValue;
+
+        final long lastValue;
+
+        final long lastCommitted;
+
+        /**
+         * Time of the refresh that saw the last change of the block
+         */
+        final long lastChangeTime;
+
+        TrackedBlock(ContiguousIdBlock block, long lastChangeTime) {
+            this.instanceId = block.getApplicationInstanceId();
+            this.firstValue = block.getFirstValue();
+            this.lastValue = block.getLastValue();
+            this.lastCommitted = block.getLastCommitted();
+            this.lastChangeTime = lastChangeTime;
+        }
+
+        TrackedBlock update(ContiguousIdBlock block, long now) {
+            return block.getLastCommitted() == lastCommitted ? this : new TrackedBlock(block, now);
+        }
+
+        boolean isRecent(long now, long inactiveBlockMillis) {
+            return now - lastChangeTime <= inactiveBlockMillis;
+        }
+
+        boolean isInFlight(long now, long inactiveBlockMillis, Set<String> activeInstances) {
+            return isRecent(now, inactiveBlockMillis)
+                    || (lastCommitted < lastValue && activeInstances.contains(instanceId));
+        }
+    }
+
+    /**
+     * Memory-mapped index file, immutable once written
+     */
+    private static class IndexFile {
+
+        static final IndexFile EMPTY = new IndexFile(null, 0, 0, 0, new ByteBuffer[0]);
+
+        final Path path;
+
+        final long generation;
+
+        final long size;
+
+        final long nextRangeStart;
+
+        private final ByteBuffer[] segments;
+
+        IndexFile(Path path, long generation, long size, long nextRangeStart, ByteBuffer[] segments) {
+            this.path = path;
+            this.generation = generation;
+            this.size = size;
+            this.nextRangeStart = nextRangeStart;
+            this.segments = segments;
+        }
+
+        static IndexFile open(Path path, long generation) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE) {
+                    throw new IOException("Not an accession index file");
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                while (header.hasRemaining()) {
+                    channel.read(header, header.position());
+                }
+                header.flip();
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException("Not an accession index file");
+                }
+                long size = header.getLong();
+                long nextRangeStart = header.getLong();
+                if (channel.size() != HEADER_SIZE + size * ENTRY_SIZE) {
+                    throw new IOException("Truncated accession index file");
+                }
+                int numberOfSegments = (int) ((size + SEGMENT_ENTRIES - 1) / SEGMENT_ENTRIES);
+                ByteBuffer[] segments = new ByteBuffer[numberOfSegments];
+                for (int i = 0; i < numberOfSegments; i++) {
+                    long firstEntry = (long) i * SEGMENT_ENTRIES;
+                    long entries = Math.min(SEGMENT_ENTRIES, size - firstEntry);
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + firstEntry * ENTRY_SIZE,
+                                              entries * ENTRY_SIZE);
+                }
+                return new IndexFile(path, generation, size, nextRangeStart, segments);
+            }
+        }
+
+        /**
+         * Only the header is rewritten, the entries are unchanged. Without a file, nothing is saved, so the whole
+         * range is read again after a restart.
+         */
+        IndexFile withNextRangeStart(long nextRangeStart) throws IOException {
+            if (path != null) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    writeHeader(channel, size, nextRangeStart);
+                }
+            }
+            return new IndexFile(path, generation, size, nextRangeStart, segments);
+        }
+
+        long find(long high, long middle, int low) {
+            long first = 0;
+            long last = size - 1;
+            while (first <= last) {
+                long entry = (first + last) >>> 1;
+                ByteBuffer segment = segments[(int) (entry >>> SEGMENT_ENTRIES_BITS)];
+                int offset = (int) (entry & (SEGMENT_ENTRIES - 1)) * ENTRY_SIZE;
+                int comparison = compare(segment.getLong(offset), segment.getLong(offset + 8),
+                                         segment.getInt(offset + 16), high, middle, low);
+                if (comparison < 0) {
+                    first = entry + 1;
+                } else if (comparison > 0) {
+                    last = entry - 1;
+                } else {
+                    return segment.getLong(offset + 20);
+                }
+            }
+            return NOT_FOUND;
+        }
+    }
+
+    /**
+     * Variants sorted in memory before writing them to a file, in primitive arrays
+     */
+    private static class Run {
+
+        private static final int INSERTION_SORT_THRESHOLD = 16;
+
+        private final long[] highs;
+
+        private final long[] middles;
+
+        private final int[] lows;
+
+        private final long[] accessions;
+
+        private int size;
+
+        Run(int capacity) {
+            highs = new long[capacity];
+            middles = new long[capacity];
+            lows = new int[capacity];
+            accessions = new long[capacity];
+        }
+
+        void add(long high, long middle, int low, long accession) {
+            highs[size] = high;
+            middles[size] = middle;
+            lows[size] = low;
+            accessions[size] = accession;
+            size++;
+        }
+
+        boolean isFull() {
+            return size == highs.length;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        Path write(Path directory) throws IOException {
+            sort(0, size - 1);
+            Path file = Files.createTempFile(directory, "run-", ".tmp");
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(file), 1 << 16))) {
+                outputStream.write(new byte[HEADER_SIZE]);
+                for (int i = 0; i < size; i++) {
+                    outputStream.writeLong(highs[i]);
+                    outputStream.writeLong(middles[i]);
+                    outputStream.writeInt(lows[i]);
+                    outputStream.writeLong(accessions[i]);
+                }
+            }
+            size = 0;
+            return file;
+        }
+
+        /**
+         * Quicksort of the entries between two positions, both included, by hash. The four arrays are sorted together,
+         * so that neither an array of boxed indexes nor a comparator is needed
+         */
+        private void sort(int from, int to) {
+            while (to - from >= INSERTION_SORT_THRESHOLD) {
+                // median of three, so that runs already sorted or reversed don't take quadratic time
+                int pivot = (from + to) >>> 1;
+                if (compareEntries(pivot, from) < 0) {
+                    swap(pivot, from);
+                }
+                if (compareEntries(to, from) < 0) {
+                    swap(to, from);
+                }
+                if (compareEntries(to, pivot) < 0) {
+                    swap(to, pivot);
+                }
+                long pivotHigh = highs[pivot];
+                long pivotMiddle = middles[pivot];
+                int pivotLow = lows[pivot];
+                int i = from;
+                int j = to;
+                while (i <= j) {
+                    while (compare(highs[i], middles[i], lows[i], pivotHigh, pivotMiddle, pivotLow) < 0) {
+                        i++;
+                    }
+                    while (compare(highs[j], middles[j], lows[j], pivotHigh, pivotMiddle, pivotLow) > 0) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i, j);
+                        i++;
+                        j--;
+                    }
+                }
+                // recursing only into the smaller part keeps the depth of the stack logarithmic
+                if (j - from < to - i) {
+                    sort(from, j);
+                    from = i;
+                } else {
+                    sort(i, to);
+                    to = j;
+                }
+            }
+            for (int i = from + 1; i <= to; i++) {
+                for (int j = i; j > from && compareEntries(j, j - 1) < 0; j--) {
+                    swap(j, j - 1);
+                }
+            }
+        }
+
+        private int compareEntries(int i, int j) {
+            return compare(highs[i], middles[i], lows[i], highs[j], middles[j], lows[j]);
+        }
+
+        private void swap(int i, int j) {
+            long high = highs[i];
+            highs[i] = highs[j];
+            highs[j] = high;
+            long middle = middles[i];
+            middles[i] = middles[j];
+            middles[j] = middle;
+            int low = lows[i];
+            lows[i] = lows[j];
+            lows[j] = low;
+            long accession = accessions[i];
+            accessions[i] = accessions[j];
+            accessions[j] = accession;
+        }
+    }
+
+    /**
+     * Reads the entries of a sorted file, either a run or an index file, which share the layout
+     */
+    private static class EntryReader implements Comparable<EntryReader>, Closeable {
+
+        private final DataInputStream inputStream;
+
+        long high;
+
+        long middle;
+
+        int low;
+
+        long accession;
+
+        EntryReader(Path file) throws IOException {
+            inputStream = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+            inputStream.readFully(new byte[HEADER_SIZE]);
+        }
+
+        boolean next() throws IOException {
+            try {
+                high = inputStream.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            middle = inputStream.readLong();
+            low = inputStream.readInt();
+            accession = inputStream.readLong();
+            return true;
+        }
+
+        @Override
+        public int compareTo(EntryReader other) {
+            return compare(high, middle, low, other.high, other.middle, other.low);
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+    }
+}
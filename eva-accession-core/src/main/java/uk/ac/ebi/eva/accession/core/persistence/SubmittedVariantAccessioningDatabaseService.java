@@ -17,29 +17,441 @@
  */
 package uk.ac.ebi.eva.accession.core.persistence;
 
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import uk.ac.ebi.eva.accession.core.AccessionMap;
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.StringPool;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.metrics.AccessioningMetrics;
+import uk.ac.ebi.eva.accession.core.persistence.compact.SubmittedVariantTermDictionary;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
 import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicRange;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.BasicSpringDataRepositoryDatabaseService;
 import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.service.MonotonicDatabaseService;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SubmittedVariantAccessioningDatabaseService
         extends BasicSpringDataRepositoryDatabaseService<ISubmittedVariant, SubmittedVariantEntity, String, Long>
         implements MonotonicDatabaseService<ISubmittedVariant, String> {
 
-    public SubmittedVariantAccessioningDatabaseService(SubmittedVariantAccessioningRepository repository) {
-        super(repository,
-              variantModelHashAccession -> new SubmittedVariantEntity(variantModelHashAccession.accession(),
-                                                                      variantModelHashAccession.hash(),
-                                                                      variantModelHashAccession.model()),
+    private final SubmittedVariantSchema schema;
+
+    private final SubmittedVariantAccessioningRepository<SubmittedVariantEntity> repository;
+
+    private final SubmittedVariantTermDictionary termDictionary;
+
+    private final SubmittedVariantAccessionCache cache;
+
+    private final SubmittedVariantHashBloomFilter bloomFilter;
+
+    private final SubmittedVariantAccessionIndex accessionIndex;
+
+    private final SubmittedVariantCopyInserter copyInserter;
+
+    private final ReplicaRoutingDataSource replicaDataSource;
+
+    private final SubmittedVariantHashingFunction hashingFunction;
+
+    private final AccessioningMetrics metrics;
+
+    public SubmittedVariantAccessioningDatabaseService(SubmittedVariantSchema schema,
+                                                       SubmittedVariantAccessioningRepository<?> repository,
+                                                       SubmittedVariantTermDictionary termDictionary) {
+        this(schema, repository, termDictionary, null, null, null, null, null,
+             new AccessioningMetrics(Metrics.globalRegistry));
+    }
+
+    /**
+     * @param schema Schema of the entities of {@code repository}
+     * @param termDictionary Resolves the terms of the new variants before inserting them. Only used, and required, by
+     *                       the compact schema.
+     * @param cache If not null, hashes are looked up in the cache before going to the database
+     * @param bloomFilter If not null, hashes not in the filter are not looked up in the database. It is only updated
+     *                    with the variants inserted through this service, so it misses the ones accessioned by other
+     *                    instances; see {@link #addAccessionedHashesToBloomFilter}
+     * @param accessionIndex If not null, hashes are looked up in the index before going to the database in
+     *                       {@link #findAccessionsOfHashes}
+     * @param copyInserter If not null, new variants are inserted with it instead of the repository
+     * @param replicaDataSource If not null, variants by accession, accessions of hashes and regions are read from its
+     *                          replicas; the accessions not found there are read again from the primary database, as
+     *                          they may have been created after the last replicated transaction
+     */
+    public SubmittedVariantAccessioningDatabaseService(SubmittedVariantSchema schema,
+                                                       SubmittedVariantAccessioningRepository<?> repository,
+                                                       SubmittedVariantTermDictionary termDictionary,
+                                                       SubmittedVariantAccessionCache cache,
+                                                       SubmittedVariantHashBloomFilter bloomFilter,
+                                                       SubmittedVariantAccessionIndex accessionIndex,
+                                                       SubmittedVariantCopyInserter copyInserter,
+                                                       ReplicaRoutingDataSource replicaDataSource,
+                                                       AccessioningMetrics metrics) {
+        super(asBaseRepository(repository),
+              variantModelHashAccession -> schema.newEntity(variantModelHashAccession.accession(),
+                                                            variantModelHashAccession.hash(),
+                                                            variantModelHashAccession.model()),
               SubmittedVariantEntity::getAccession,
               SubmittedVariantEntity::getHashedMessage);
+        if (schema == SubmittedVariantSchema.COMPACT && termDictionary == null) {
+            throw new IllegalArgumentException("The compact schema requires a dictionary of terms");
+        }
+        this.schema = schema;
+        this.repository = asBaseRepository(repository);
+        this.termDictionary = termDictionary;
+        this.cache = cache;
+        this.bloomFilter = bloomFilter;
+        this.accessionIndex = accessionIndex;
+        this.copyInserter = copyInserter;
+        this.replicaDataSource = replicaDataSource;
+        this.hashingFunction = new SubmittedVariantHashingFunction();
+        this.metrics = metrics;
+    }
+
+    /**
+     * The repository only reads the entities of its schema, and this service only saves the ones created by
+     * {@link #schema}, so it can be used as a repository of the base entity
+     */
+    @SuppressWarnings("unchecked")
+    private static SubmittedVariantAccessioningRepository<SubmittedVariantEntity> asBaseRepository(
+            SubmittedVariantAccessioningRepository<?> repository) {
+        return (SubmittedVariantAccessioningRepository<SubmittedVariantEntity>) repository;
+    }
+
+    @Override
+    public Map<Long, ISubmittedVariant> findAllAccessionsByHash(Collection<String> hashes) {
+        return findAllAccessionsByHash(hashes, true);
+    }
+
+    /**
+     * @param recordMetrics False if the hashes were already looked up and counted by the metrics, like when the
+     *                      insertion of their variants is retried
+     */
+    public Map<Long, ISubmittedVariant> findAllAccessionsByHash(Collection<String> hashes, boolean recordMetrics) {
+        long start = System.nanoTime();
+        Map<Long, ISubmittedVariant> accessionedVariants = findAccessionsByHash(hashes, recordMetrics);
+        canonicalizeAlleles(accessionedVariants.values());
+        if (recordMetrics) {
+            metrics.recordLookup(accessionedVariants.size(), System.nanoTime() - start);
+        }
+        return accessionedVariants;
+    }
+
+    private Map<Long, ISubmittedVariant> findAccessionsByHash(Collection<String> hashes, boolean recordMetrics) {
+        Collection<String> possiblyAccessionedHashes = hashes;
+        if (bloomFilter != null) {
+            possiblyAccessionedHashes = hashes.stream().filter(bloomFilter::mightContain).collect(Collectors.toList());
+            if (recordMetrics) {
+                metrics.recordBloomFilterNegatives(hashes.size() - possiblyAccessionedHashes.size());
+            }
+            if (possiblyAccessionedHashes.isEmpty()) {
+                return new AccessionMap<>(0);
+            }
+        }
+        if (cache == null) {
+            return super.findAllAccessionsByHash(possiblyAccessionedHashes);
+        }
+        AccessionMap<ISubmittedVariant> accessionedVariants = new AccessionMap<>(possiblyAccessionedHashes.size());
+        List<String> missingHashes = cache.getAll(possiblyAccessionedHashes, accessionedVariants);
+        if (recordMetrics) {
+            metrics.recordCacheRequests(possiblyAccessionedHashes.size() - missingHashes.size(),
+                                        missingHashes.size());
+        }
+        if (!missingHashes.isEmpty()) {
+            Map<Long, ISubmittedVariant> storedVariants = super.findAllAccessionsByHash(missingHashes);
+            storedVariants.forEach((accession, variant) -> cache.put(getHash(variant), accession, variant));
+            accessionedVariants.putAll(storedVariants);
+        }
+        return accessionedVariants;
+    }
+
+    /**
+     * The variants loaded from the database are entities, which carry their hash, so they are not hashed again
+     */
+    private String getHash(ISubmittedVariant variant) {
+        if (variant instanceof SubmittedVariantEntity) {
+            return ((SubmittedVariantEntity) variant).getHashedMessage();
+        }
+        return hashingFunction.apply(variant);
+    }
+
+    @Override
+    public AccessionMap<ISubmittedVariant> findAllAccessionsByAccession(List<Long> accessions) {
+        AccessionMap<ISubmittedVariant> accessionedVariants = new AccessionMap<>(accessions.size());
+        for (SubmittedVariantEntity variant : readFromReplica(() -> repository.findAll(accessions))) {
+            accessionedVariants.put(variant.getAccession(), variant);
+        }
+        if (replicaDataSource != null && accessionedVariants.size() < accessions.size()) {
+            List<Long> missingAccessions = accessions.stream()
+                                                     .filter(accession -> !accessionedVariants.containsKey(accession))
+                                                     .distinct()
+                                                     .collect(Collectors.toList());
+            if (!missingAccessions.isEmpty()) {
+                for (SubmittedVariantEntity variant : repository.findAll(missingAccessions)) {
+                    accessionedVariants.put(variant.getAccession(), variant);
+                }
+                metrics.recordReplicaFallbacks(missingAccessions.size());
+            }
+        }
+        canonicalizeAlleles(accessionedVariants.values());
+        return accessionedVariants;
+    }
+
+    private <T> T readFromReplica(Supplier<T> reads) {
+        return replicaDataSource != null ? replicaDataSource.readFromReplica(reads) : reads.get();
+    }
+
+    /**
+     * The variants loaded in a batch share their repeated alleles through a pool, so that they are held in memory
+     * once while the batch is accessioned, and once per batch in the cache
+     */
+    private static void canonicalizeAlleles(Collection<? extends ISubmittedVariant> variants) {
+        StringPool stringPool = new StringPool();
+        for (ISubmittedVariant variant : variants) {
+            if (variant instanceof SubmittedVariantEntity) {
+                ((SubmittedVariantEntity) variant).canonicalizeAlleles(stringPool);
+            }
+        }
+    }
+
+    /**
+     * Adds to the Bloom filter, if enabled, the hashes that are accessioned in the database. Inserting a variant that
+     * another instance accessioned fails on the unique hash constraint, as the filter makes it look new, so the filter
+     * must be updated with the hashes of the failed insertion before retrying it.
+     */
+    public void addAccessionedHashesToBloomFilter(Collection<String> hashes) {
+        if (bloomFilter == null) {
+            return;
+        }
+        for (Object[] hashAndAccession : repository.findHashesAndAccessionsByHashedMessageIn(hashes)) {
+            bloomFilter.put((String) hashAndAccession[0]);
+        }
+    }
+
+    /**
+     * Finds the accessions of the hashes without loading the variants, looking them up in the cache and the accession
+     * index first, if enabled, and then in the database, or in a replica if there are any. Accessions created after
+     * the last transaction replicated are not found in that case, unless they are cached or indexed. The replica is
+     * only used if this method is not called inside a transaction, as transactions started before keep using the
+     * primary; accessioning uses {@link #findAllAccessionsByHash} instead, which always reads from the primary.
+     *
+     * @return Accessions of the hashes that are accessioned, by hash
+     */
+    public Map<String, Long> findAccessionsOfHashes(Collection<String> hashes) {
+        long start = System.nanoTime();
+        Map<String, Long> accessions = new HashMap<>();
+        Collection<String> missingHashes = hashes;
+        if (cache != null) {
+            missingHashes = cache.getAllAccessions(hashes, accessions);
+            metrics.recordCacheRequests(hashes.size() - missingHashes.size(), missingHashes.size());
+        }
+        if (accessionIndex != null) {
+            missingHashes = accessionIndex.getAccessions(missingHashes, accessions);
+        }
+        if (bloomFilter != null) {
+            missingHashes = missingHashes.stream().filter(bloomFilter::mightContain).collect(Collectors.toList());
+        }
+        if (!missingHashes.isEmpty()) {
+            Collection<String> hashesToRead = missingHashes;
+            for (Object[] hashAndAccession : readFromReplica(
+                    () -> repository.findHashesAndAccessionsByHashedMessageIn(hashesToRead))) {
+                accessions.put((String) hashAndAccession[0], (Long) hashAndAccession[1]);
+            }
+        }
+        metrics.recordReadOnlyLookup(System.nanoTime() - start);
+        return accessions;
     }
 
     @Override
+    @Transactional
+    public void insert(List<ModelHashAccession<ISubmittedVariant, String, Long>> objects) {
+        long start = System.nanoTime();
+        if (bloomFilter != null) {
+            // a hash added to the filter but rolled back from the database only causes an unnecessary lookup
+            objects.forEach(object -> bloomFilter.put(object.hash()));
+        }
+        List<SubmittedVariantEntity> entities = new ArrayList<>(objects.size());
+        for (ModelHashAccession<ISubmittedVariant, String, Long> object : objects) {
+            entities.add(schema.newEntity(object.accession(), object.hash(), object.model()));
+        }
+        if (schema == SubmittedVariantSchema.COMPACT) {
+            termDictionary.resolveTerms(entities);
+        }
+        if (copyInserter != null) {
+            copyInserter.insert(entities);
+        } else {
+            repository.save(entities);
+        }
+        metrics.recordInsert(System.nanoTime() - start);
+        // if the insertion is rolled back, the accessions must not be cached nor counted
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    afterInsertCommit(objects);
+                }
+            });
+        } else {
+            afterInsertCommit(objects);
+        }
+    }
+
+    private void afterInsertCommit(List<ModelHashAccession<ISubmittedVariant, String, Long>> objects) {
+        if (cache != null) {
+            objects.forEach(object -> cache.put(object.hash(), object.accession(), object.model()));
+        }
+        metrics.recordCreatedVariants(objects.size());
+    }
+
+    /**
+     * @return null if the cache is disabled
+     */
+    public SubmittedVariantAccessionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return null if the Bloom filter is disabled
+     */
+    public SubmittedVariantHashBloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+
+    /**
+     * @return null if the accession index is disabled
+     */
+    public SubmittedVariantAccessionIndex getAccessionIndex() {
+        return accessionIndex;
+    }
+
+    /**
+     * Used by the accession generator on startup to find out which accessions of its uncompleted blocks were already
+     * saved.
+     */
+    @Override
+    @Transactional(readOnly = true)
     public long[] getAccessionsInRanges(Collection<MonotonicRange> ranges) {
-        return new long[0];
+        LongStream.Builder accessions = LongStream.builder();
+        for (MonotonicRange range : ranges) {
+            try (Stream<Long> accessionsInRange = repository.streamAccessionsInRange(range.getStart(),
+                                                                                     range.getEnd())) {
+                accessionsInRange.forEach(accessions::add);
+            }
+        }
+        return accessions.build().toArray();
+    }
+
+    /**
+     * Passes all the variants of an assembly to {@code action}, sorted by contig, start and accession. The variants
+     * are read with a database cursor and are not kept in memory.
+     */
+    @Transactional(readOnly = true)
+    public void forEachInAssembly(String assemblyAccession, Consumer<? super SubmittedVariantEntity> action) {
+        forEach(assemblyAccession, repository::streamByAssembly, action);
+    }
+
+    /**
+     * Passes all the variants of a project to {@code action}, sorted by accession. The variants are read with a
+     * database cursor and are not kept in memory.
+     */
+    @Transactional(readOnly = true)
+    public void forEachInProject(String projectAccession, Consumer<? super SubmittedVariantEntity> action) {
+        forEach(projectAccession, repository::streamByProject, action);
+    }
+
+    private void forEach(String term, Function<String, Stream<SubmittedVariantEntity>> query,
+                         Consumer<? super SubmittedVariantEntity> action) {
+        try (Stream<SubmittedVariantEntity> variants = query.apply(term)) {
+            variants.forEach(action);
+        }
+    }
+
+    /**
+     * Streams the variants of a contig between {@code start} and {@code end} (both included), sorted by start and
+     * accession. The variants are read in pages of {@code pageSize}, each one in its own transaction, so the memory
+     * used does not depend on the size of the region.
+     */
+    public Stream<SubmittedVariantEntity> streamRegion(String assemblyAccession, String contig, long start, long end,
+                                                       int pageSize) {
+        if (start > end) {
+            return Stream.empty();
+        }
+        Iterator<SubmittedVariantEntity> iterator = new RegionIterator(assemblyAccession, contig, start, end,
+                                                                       pageSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private class RegionIterator implements Iterator<SubmittedVariantEntity> {
+
+        private final String assemblyAccession;
+
+        private final String contig;
+
+        private final long end;
+
+        private final PageRequest pageRequest;
+
+        private long lastStart;
+
+        private long lastAccession;
+
+        private Iterator<SubmittedVariantEntity> page;
+
+        private boolean lastPage;
+
+        RegionIterator(String assemblyAccession, String contig, long start, long end, int pageSize) {
+            this.assemblyAccession = assemblyAccession;
+            this.contig = contig;
+            this.end = end;
+            this.pageRequest = new PageRequest(0, pageSize);
+            this.lastStart = start;
+            this.lastAccession = Long.MIN_VALUE;
+            this.page = Collections.emptyIterator();
+            this.lastPage = false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !lastPage) {
+                List<SubmittedVariantEntity> variants = readFromReplica(
+                        () -> repository.findRegionPage(assemblyAccession, contig, lastStart, lastAccession, end,
+                                                        pageRequest));
+                lastPage = variants.size() < pageRequest.getPageSize();
+                page = variants.iterator();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public SubmittedVariantEntity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SubmittedVariantEntity variant = page.next();
+            lastStart = variant.getStart();
+            lastAccession = variant.getAccession();
+            return variant;
+        }
     }
 }
@@ -17,11 +17,99 @@
  */
 package uk.ac.ebi.eva.accession.core.persistence;
 
-import org.springframework.stereotype.Repository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.NoRepositoryBean;
 import uk.ac.ebi.ampt2d.commons.accession.core.AccessioningRepository;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.entities.ContiguousIdBlock;
 
-@Repository
-public interface SubmittedVariantAccessioningRepository
-        extends AccessioningRepository<SubmittedVariantEntity, String, Long> {
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * Queries of the submitted variants common to both schemas. Only the repository of the schema selected with
+ * {@link SubmittedVariantSchema} is created, and it declares the queries that depend on how the assembly, project and
+ * contig are stored.
+ */
+@NoRepositoryBean
+public interface SubmittedVariantAccessioningRepository<ENTITY extends SubmittedVariantEntity>
+        extends AccessioningRepository<ENTITY, String, Long> {
+
+    /**
+     * Streams the hashes of all the accessioned variants without loading the entities. Must be called inside a
+     * transaction, and the stream must be closed after use.
+     */
+    @Query("select v.hashedMessage from #{#entityName} v")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<String> streamAllHashedMessages();
+
+    /**
+     * Streams the accessions between {@code start} and {@code end} (both included) in ascending order, without
+     * loading the entities. Must be called inside a transaction, and the stream must be closed after use.
+     */
+    @Query("select v.accession from #{#entityName} v where v.accession between ?1 and ?2 order by v.accession")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<Long> streamAccessionsInRange(long start, long end);
+
+    /**
+     * Streams the hash and accession of the variants with accessions from {@code start}, without loading the entities.
+     * Must be called inside a transaction, and the stream must be closed after use.
+     */
+    @Query("select v.hashedMessage, v.accession from #{#entityName} v where v.accession >= ?1")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<Object[]> streamHashesAndAccessionsFrom(long start);
+
+    /**
+     * Streams the hash and accession of the variants with accessions between {@code start} and {@code end}, both
+     * included, without loading the entities. Must be called inside a transaction, and the stream must be closed after
+     * use.
+     */
+    @Query("select v.hashedMessage, v.accession from #{#entityName} v where v.accession between ?1 and ?2")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<Object[]> streamHashesAndAccessionsInRange(long start, long end);
+
+    /**
+     * Hash and accession of the variants with the given hashes, without loading the entities
+     */
+    @Query("select v.hashedMessage, v.accession from #{#entityName} v where v.hashedMessage in ?1")
+    List<Object[]> findHashesAndAccessionsByHashedMessageIn(Collection<String> hashes);
+
+    /**
+     * Blocks of accessions of a category that end at {@code accession} or after it, or that are not complete
+     */
+    @Query("select b from ContiguousIdBlock b " +
+            "where b.categoryId = ?1 and (b.lastValue >= ?2 or b.lastCommitted < b.lastValue)")
+    List<ContiguousIdBlock> findBlocksToIndex(String categoryId, long accession);
+
+    /**
+     * Number of blocks of accessions of a category reserved by application instances other than {@code instanceId}
+     */
+    @Query("select count(b) from ContiguousIdBlock b where b.categoryId = ?1 and b.applicationInstanceId <> ?2")
+    long countBlocksOfOtherInstances(String categoryId, String instanceId);
+
+    /**
+     * Page of the variants of a contig, sorted by start and accession, that go after the variant with
+     * {@code lastStart} and {@code lastAccession} and start at most at {@code end}. Seeking from the last variant of
+     * the previous page, instead of using offsets, keeps every page as fast as the first one.
+     */
+    List<ENTITY> findRegionPage(String assemblyAccession, String contig, long lastStart, long lastAccession, long end,
+                                Pageable pageable);
+
+    /**
+     * Streams the variants of an assembly, sorted by contig, start and accession, which follows the region index.
+     * Must be called inside a transaction, and the stream must be closed after use.
+     */
+    Stream<ENTITY> streamByAssembly(String assemblyAccession);
+
+    /**
+     * Streams the variants of a project, sorted by accession. Must be called inside a transaction, and the stream
+     * must be closed after use.
+     */
+    Stream<ENTITY> streamByProject(String projectAccession);
 
 }
@@ -0,0 +1,139 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import uk.ac.ebi.eva.accession.core.persistence.compact.CompactSubmittedVariantEntity;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Inserts submitted variants using the PostgreSQL COPY protocol, which is several times faster than batched INSERT
+ * statements for large chunks of variants.
+ *
+ * The rows are copied using the connection of the current transaction, so they are committed or rolled back together
+ * with the rest of the transaction. The unique constraint on the hashed message is still enforced by the database: a
+ * duplicated hash makes the whole COPY fail with a {@link org.springframework.dao.DuplicateKeyException}, as the
+ * batched inserts would.
+ */
+public class SubmittedVariantCopyInserter {
+
+    /**
+     * Table and columns as named by Spring Boot's default physical naming strategy
+     */
+    static final String ORIGINAL_COPY_STATEMENT = "COPY submitted_variant_entity (accession, hashed_message, " +
+            "assembly_accession, taxonomy_accession, project_accession, contig, start, reference_allele, " +
+            "alternate_allele, supported_by_evidence) FROM STDIN WITH (FORMAT csv)";
+
+    static final String COMPACT_COPY_STATEMENT = "COPY submitted_variant_entity (accession, hashed_message, " +
+            "assembly_id, taxonomy_id, project_id, contig_id, start, reference_allele, alternate_allele, " +
+            "supported_by_evidence) FROM STDIN WITH (FORMAT csv)";
+
+    private final DataSource dataSource;
+
+    private final SubmittedVariantSchema schema;
+
+    private final String copyStatement;
+
+    private final SQLExceptionTranslator exceptionTranslator;
+
+    public SubmittedVariantCopyInserter(DataSource dataSource, SubmittedVariantSchema schema) {
+        this.dataSource = dataSource;
+        this.schema = schema;
+        this.copyStatement = schema == SubmittedVariantSchema.COMPACT ? COMPACT_COPY_STATEMENT
+                                                                      : ORIGINAL_COPY_STATEMENT;
+        this.exceptionTranslator = new SQLErrorCodeSQLExceptionTranslator(dataSource);
+    }
+
+    /**
+     * @param entities Entities of the schema of this inserter; with the compact schema, their terms must have been
+     *                 resolved already
+     */
+    public void insert(List<SubmittedVariantEntity> entities) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copyStatement);
+            try {
+                StringBuilder line = new StringBuilder();
+                for (SubmittedVariantEntity entity : entities) {
+                    line.setLength(0);
+                    appendCsvLine(line, entity, schema);
+                    byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw exceptionTranslator.translate("Copying " + entities.size() + " submitted variants", copyStatement,
+                                                e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    static void appendCsvLine(StringBuilder line, SubmittedVariantEntity entity, SubmittedVariantSchema schema) {
+        line.append(entity.getAccession()).append(',');
+        if (schema == SubmittedVariantSchema.COMPACT) {
+            CompactSubmittedVariantEntity compactEntity = (CompactSubmittedVariantEntity) entity;
+            // bytea in hexadecimal format
+            line.append("\\x").append(compactEntity.getHashedMessage()).append(',');
+            line.append(compactEntity.getAssembly().getId()).append(',');
+            line.append(compactEntity.getTaxonomy().getId()).append(',');
+            line.append(compactEntity.getProject().getId()).append(',');
+            line.append(compactEntity.getContigTerm().getId()).append(',');
+        } else {
+            line.append(entity.getHashedMessage()).append(',');
+            appendCsvValue(line, entity.getAssemblyAccession()).append(',');
+            appendCsvValue(line, entity.getTaxonomyAccession()).append(',');
+            appendCsvValue(line, entity.getProjectAccession()).append(',');
+            appendCsvValue(line, entity.getContig()).append(',');
+        }
+        line.append(entity.getStart()).append(',');
+        appendCsvValue(line, entity.getReferenceAllele()).append(',');
+        appendCsvValue(line, entity.getAlternateAllele()).append(',');
+        line.append(entity.isSupportedByEvidence()).append('\n');
+    }
+
+    /**
+     * Values are always quoted, so that an empty string is not read as null
+     */
+    private static StringBuilder appendCsvValue(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        return line.append('"');
+    }
+}
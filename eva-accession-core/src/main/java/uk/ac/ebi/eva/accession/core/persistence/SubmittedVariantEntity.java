@@ -17,34 +17,33 @@
  */
 package uk.ac.ebi.eva.accession.core.persistence;
 
+import org.springframework.data.domain.Persistable;
+
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.StringPool;
 
 import javax.persistence.Column;
-import javax.persistence.Entity;
 import javax.persistence.Id;
-
-@Entity
-public class SubmittedVariantEntity implements ISubmittedVariant {
+import javax.persistence.MappedSuperclass;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
+
+/**
+ * Fields shared by the two schemas of the submitted variants, selected with {@link SubmittedVariantSchema}. The hash,
+ * assembly, taxonomy, project and contig are mapped by each schema.
+ *
+ * The accession is assigned by the application, so the entity keeps track of whether it has been saved already.
+ * Otherwise Spring Data would consider every entity with an accession as existing, merging it (a SELECT followed by
+ * an INSERT) instead of just persisting it, and Hibernate could not batch the inserts.
+ */
+@MappedSuperclass
+public abstract class SubmittedVariantEntity implements ISubmittedVariant, Persistable<Long> {
 
     @Id
     @Column(nullable = false, unique = true, updatable = false)
     private Long accession;
 
-    @Column(nullable = false, unique = true)
-    private String hashedMessage;
-
-    @Column(nullable = false)
-    private String assemblyAccession;
-
-    @Column(nullable = false)
-    private String taxonomyAccession;
-
-    @Column(nullable = false)
-    private String projectAccession;
-
-    @Column(nullable = false)
-    private String contig;
-
     @Column(nullable = false)
     private long start;
 
@@ -57,24 +56,15 @@ public class SubmittedVariantEntity implements ISubmittedVariant {
     @Column(nullable = false)
     private boolean supportedByEvidence;
 
-    SubmittedVariantEntity() {
-    }
+    @Transient
+    private boolean newEntity = true;
 
-    public SubmittedVariantEntity(Long accession, String hashedMessage, ISubmittedVariant model) {
-        this(accession, hashedMessage, model.getAssemblyAccession(), model.getTaxonomyAccession(),
-             model.getProjectAccession(), model.getContig(), model.getStart(), model.getReferenceAllele(),
-             model.getAlternateAllele(), model.isSupportedByEvidence());
+    protected SubmittedVariantEntity() {
     }
 
-    public SubmittedVariantEntity(Long accession, String hashedMessage, String assemblyAccession,
-                                  String taxonomyAccession, String projectAccession, String contig, long start,
-                                  String referenceAllele, String alternateAllele, boolean isSupportedByEvidence) {
+    protected SubmittedVariantEntity(Long accession, long start, String referenceAllele, String alternateAllele,
+                                     boolean isSupportedByEvidence) {
         this.accession = accession;
-        this.hashedMessage = hashedMessage;
-        this.assemblyAccession = assemblyAccession;
-        this.taxonomyAccession = taxonomyAccession;
-        this.projectAccession = projectAccession;
-        this.contig = contig;
         this.start = start;
         this.referenceAllele = referenceAllele;
         this.alternateAllele = alternateAllele;
@@ -85,30 +75,32 @@ public class SubmittedVariantEntity implements ISubmittedVariant {
         return this.accession;
     }
 
-    public String getHashedMessage() {
-        return hashedMessage;
-    }
-
     @Override
-    public String getAssemblyAccession() {
-        return assemblyAccession;
+    public Long getId() {
+        return accession;
     }
 
     @Override
-    public String getTaxonomyAccession() {
-        return taxonomyAccession;
+    public boolean isNew() {
+        return newEntity;
     }
 
-    @Override
-    public String getProjectAccession() {
-        return projectAccession;
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
     }
 
-    @Override
-    public String getContig() {
-        return contig;
+    /**
+     * Replaces the alleles with their instances in the pool
+     */
+    void canonicalizeAlleles(StringPool stringPool) {
+        this.referenceAllele = stringPool.canonicalize(referenceAllele);
+        this.alternateAllele = stringPool.canonicalize(alternateAllele);
     }
 
+    public abstract String getHashedMessage();
+
     @Override
     public long getStart() {
         return start;
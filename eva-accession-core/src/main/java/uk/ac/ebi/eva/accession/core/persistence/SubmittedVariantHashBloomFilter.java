@@ -0,0 +1,116 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the hashes of the accessioned variants. If {@link #mightContain(String)} returns false, the hash has
+ * definitely not been accessioned and the database lookup can be skipped.
+ *
+ * The hashes are SHA-1 digests, so their bits are already uniformly distributed and the positions in the filter are
+ * taken from them directly (using double hashing) instead of hashing them again.
+ */
+public class SubmittedVariantHashBloomFilter {
+
+    private static final int HEX_DIGITS_PER_LONG = 16;
+
+    private final AtomicLongArray bits;
+
+    private final long numberOfBits;
+
+    private final int numberOfHashFunctions;
+
+    /**
+     * @param expectedInsertions Number of hashes that will be added to the filter
+     * @param falsePositiveProbability Probability of {@link #mightContain(String)} returning true for a hash that was
+     *                                 not added, when the filter contains {@code expectedInsertions} hashes
+     */
+    public SubmittedVariantHashBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be between 0 and 1");
+        }
+        long optimalBits = (long) Math.ceil(
+                -expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + Long.SIZE - 1) / Long.SIZE);
+        bits = new AtomicLongArray(words);
+        numberOfBits = (long) words * Long.SIZE;
+        numberOfHashFunctions = Math.max(1, (int) Math.round((double) numberOfBits / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(String hash) {
+        long hash1 = parseHex(hash, 0);
+        long hash2 = parseHex(hash, HEX_DIGITS_PER_LONG);
+        for (int i = 0; i < numberOfHashFunctions; i++) {
+            long bit = position(hash1, hash2, i);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public void putAll(Stream<String> hashes) {
+        hashes.forEach(this::put);
+    }
+
+    public boolean mightContain(String hash) {
+        long hash1 = parseHex(hash, 0);
+        long hash2 = parseHex(hash, HEX_DIGITS_PER_LONG);
+        for (int i = 0; i < numberOfHashFunctions; i++) {
+            long bit = position(hash1, hash2, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getNumberOfBits() {
+        return numberOfBits;
+    }
+
+    public int getNumberOfHashFunctions() {
+        return numberOfHashFunctions;
+    }
+
+    private long position(long hash1, long hash2, int i) {
+        return ((hash1 + i * hash2) & Long.MAX_VALUE) % numberOfBits;
+    }
+
+    private static long parseHex(String hash, int offset) {
+        if (hash.length() < offset + HEX_DIGITS_PER_LONG) {
+            throw new IllegalArgumentException("Hash is too short to be a SHA-1 digest: " + hash);
+        }
+        long value = 0;
+        for (int i = offset; i < offset + HEX_DIGITS_PER_LONG; i++) {
+            int digit = Character.digit(hash.charAt(i), 16);
+            if (digit < 0) {
+                throw new IllegalArgumentException("Hash is not hexadecimal: " + hash);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.persistence.compact.CompactSubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.core.persistence.original.OriginalSubmittedVariantEntity;
+
+/**
+ * How the submitted variants are stored, selected with {@code accessioning.variant.schema}. Both schemas use the table
+ * {@code submitted_variant_entity}, and only the entity and repository of the selected one are created.
+ */
+public enum SubmittedVariantSchema {
+
+    /**
+     * The assembly, taxonomy, project and contig are repeated in every row, and the hash is stored as hexadecimal text
+     */
+    ORIGINAL {
+        @Override
+        public SubmittedVariantEntity newEntity(Long accession, String hash, ISubmittedVariant model) {
+            return new OriginalSubmittedVariantEntity(accession, hash, model);
+        }
+    },
+
+    /**
+     * The assembly, taxonomy, project and contig reference {@code submitted_variant_term_entity}, and the hash is
+     * stored as 20 raw bytes. Databases with the original schema must be migrated first.
+     */
+    COMPACT {
+        @Override
+        public SubmittedVariantEntity newEntity(Long accession, String hash, ISubmittedVariant model) {
+            return new CompactSubmittedVariantEntity(accession, hash, model);
+        }
+    };
+
+    public abstract SubmittedVariantEntity newEntity(Long accession, String hash, ISubmittedVariant model);
+
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Checks that the table of the submitted variants has the schema selected with {@code accessioning.variant.schema}.
+ * The entities of one schema can't read or write the other one, so the application must not start if they don't match.
+ */
+public class SubmittedVariantSchemaCheck {
+
+    static final String MIGRATION_SCRIPT = "sql/postgresql/migrate-to-compact-submitted-variants.sql";
+
+    private static final String TABLE = "submitted_variant_entity";
+
+    private static final String ORIGINAL_COLUMN = "assembly_accession";
+
+    private static final String COMPACT_COLUMN = "assembly_id";
+
+    private SubmittedVariantSchemaCheck() {
+    }
+
+    /**
+     * @throws IllegalStateException If the submitted variants are stored with a schema other than {@code schema}
+     */
+    public static void check(DataSource dataSource, SubmittedVariantSchema schema) {
+        if (schema == SubmittedVariantSchema.COMPACT && hasColumn(dataSource, ORIGINAL_COLUMN)) {
+            throw new IllegalStateException(
+                    "The submitted variants are stored with the original schema. Either remove " +
+                            "accessioning.variant.schema=compact, or stop all the accessioning instances and migrate " +
+                            "the database with " + MIGRATION_SCRIPT + ", included in eva-accession-core");
+        }
+        if (schema == SubmittedVariantSchema.ORIGINAL && hasColumn(dataSource, COMPACT_COLUMN)) {
+            throw new IllegalStateException("The submitted variants are stored with the compact schema, which must " +
+                                                    "be selected with accessioning.variant.schema=compact");
+        }
+    }
+
+    private static boolean hasColumn(DataSource dataSource, String column) {
+        try {
+            return (Boolean) JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> hasColumn(metaData, column));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not check the schema of the submitted variants", e);
+        }
+    }
+
+    private static Boolean hasColumn(DatabaseMetaData metaData, String column) throws SQLException {
+        String table = TABLE;
+        if (metaData.storesUpperCaseIdentifiers()) {
+            table = table.toUpperCase();
+            column = column.toUpperCase();
+        }
+        try (ResultSet columns = metaData.getColumns(null, null, table, column)) {
+            return columns.next();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import java.util.Map;
+
+/**
+ * Compact schema of the submitted variants. To keep the table and its indexes small, the hash is stored as raw bytes,
+ * and the assembly, taxonomy, project and contig reference a {@link SubmittedVariantTermEntity} instead of repeating
+ * the strings in every row. The entities created from the strings have unsaved terms that must be resolved with a
+ * {@link SubmittedVariantTermDictionary} before saving them.
+ */
+@Entity
+@Table(name = "submitted_variant_entity",
+        indexes = {@Index(name = "submitted_variant_region_index",
+                columnList = "assembly_id,contig_id,start,accession")})
+public class CompactSubmittedVariantEntity extends SubmittedVariantEntity {
+
+    @Convert(converter = Sha1HashConverter.class)
+    @Column(nullable = false, unique = true, length = 20)
+    private String hashedMessage;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "assembly_id")
+    private SubmittedVariantTermEntity assembly;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "taxonomy_id")
+    private SubmittedVariantTermEntity taxonomy;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "project_id")
+    private SubmittedVariantTermEntity project;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "contig_id")
+    private SubmittedVariantTermEntity contig;
+
+    CompactSubmittedVariantEntity() {
+    }
+
+    public CompactSubmittedVariantEntity(Long accession, String hashedMessage, ISubmittedVariant model) {
+        this(accession, hashedMessage, model.getAssemblyAccession(), model.getTaxonomyAccession(),
+             model.getProjectAccession(), model.getContig(), model.getStart(), model.getReferenceAllele(),
+             model.getAlternateAllele(), model.isSupportedByEvidence());
+    }
+
+    public CompactSubmittedVariantEntity(Long accession, String hashedMessage, String assemblyAccession,
+                                         String taxonomyAccession, String projectAccession, String contig, long start,
+                                         String referenceAllele, String alternateAllele,
+                                         boolean isSupportedByEvidence) {
+        super(accession, start, referenceAllele, alternateAllele, isSupportedByEvidence);
+        this.hashedMessage = hashedMessage;
+        this.assembly = new SubmittedVariantTermEntity(assemblyAccession);
+        this.taxonomy = new SubmittedVariantTermEntity(taxonomyAccession);
+        this.project = new SubmittedVariantTermEntity(projectAccession);
+        this.contig = new SubmittedVariantTermEntity(contig);
+    }
+
+    /**
+     * Replaces the unsaved terms with the saved ones, by value
+     */
+    public void resolveTerms(Map<String, SubmittedVariantTermEntity> terms) {
+        this.assembly = terms.get(assembly.getTerm());
+        this.taxonomy = terms.get(taxonomy.getTerm());
+        this.project = terms.get(project.getTerm());
+        this.contig = terms.get(contig.getTerm());
+    }
+
+    @Override
+    public String getHashedMessage() {
+        return hashedMessage;
+    }
+
+    @Override
+    public String getAssemblyAccession() {
+        return assembly.getTerm();
+    }
+
+    @Override
+    public String getTaxonomyAccession() {
+        return taxonomy.getTerm();
+    }
+
+    @Override
+    public String getProjectAccession() {
+        return project.getTerm();
+    }
+
+    @Override
+    public String getContig() {
+        return contig.getTerm();
+    }
+
+    public SubmittedVariantTermEntity getAssembly() {
+        return assembly;
+    }
+
+    public SubmittedVariantTermEntity getTaxonomy() {
+        return taxonomy;
+    }
+
+    public SubmittedVariantTermEntity getProject() {
+        return project;
+    }
+
+    public SubmittedVariantTermEntity getContigTerm() {
+        return contig;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface CompactSubmittedVariantRepository
+        extends SubmittedVariantAccessioningRepository<CompactSubmittedVariantEntity> {
+
+    /**
+     * Builds detached entities directly from the columns, so that streaming millions of them does not fill the
+     * persistence context. The terms are joined explicitly, so that they can be used to filter and sort by their
+     * names instead of their ids.
+     */
+    String SELECT_DETACHED_VARIANTS = "select new " +
+            "uk.ac.ebi.eva.accession.core.persistence.compact.CompactSubmittedVariantEntity(" +
+            "v.accession, v.hashedMessage, assembly.term, taxonomy.term, project.term, contig.term, " +
+            "v.start, v.referenceAllele, v.alternateAllele, v.supportedByEvidence) " +
+            "from CompactSubmittedVariantEntity v join v.assembly assembly join v.taxonomy taxonomy " +
+            "join v.project project join v.contig contig ";
+
+    @Override
+    @Query("select v from CompactSubmittedVariantEntity v join fetch v.assembly assembly join fetch v.taxonomy " +
+            "join fetch v.project join fetch v.contig contig " +
+            "where assembly.term = ?1 and contig.term = ?2 and v.start >= ?3 and v.start <= ?5 " +
+            "and (v.start > ?3 or v.accession > ?4) " +
+            "order by v.start, v.accession")
+    List<CompactSubmittedVariantEntity> findRegionPage(String assemblyAccession, String contig, long lastStart,
+                                                       long lastAccession, long end, Pageable pageable);
+
+    @Override
+    @Query(SELECT_DETACHED_VARIANTS + "where assembly.term = ?1 order by contig.term, v.start, v.accession")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<CompactSubmittedVariantEntity> streamByAssembly(String assemblyAccession);
+
+    @Override
+    @Query(SELECT_DETACHED_VARIANTS + "where project.term = ?1 order by v.accession")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<CompactSubmittedVariantEntity> streamByProject(String projectAccession);
+
+}
@@ -0,0 +1,48 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Stores SHA-1 hashes, represented as 40 hexadecimal characters, as their 20 raw bytes, which halves the size of the
+ * column and of its unique index
+ */
+@Converter
+public class Sha1HashConverter implements AttributeConverter<String, byte[]> {
+
+    private static final int SHA1_LENGTH = 20;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String hash) {
+        if (hash == null) {
+            return null;
+        }
+        if (hash.length() != SHA1_LENGTH * 2) {
+            throw new IllegalArgumentException("'" + hash + "' is not a hexadecimal SHA-1 hash");
+        }
+        return DatatypeConverter.parseHexBinary(hash);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] hash) {
+        return hash == null ? null : DatatypeConverter.printHexBinary(hash);
+    }
+}
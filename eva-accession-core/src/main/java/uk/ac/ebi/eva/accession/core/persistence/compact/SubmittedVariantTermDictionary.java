@@ -0,0 +1,128 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the terms of the submitted variants into saved {@link SubmittedVariantTermEntity}, creating the missing
+ * ones. Every term is kept in memory once resolved, which is fine because there are few of them compared to the
+ * number of variants.
+ *
+ * New terms are saved in their own transactions, so they are visible to other instances even if the variants that
+ * use them are rolled back. If two instances create the same term at the same time, one of them will violate the
+ * unique constraint and then read the term saved by the other.
+ */
+public class SubmittedVariantTermDictionary {
+
+    private final SubmittedVariantTermRepository repository;
+
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final ConcurrentMap<String, SubmittedVariantTermEntity> terms;
+
+    public SubmittedVariantTermDictionary(SubmittedVariantTermRepository repository,
+                                          PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.terms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Replaces the unsaved terms of the entities with the saved ones
+     *
+     * @param entities {@link CompactSubmittedVariantEntity} instances
+     */
+    public void resolveTerms(List<? extends SubmittedVariantEntity> entities) {
+        Set<String> values = new HashSet<>();
+        for (SubmittedVariantEntity entity : entities) {
+            values.add(entity.getAssemblyAccession());
+            values.add(entity.getTaxonomyAccession());
+            values.add(entity.getProjectAccession());
+            values.add(entity.getContig());
+        }
+        Map<String, SubmittedVariantTermEntity> savedTerms = getOrCreate(values);
+        entities.forEach(entity -> ((CompactSubmittedVariantEntity) entity).resolveTerms(savedTerms));
+    }
+
+    public Map<String, SubmittedVariantTermEntity> getOrCreate(Collection<String> values) {
+        Map<String, SubmittedVariantTermEntity> savedTerms = find(values);
+        for (String value : values) {
+            if (!savedTerms.containsKey(value)) {
+                SubmittedVariantTermEntity term = create(value);
+                terms.put(value, term);
+                savedTerms.put(value, term);
+            }
+        }
+        return savedTerms;
+    }
+
+    /**
+     * @return The saved terms, without creating the missing ones
+     */
+    public Map<String, SubmittedVariantTermEntity> find(Collection<String> values) {
+        Map<String, SubmittedVariantTermEntity> savedTerms = new HashMap<>();
+        List<String> missingValues = new ArrayList<>();
+        for (String value : values) {
+            SubmittedVariantTermEntity term = terms.get(value);
+            if (term != null) {
+                savedTerms.put(value, term);
+            } else {
+                missingValues.add(value);
+            }
+        }
+        if (!missingValues.isEmpty()) {
+            List<SubmittedVariantTermEntity> storedTerms = newTransactionTemplate.execute(
+                    status -> repository.findByTermIn(missingValues));
+            for (SubmittedVariantTermEntity term : storedTerms) {
+                terms.put(term.getTerm(), term);
+                savedTerms.put(term.getTerm(), term);
+            }
+        }
+        return savedTerms;
+    }
+
+    private SubmittedVariantTermEntity create(String value) {
+        try {
+            return newTransactionTemplate.execute(
+                    status -> repository.save(new SubmittedVariantTermEntity(value)));
+        } catch (DataIntegrityViolationException e) {
+            SubmittedVariantTermEntity term = newTransactionTemplate.execute(status -> repository.findByTerm(value));
+            if (term == null) {
+                throw e;
+            }
+            return term;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+
+/**
+ * Dictionary of the low-cardinality strings of the submitted variants (assembly, taxonomy, project and contig), so
+ * that each variant only stores small integer ids that reference them.
+ */
+@Entity
+public class SubmittedVariantTermEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String term;
+
+    SubmittedVariantTermEntity() {
+    }
+
+    public SubmittedVariantTermEntity(String term) {
+        this(null, term);
+    }
+
+    public SubmittedVariantTermEntity(Integer id, String term) {
+        this.id = id;
+        this.term = term;
+    }
+
+    /**
+     * @return null if the term has not been saved yet
+     */
+    public Integer getId() {
+        return id;
+    }
+
+    public String getTerm() {
+        return term;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.original;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * Original schema of the submitted variants, which repeats the assembly, taxonomy, project and contig in every row and
+ * stores the hash as 40 hexadecimal characters
+ */
+@Entity
+@Table(name = "submitted_variant_entity",
+        indexes = {@Index(name = "submitted_variant_region_index",
+                columnList = "assembly_accession,contig,start,accession")})
+public class OriginalSubmittedVariantEntity extends SubmittedVariantEntity {
+
+    @Column(nullable = false, unique = true)
+    private String hashedMessage;
+
+    @Column(nullable = false)
+    private String assemblyAccession;
+
+    @Column(nullable = false)
+    private String taxonomyAccession;
+
+    @Column(nullable = false)
+    private String projectAccession;
+
+    @Column(nullable = false)
+    private String contig;
+
+    OriginalSubmittedVariantEntity() {
+    }
+
+    public OriginalSubmittedVariantEntity(Long accession, String hashedMessage, ISubmittedVariant model) {
+        this(accession, hashedMessage, model.getAssemblyAccession(), model.getTaxonomyAccession(),
+             model.getProjectAccession(), model.getContig(), model.getStart(), model.getReferenceAllele(),
+             model.getAlternateAllele(), model.isSupportedByEvidence());
+    }
+
+    public OriginalSubmittedVariantEntity(Long accession, String hashedMessage, String assemblyAccession,
+                                          String taxonomyAccession, String projectAccession, String contig,
+                                          long start, String referenceAllele, String alternateAllele,
+                                          boolean isSupportedByEvidence) {
+        super(accession, start, referenceAllele, alternateAllele, isSupportedByEvidence);
+        this.hashedMessage = hashedMessage;
+        this.assemblyAccession = assemblyAccession;
+        this.taxonomyAccession = taxonomyAccession;
+        this.projectAccession = projectAccession;
+        this.contig = contig;
+    }
+
+    @Override
+    public String getHashedMessage() {
+        return hashedMessage;
+    }
+
+    @Override
+    public String getAssemblyAccession() {
+        return assemblyAccession;
+    }
+
+    @Override
+    public String getTaxonomyAccession() {
+        return taxonomyAccession;
+    }
+
+    @Override
+    public String getProjectAccession() {
+        return projectAccession;
+    }
+
+    @Override
+    public String getContig() {
+        return contig;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.original;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface OriginalSubmittedVariantRepository
+        extends SubmittedVariantAccessioningRepository<OriginalSubmittedVariantEntity> {
+
+    @Override
+    @Query("select v from OriginalSubmittedVariantEntity v " +
+            "where v.assemblyAccession = ?1 and v.contig = ?2 and v.start >= ?3 and v.start <= ?5 " +
+            "and (v.start > ?3 or v.accession > ?4) " +
+            "order by v.start, v.accession")
+    List<OriginalSubmittedVariantEntity> findRegionPage(String assemblyAccession, String contig, long lastStart,
+                                                        long lastAccession, long end, Pageable pageable);
+
+    /**
+     * The entities are detached, so that streaming millions of them does not fill the persistence context
+     */
+    @Override
+    @Query("select new uk.ac.ebi.eva.accession.core.persistence.original.OriginalSubmittedVariantEntity(" +
+            "v.accession, v.hashedMessage, v.assemblyAccession, v.taxonomyAccession, v.projectAccession, v.contig, " +
+            "v.start, v.referenceAllele, v.alternateAllele, v.supportedByEvidence) " +
+            "from OriginalSubmittedVariantEntity v where v.assemblyAccession = ?1 " +
+            "order by v.contig, v.start, v.accession")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<OriginalSubmittedVariantEntity> streamByAssembly(String assemblyAccession);
+
+    /**
+     * The entities are detached, so that streaming millions of them does not fill the persistence context
+     */
+    @Override
+    @Query("select new uk.ac.ebi.eva.accession.core.persistence.original.OriginalSubmittedVariantEntity(" +
+            "v.accession, v.hashedMessage, v.assemblyAccession, v.taxonomyAccession, v.projectAccession, v.contig, " +
+            "v.start, v.referenceAllele, v.alternateAllele, v.supportedByEvidence) " +
+            "from OriginalSubmittedVariantEntity v where v.projectAccession = ?1 order by v.accession")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "10000"))
+    Stream<OriginalSubmittedVariantEntity> streamByProject(String projectAccession);
+
+}
@@ -0,0 +1,4 @@
+-- Index used to query the submitted variants by region in the original schema, for databases not migrated to the
+-- compact one yet. It can be created without stopping the accessioning.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS submitted_variant_region_index
+    ON submitted_variant_entity (assembly_accession, contig, start, accession);
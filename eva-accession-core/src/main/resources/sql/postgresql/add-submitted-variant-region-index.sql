@@ -0,0 +1,4 @@
+-- Index used to query the submitted variants by region in the compact schema. It can be created without stopping the
+-- accessioning.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS submitted_variant_region_index
+    ON submitted_variant_entity (assembly_id, contig_id, start, accession);
@@ -0,0 +1,57 @@
+-- Migrates the submitted variants from the original schema, where every row repeats the assembly, taxonomy, project
+-- and contig as strings and stores the hash as 40 hexadecimal characters, to the compact schema, where those fields
+-- reference submitted_variant_term_entity and the hash is stored as 20 raw bytes.
+--
+-- Stop all the accessioning instances before running it. The fixed-width columns go first to avoid alignment
+-- padding, and the constraints and indexes are created after copying the rows, which is much faster.
+
+BEGIN;
+
+CREATE TABLE submitted_variant_term_entity (
+    id serial PRIMARY KEY,
+    term varchar(255) NOT NULL UNIQUE
+);
+
+INSERT INTO submitted_variant_term_entity (term)
+    SELECT assembly_accession FROM submitted_variant_entity
+    UNION SELECT taxonomy_accession FROM submitted_variant_entity
+    UNION SELECT project_accession FROM submitted_variant_entity
+    UNION SELECT contig FROM submitted_variant_entity;
+
+ALTER TABLE submitted_variant_entity RENAME TO submitted_variant_entity_old;
+
+CREATE TABLE submitted_variant_entity (
+    accession bigint NOT NULL,
+    start bigint NOT NULL,
+    assembly_id integer NOT NULL,
+    taxonomy_id integer NOT NULL,
+    project_id integer NOT NULL,
+    contig_id integer NOT NULL,
+    supported_by_evidence boolean NOT NULL,
+    hashed_message bytea NOT NULL,
+    reference_allele varchar(255) NOT NULL,
+    alternate_allele varchar(255) NOT NULL
+);
+
+INSERT INTO submitted_variant_entity
+    SELECT v.accession, v.start, assembly.id, taxonomy.id, project.id, contig.id, v.supported_by_evidence,
+           decode(v.hashed_message, 'hex'), v.reference_allele, v.alternate_allele
+    FROM submitted_variant_entity_old v
+    JOIN submitted_variant_term_entity assembly ON assembly.term = v.assembly_accession
+    JOIN submitted_variant_term_entity taxonomy ON taxonomy.term = v.taxonomy_accession
+    JOIN submitted_variant_term_entity project ON project.term = v.project_accession
+    JOIN submitted_variant_term_entity contig ON contig.term = v.contig;
+
+ALTER TABLE submitted_variant_entity ADD PRIMARY KEY (accession);
+ALTER TABLE submitted_variant_entity ADD UNIQUE (hashed_message);
+ALTER TABLE submitted_variant_entity ADD FOREIGN KEY (assembly_id) REFERENCES submitted_variant_term_entity (id);
+ALTER TABLE submitted_variant_entity ADD FOREIGN KEY (taxonomy_id) REFERENCES submitted_variant_term_entity (id);
+ALTER TABLE submitted_variant_entity ADD FOREIGN KEY (project_id) REFERENCES submitted_variant_term_entity (id);
+ALTER TABLE submitted_variant_entity ADD FOREIGN KEY (contig_id) REFERENCES submitted_variant_term_entity (id);
+
+DROP TABLE submitted_variant_entity_old;
+
+COMMIT;
+
+ANALYZE submitted_variant_term_entity;
+ANALYZE submitted_variant_entity;
@@ -0,0 +1,150 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.service.ContiguousIdBlockService;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantSchema;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The insertion of a variant accessioned by another instance fails and is retried, so these tests do not run inside
+ * a transaction
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:accession-test.properties",
+        properties = "accessioning.variant.bloomFilterExpectedVariants=1000")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class,
+        SubmittedVariantAccessioningServiceBloomFilterInstancesTest.MeterRegistryConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SubmittedVariantAccessioningServiceBloomFilterInstancesTest {
+
+    @Configuration
+    static class MeterRegistryConfiguration {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Autowired
+    private ContiguousIdBlockService blockService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private final SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void variantsAccessionedByOtherInstancesAreFound() throws AccessionCouldNotBeGeneratedException {
+        List<ISubmittedVariant> variants = Collections.singletonList(
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 300, "ref", "alt", true));
+        String hash = hashingFunction.apply(variants.get(0));
+        long accession = createOtherInstanceService().getOrCreateAccessions(variants).getAccession(0);
+        assertFalse(databaseService.getBloomFilter().mightContain(hash));
+
+        assertEquals(Collections.singleton(accession), service.getOrCreateAccessions(variants).keySet());
+        assertTrue(databaseService.getBloomFilter().mightContain(hash));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    public void conflictsAreRetriedInsideATransaction() throws AccessionCouldNotBeGeneratedException {
+        ISubmittedVariant accessionedVariant = new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 400,
+                                                                    "ref", "alt", true);
+        ISubmittedVariant newVariant = new SubmittedVariant("assembly", "taxonomy", "project", "contig_2", 400, "ref",
+                                                            "alt", true);
+        long accession = createOtherInstanceService().getOrCreateAccessions(
+                Collections.singletonList(accessionedVariant)).getAccession(0);
+        long lookups = registry.find("accessioning.lookup").timer().count();
+        double bloomFilterNegatives = registry.find("accessioning.bloom.filter.negatives").counter().count();
+
+        List<Long> accessions = new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                return service.getOrCreateAccessionOfEach(Arrays.asList(accessionedVariant, newVariant));
+            } catch (AccessionCouldNotBeGeneratedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(2, accessions.size());
+        assertEquals(accession, (long) accessions.get(0));
+        assertNotEquals(accessions.get(0), accessions.get(1));
+        assertEquals(2, repository.count());
+        // the lookup of the retry is not counted again
+        assertEquals(lookups + 1, registry.find("accessioning.lookup").timer().count());
+        assertEquals(bloomFilterNegatives + 2,
+                     registry.find("accessioning.bloom.filter.negatives").counter().count(), 0);
+    }
+
+    private SubmittedVariantAccessioningService createOtherInstanceService() {
+        SubmittedVariantAccessioningDatabaseService otherDatabaseService =
+                new SubmittedVariantAccessioningDatabaseService(SubmittedVariantSchema.ORIGINAL, repository, null);
+        MonotonicAccessionGenerator<ISubmittedVariant> otherGenerator = new MonotonicAccessionGenerator<>(
+                1000, "test-ss", "other-test-instance", blockService, otherDatabaseService);
+        return new SubmittedVariantAccessioningService(otherGenerator, otherDatabaseService);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantHashBloomFilter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The new variants are inserted and committed in their own transaction, so these tests do not run inside one, and
+ * delete the variants they accessioned
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:accession-test.properties",
+        properties = "accessioning.variant.bloomFilterExpectedVariants=1000")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SubmittedVariantAccessioningServiceBloomFilterTest {
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void sameAccessionsAreReturnedForIdenticalVariants() throws AccessionCouldNotBeGeneratedException {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 100, "ref", "alt", true),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig_2", 100, "ref", "alt", true));
+
+        Map<Long, ISubmittedVariant> generatedAccessions = service.getOrCreateAccessions(variants);
+        Map<Long, ISubmittedVariant> retrievedAccessions = service.getOrCreateAccessions(variants);
+
+        assertEquals(generatedAccessions, retrievedAccessions);
+        SubmittedVariantHashBloomFilter bloomFilter = databaseService.getBloomFilter();
+        variants.forEach(variant -> assertTrue(bloomFilter.mightContain(hashingFunction.apply(variant))));
+    }
+
+    @Test
+    public void newVariantsAreNotFound() {
+        ISubmittedVariant variant = new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 100, "ref",
+                                                         "alt", true);
+
+        assertEquals(Collections.emptyMap(), databaseService.findAllAccessionsByHash(
+                Collections.singletonList(hashingFunction.apply(variant))));
+    }
+
+    @Test
+    public void filterCanBeLoadedFromTheDatabase() throws AccessionCouldNotBeGeneratedException {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 200, "ref", "alt", true),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig_2", 200, "ref", "alt", true));
+        service.getOrCreateAccessions(variants);
+
+        SubmittedVariantHashBloomFilter bloomFilter = new SubmittedVariantHashBloomFilter(1000, 0.01);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.execute(status -> {
+            try (Stream<String> hashes = repository.streamAllHashedMessages()) {
+                bloomFilter.putAll(hashes);
+            }
+            return null;
+        });
+
+        variants.forEach(variant -> assertTrue(bloomFilter.mightContain(hashingFunction.apply(variant))));
+    }
+}
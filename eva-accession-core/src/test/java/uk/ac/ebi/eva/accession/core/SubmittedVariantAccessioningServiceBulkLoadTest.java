@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * H2 does not support the PostgreSQL COPY protocol, so the variants must be inserted in batches instead
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:accession-test.properties", properties = "accessioning.variant.bulkLoad=true")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+public class SubmittedVariantAccessioningServiceBulkLoadTest {
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Test
+    public void variantsAreInsertedWithoutBulkLoading() throws AccessionCouldNotBeGeneratedException {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 100, "ref", "alt", true),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig_2", 100, "ref", "alt", true));
+
+        Map<Long, ISubmittedVariant> generatedAccessions = service.getOrCreateAccessions(variants);
+
+        assertEquals(2, repository.count());
+        assertEquals(generatedAccessions, service.getOrCreateAccessions(variants));
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void hashedMessagesMustBeUnique() {
+        ISubmittedVariant variant = new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 200, "ref",
+                                                         "alt", true);
+
+        String hash = new SubmittedVariantHashingFunction().apply(variant);
+
+        databaseService.insert(Arrays.asList(ModelHashAccession.of(variant, hash, 1L),
+                                             ModelHashAccession.of(variant, hash, 2L)));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * New variants are only counted when their insertion is committed, so these tests do not run inside a transaction
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:accession-test.properties", properties = "accessioning.variant.cacheSize=10")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class,
+        SubmittedVariantAccessioningServiceMetricsTest.MeterRegistryConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SubmittedVariantAccessioningServiceMetricsTest {
+
+    @Configuration
+    static class MeterRegistryConfiguration {
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void batchesAreMeasured() throws AccessionCouldNotBeGeneratedException {
+        ISubmittedVariant variant = new SubmittedVariant("assembly", "taxonomy", "project", "contig", 100, "ref",
+                                                         "alt", true);
+        List<ISubmittedVariant> variants = Arrays.asList(
+                variant, variant,
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", 200, "ref", "alt", true));
+
+        service.getOrCreateAccessions(variants);
+
+        assertEquals(3, countVariants("requested"), 0);
+        assertEquals(1, countVariants("duplicated"), 0);
+        assertEquals(2, countVariants("created"), 0);
+        assertEquals(0, countVariants("found"), 0);
+
+        service.getOrCreateAccessions(variants);
+
+        assertEquals(6, countVariants("requested"), 0);
+        assertEquals(2, countVariants("created"), 0);
+        assertEquals(2, countVariants("found"), 0);
+        assertEquals(2, registry.find("accessioning.cache.requests").tag("result", "hit").counter().count(), 0);
+        assertEquals(2, registry.find("accessioning.batch").timer().count());
+        assertEquals(2, registry.find("accessioning.batch.size").summary().count());
+        assertEquals(6, registry.find("accessioning.batch.size").summary().totalAmount(), 0);
+        assertEquals(1, registry.find("accessioning.insert").timer().count());
+    }
+
+    private double countVariants(String outcome) {
+        return registry.find("accessioning.variants").tag("outcome", outcome).counter().count();
+    }
+}
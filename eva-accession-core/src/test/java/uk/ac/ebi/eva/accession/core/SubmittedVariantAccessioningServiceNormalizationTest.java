@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The new variants are inserted and committed in their own transaction, so these tests do not run inside one, and
+ * delete the variants they accessioned
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:accession-test.properties",
+        properties = "accessioning.variant.normalizeAlleles=true")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SubmittedVariantAccessioningServiceNormalizationTest {
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void equivalentRepresentationsGetTheSameAccession() throws AccessionCouldNotBeGeneratedException {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", 100, "A", "AT", true),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", 100, "a", "at", true),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", 101, "", "T", true));
+
+        List<Long> accessions = service.getOrCreateAccessionOfEach(variants);
+
+        assertEquals(1, repository.count());
+        assertEquals(Arrays.asList(accessions.get(0), accessions.get(0), accessions.get(0)), accessions);
+        Map<Long, ISubmittedVariant> accessionedVariants = service.getOrCreateAccessions(variants.subList(0, 1));
+        assertEquals(new SubmittedVariant("assembly", "taxonomy", "project", "contig", 101, "", "T", true),
+                     new SubmittedVariant(accessionedVariants.get(accessions.get(0))));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The partitions are accessioned in their own transactions, so these tests do not run inside one
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:accession-test.properties", properties = "accessioning.variant.parallelism=4")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SubmittedVariantAccessioningServiceParallelTest {
+
+    private static final int TOTAL_VARIANTS = 4 * SubmittedVariantAccessioningService.MIN_PARTITION_SIZE;
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void partitionedBatchGetsOneAccessionPerVariant() throws AccessionCouldNotBeGeneratedException {
+        List<ISubmittedVariant> variants = getVariants(0, TOTAL_VARIANTS);
+        // repeated variants are accessioned once
+        variants.addAll(getVariants(0, 10));
+
+        Map<Long, ISubmittedVariant> accessions = service.getOrCreateAccessions(variants);
+
+        assertEquals(TOTAL_VARIANTS, accessions.size());
+        assertEquals(new HashSet<>(variants), new HashSet<>(accessions.values()));
+        assertEquals(TOTAL_VARIANTS, repository.count());
+        assertEquals(accessions, service.getOrCreateAccessions(variants));
+        assertEquals(TOTAL_VARIANTS, repository.count());
+    }
+
+    @Test
+    public void overlappingBatchesAccessionedConcurrentlyGetTheSameAccessions() throws Exception {
+        List<ISubmittedVariant> firstBatch = getVariants(0, TOTAL_VARIANTS);
+        List<ISubmittedVariant> secondBatch = getVariants(TOTAL_VARIANTS / 2, TOTAL_VARIANTS * 3 / 2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<Map<Long, ISubmittedVariant>> firstTask = () -> service.getOrCreateAccessions(firstBatch);
+            Callable<Map<Long, ISubmittedVariant>> secondTask = () -> service.getOrCreateAccessions(secondBatch);
+            Future<Map<Long, ISubmittedVariant>> first = executor.submit(firstTask);
+            Future<Map<Long, ISubmittedVariant>> second = executor.submit(secondTask);
+
+            Map<ISubmittedVariant, Long> variantAccessions = new HashMap<>();
+            for (Future<Map<Long, ISubmittedVariant>> future : new Future[]{first, second}) {
+                for (Map.Entry<Long, ISubmittedVariant> accession : future.get().entrySet()) {
+                    Long previousAccession = variantAccessions.put(accession.getValue(), accession.getKey());
+                    if (previousAccession != null) {
+                        assertEquals(previousAccession, accession.getKey());
+                    }
+                }
+            }
+            assertEquals(TOTAL_VARIANTS * 3 / 2, variantAccessions.size());
+            assertEquals(TOTAL_VARIANTS * 3 / 2, repository.count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<ISubmittedVariant> getVariants(int firstStart, int lastStart) {
+        List<ISubmittedVariant> variants = new ArrayList<>();
+        for (int start = firstStart; start < lastStart; start++) {
+            variants.add(new SubmittedVariant("assembly", "taxonomy", "project", "contig", start, "ref", "alt", true));
+        }
+        return variants;
+    }
+}
@@ -16,6 +16,7 @@
 
 package uk.ac.ebi.eva.accession.core;
 
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,39 +24,94 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
 
 import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.core.persistence.original.OriginalSubmittedVariantEntity;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
+/**
+ * The new variants are inserted and committed in their own transaction, so these tests do not run inside one, and
+ * delete the variants they accessioned
+ */
 @RunWith(SpringRunner.class)
 @DataJpaTest
 @TestPropertySource("classpath:accession-test.properties")
 @ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
 public class SubmittedVariantAccessioningServiceTest {
 
     @Autowired
     SubmittedVariantAccessioningService service;
 
+    @Autowired
+    SubmittedVariantAccessioningRepository<?> repository;
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
     @Test
     public void sameAccessionsAreReturnedForIdenticalVariants() throws AccessionCouldNotBeGeneratedException {
         List<SubmittedVariantEntity> variants = Arrays.asList(
-                new SubmittedVariantEntity(null, null, "assembly", "taxonomy",
-                                           "project", "contig_1", 100, "ref",
-                                           "alt", true),
-                new SubmittedVariantEntity(null, null, "assembly", "taxonomy",
-                                           "project", "contig_2", 100, "ref",
-                                           "alt", true));
+                new OriginalSubmittedVariantEntity(null, null, "assembly", "taxonomy",
+                                                   "project", "contig_1", 100, "ref",
+                                                   "alt", true),
+                new OriginalSubmittedVariantEntity(null, null, "assembly", "taxonomy",
+                                                   "project", "contig_2", 100, "ref",
+                                                   "alt", true));
 
         Map<Long, ISubmittedVariant> generatedAccessions = service.getOrCreateAccessions(variants);
         Map<Long, ISubmittedVariant> retrievedAccessions = service.getOrCreateAccessions(variants);
 
         assertEquals(generatedAccessions, retrievedAccessions);
     }
+
+    @Test
+    public void accessionsAreReturnedForEachRepeatedVariant() throws AccessionCouldNotBeGeneratedException {
+        ISubmittedVariant variant1 = new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 200, "ref",
+                                                          "alt", true);
+        ISubmittedVariant variant2 = new SubmittedVariant("assembly", "taxonomy", "project", "contig_2", 200, "ref",
+                                                          "alt", true);
+        // evidence is not part of the identity of a variant
+        ISubmittedVariant variant1WithoutEvidence = new SubmittedVariant("assembly", "taxonomy", "project",
+                                                                         "contig_1", 200, "ref", "alt", false);
+
+        List<Long> accessions = service.getOrCreateAccessionOfEach(
+                Arrays.asList(variant1, variant2, variant1, variant1WithoutEvidence, variant2));
+
+        assertEquals(5, accessions.size());
+        assertNotEquals(accessions.get(0), accessions.get(1));
+        assertEquals(Arrays.asList(accessions.get(0), accessions.get(1), accessions.get(0), accessions.get(0),
+                                   accessions.get(1)), accessions);
+        assertEquals(Arrays.asList(accessions.get(1), accessions.get(0)),
+                     service.getOrCreateAccessionOfEach(Arrays.asList(variant2, variant1)));
+    }
+
+    @Test
+    public void findAccessionsDoesNotCreateAccessions() throws AccessionCouldNotBeGeneratedException {
+        ISubmittedVariant variant1 = new SubmittedVariant("assembly", "taxonomy", "project", "contig_1", 300, "ref",
+                                                          "alt", true);
+        ISubmittedVariant variant2 = new SubmittedVariant("assembly", "taxonomy", "project", "contig_2", 300, "ref",
+                                                          "alt", true);
+        assertTrue(service.findAccessions(Arrays.asList(variant1, variant2)).isEmpty());
+
+        Map<Long, ISubmittedVariant> generatedAccessions = service.getOrCreateAccessions(Arrays.asList(variant1));
+        Map<Long, ISubmittedVariant> foundAccessions = service.findAccessions(Arrays.asList(variant1, variant2));
+
+        assertEquals(generatedAccessions.keySet(), foundAccessions.keySet());
+        assertTrue(service.findAccessions(Arrays.asList(variant2)).isEmpty());
+    }
 }
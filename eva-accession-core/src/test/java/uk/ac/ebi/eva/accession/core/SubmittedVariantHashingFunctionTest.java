@@ -0,0 +1,111 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.Test;
+import uk.ac.ebi.ampt2d.commons.accession.hashing.SHA1HashingFunction;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubmittedVariantHashingFunctionTest {
+
+    private final Function<ISubmittedVariant, String> summaryFunction = new SubmittedVariantModelSummaryFunction();
+
+    private final Function<String, String> hashingFunction = new SHA1HashingFunction();
+
+    private final SubmittedVariantHashingFunction submittedVariantHashingFunction =
+            new SubmittedVariantHashingFunction();
+
+    @Test
+    public void sameHashAsSummaryAndSha1() {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("GCA_000001405.27", "9606", "PRJEB1", "1", 1000, "A", "T", true),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", 0, "", "TTT", false),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", -12, "ref", "alt", false),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", Long.MIN_VALUE, "A", "C", false),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", Long.MAX_VALUE, "A", "C", false),
+                new SubmittedVariant(null, "taxonomy", null, "contig", 1, null, "C", false),
+                new SubmittedVariant("assembly", "taxonomy", "project", "contig", 1, repeat("ACGT", 500),
+                                     repeat("T", 1000), false));
+
+        for (ISubmittedVariant variant : variants) {
+            String expectedHash = hashingFunction.apply(summaryFunction.apply(variant));
+            assertEquals(variant.toString(), expectedHash, submittedVariantHashingFunction.apply(variant));
+        }
+    }
+
+    @Test
+    public void sameHashForNonAsciiValuesWithDefaultCharset() {
+        ISubmittedVariant variant = createNonAsciiVariant();
+
+        assertEquals(hashingFunction.apply(summaryFunction.apply(variant)),
+                     submittedVariantHashingFunction.apply(variant));
+    }
+
+    @Test
+    public void sameHashForNonAsciiValuesWithAnyCharset() throws NoSuchAlgorithmException {
+        ISubmittedVariant variant = createNonAsciiVariant();
+        String summary = summaryFunction.apply(variant);
+
+        for (Charset charset : Arrays.asList(StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1,
+                                             Charset.forName("windows-1252"), StandardCharsets.UTF_16)) {
+            byte[] expectedHash = MessageDigest.getInstance("SHA-1").digest(summary.getBytes(charset));
+            assertEquals(charset.name(), toHex(expectedHash),
+                         new SubmittedVariantHashingFunction(charset).apply(variant));
+        }
+    }
+
+    private ISubmittedVariant createNonAsciiVariant() {
+        return new SubmittedVariant("assembly", "taxonomy", "project", "c\u00f3ntig_\u00f1", 1, "A", "\u03b1C",
+                                    false);
+    }
+
+    @Test
+    public void rawHashMatchesHexadecimalHash() {
+        ISubmittedVariant variant = new SubmittedVariant("assembly", "taxonomy", "project", "contig", 100, "A", "T",
+                                                         true);
+        byte[] rawHash = new byte[20];
+        submittedVariantHashingFunction.apply(variant, rawHash);
+
+        assertEquals(submittedVariantHashingFunction.apply(variant), toHex(rawHash));
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder hexHash = new StringBuilder();
+        for (byte b : hash) {
+            hexHash.append(String.format("%02X", b));
+        }
+        return hexHash.toString();
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package uk.ac.ebi.eva.accession.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SubmittedVariantNormalizerTest {
+
+    private final SubmittedVariantNormalizer normalizer = new SubmittedVariantNormalizer();
+
+    @Test
+    public void normalizedVariantIsNotChanged() {
+        ISubmittedVariant variant = variant(100, "A", "T");
+        assertSame(variant, normalizer.apply(variant));
+    }
+
+    @Test
+    public void allelesAreUppercased() {
+        assertEquals(variant(100, "A", "T"), normalizer.apply(variant(100, "a", "t")));
+    }
+
+    @Test
+    public void sharedBasesAreRemovedFromTheEndFirst() {
+        assertEquals(variant(100, "T", ""), normalizer.apply(variant(100, "TTA", "TA")));
+        assertEquals(variant(100, "C", "G"), normalizer.apply(variant(100, "CAT", "GAT")));
+    }
+
+    @Test
+    public void sharedBasesAreRemovedFromTheStart() {
+        assertEquals(variant(101, "", "T"), normalizer.apply(variant(100, "A", "AT")));
+        assertEquals(variant(102, "C", "G"), normalizer.apply(variant(100, "aaC", "AAg")));
+    }
+
+    @Test
+    public void symbolicAllelesAreNotChanged() {
+        ISubmittedVariant symbolic = variant(100, "A", "<DEL>");
+        assertSame(symbolic, normalizer.apply(symbolic));
+        ISubmittedVariant breakend = variant(100, "A", "A[2:321[");
+        assertSame(breakend, normalizer.apply(breakend));
+    }
+
+    @Test
+    public void identicalAllelesAreNotChanged() {
+        ISubmittedVariant variant = variant(100, "AT", "AT");
+        assertSame(variant, normalizer.apply(variant));
+    }
+
+    private ISubmittedVariant variant(long start, String reference, String alternate) {
+        return new SubmittedVariant("assembly", "taxonomy", "project", "contig", start, reference, alternate, true);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.io;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.accession.core.persistence.original.OriginalSubmittedVariantEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubmittedVariantVcfWriterTest {
+
+    @Test
+    public void headerAndOneLinePerVariant() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (SubmittedVariantWriter writer = new SubmittedVariantVcfWriter(outputStream)) {
+            writer.write(new OriginalSubmittedVariantEntity(1L, null, "GCA_1", "9606", "PRJEB1", "1",
+                                                            100, "A", "T", true));
+            writer.write(new OriginalSubmittedVariantEntity(2L, null, "GCA_1", "9606", "PRJEB1", "2",
+                                                            200, "C", "G", false));
+        }
+
+        assertEquals(SubmittedVariantVcfWriter.HEADER +
+                             "1\t100\tss1\tA\tT\t.\t.\tASSEMBLY=GCA_1;TAXONOMY=9606;PROJECT=PRJEB1;EVIDENCE\n" +
+                             "2\t200\tss2\tC\tG\t.\t.\tASSEMBLY=GCA_1;TAXONOMY=9606;PROJECT=PRJEB1\n",
+                     new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
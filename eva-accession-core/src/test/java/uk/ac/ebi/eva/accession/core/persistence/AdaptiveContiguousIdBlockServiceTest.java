@@ -0,0 +1,159 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.entities.ContiguousIdBlock;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.repositories.ContiguousIdBlockRepository;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Blocks are reserved in their own transactions, so these tests do not run inside one
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(value = "classpath:accession-test.properties", properties = {
+        "accessioning.variant.maxBlockSize=4000", "accessioning.variant.prefetchBlocks=true"})
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class AdaptiveContiguousIdBlockServiceTest {
+
+    private static final String CATEGORY_ID = "adaptive-test";
+
+    private static final String INSTANCE_ID = "instance";
+
+    @Autowired
+    private ContiguousIdBlockRepository blockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SubmittedVariantAccessioningService accessioningService;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> accessioningRepository;
+
+    @After
+    public void tearDown() {
+        accessioningRepository.deleteAll();
+    }
+
+    @Test
+    public void blockSizeGrowsWhenBlocksAreUsedQuickly() {
+        AdaptiveContiguousIdBlockService service = new AdaptiveContiguousIdBlockService(
+                blockRepository, transactionManager, 10, 80, TimeUnit.MINUTES.toMillis(1), false);
+
+        List<ContiguousIdBlock> blocks = reserveBlocks(service, 10, 5);
+
+        assertBlockSizes(blocks, 10, 10, 20, 40, 80);
+        assertEquals(5, service.getReservations());
+        assertEquals(80, service.getCurrentBlockSize());
+    }
+
+    @Test
+    public void blockSizeShrinksWhenBlocksLastLong() throws InterruptedException {
+        AdaptiveContiguousIdBlockService service = new AdaptiveContiguousIdBlockService(
+                blockRepository, transactionManager, 10, 80, 1, false);
+
+        List<ContiguousIdBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            blocks.add(service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, 80));
+            Thread.sleep(10);
+        }
+
+        assertBlockSizes(blocks, 80, 80, 40);
+        assertEquals(20, service.getCurrentBlockSize());
+    }
+
+    @Test
+    public void nextBlockIsPrefetched() {
+        AdaptiveContiguousIdBlockService service = new AdaptiveContiguousIdBlockService(
+                blockRepository, transactionManager, 10, 10, TimeUnit.MINUTES.toMillis(1), true);
+
+        List<ContiguousIdBlock> blocks = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            // a category of its own, so that the blocks of other tests are not counted as unused
+            blocks.add(service.reserveNewBlock("prefetch-test", INSTANCE_ID, 10));
+        }
+        long unusedIds = service.shutdown();
+
+        assertBlockSizes(blocks, 10, 10);
+        assertEquals(1, service.getPrefetchedReservations());
+        assertEquals(3, service.getReservations());
+        assertTrue(service.getMaxReservationTime(TimeUnit.NANOSECONDS) > 0);
+        // the two blocks handed out and the prefetched one are unused
+        assertEquals(30, unusedIds);
+    }
+
+    @Test
+    public void accessionsSpanPrefetchedBlocks() throws Exception {
+        List<ISubmittedVariant> variants = new ArrayList<>();
+        for (int start = 0; start < 2500; start++) {
+            variants.add(new SubmittedVariant("assembly", "taxonomy", "project", "contig", start, "ref", "alt",
+                                              true));
+        }
+
+        Map<Long, ISubmittedVariant> accessions = accessioningService.getOrCreateAccessions(variants);
+
+        assertEquals(2500, accessions.size());
+        assertEquals(2500, accessioningRepository.count());
+        assertEquals(accessions, accessioningService.getOrCreateAccessions(variants));
+    }
+
+    private List<ContiguousIdBlock> reserveBlocks(AdaptiveContiguousIdBlockService service, long size, int blocks) {
+        List<ContiguousIdBlock> reservedBlocks = new ArrayList<>();
+        for (int i = 0; i < blocks; i++) {
+            reservedBlocks.add(service.reserveNewBlock(CATEGORY_ID, INSTANCE_ID, size));
+        }
+        return reservedBlocks;
+    }
+
+    private void assertBlockSizes(List<ContiguousIdBlock> blocks, long... sizes) {
+        assertEquals(sizes.length, blocks.size());
+        for (int i = 0; i < sizes.length; i++) {
+            ContiguousIdBlock block = blocks.get(i);
+            assertEquals(sizes[i], block.getLastValue() - block.getFirstValue() + 1);
+            if (i > 0) {
+                assertTrue(block.getFirstValue() > blocks.get(i - 1).getLastValue());
+            }
+        }
+    }
+}
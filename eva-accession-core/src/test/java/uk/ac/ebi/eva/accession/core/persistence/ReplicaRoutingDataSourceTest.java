@@ -0,0 +1,163 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The primary database and the replica are two in-memory H2 databases. The replication is simulated by copying the
+ * primary into the replica, and the lag by accessioning variants after that. The accessioning runs in its own
+ * transactions, so these tests do not run inside one.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(value = "classpath:accession-test.properties", properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "accessioning.replica.urls=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "accessioning.replica.username=sa"})
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReplicaRoutingDataSourceTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate replica;
+
+    @Before
+    public void setUp() {
+        replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replicate();
+    }
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    private void replicate() {
+        List<String> script = new JdbcTemplate(dataSource).queryForList("SCRIPT", String.class);
+        replica.execute("DROP ALL OBJECTS");
+        script.forEach(replica::execute);
+    }
+
+    @Test
+    public void dataSourceIsWrapped() {
+        assertTrue(dataSource instanceof ReplicaRoutingDataSource);
+        assertEquals(1, ((ReplicaRoutingDataSource) dataSource).getNumberOfReplicas());
+    }
+
+    @Test
+    public void accessionsNotReplicatedYetAreReadFromThePrimary() throws AccessionCouldNotBeGeneratedException {
+        ISubmittedVariant replicatedVariant = createVariant("contig_1");
+        long replicatedAccession = getOrCreateAccession(replicatedVariant);
+        replicate();
+        // only the replica tells apart the replicated variant
+        replica.update("update submitted_variant_entity set supported_by_evidence = false where accession = ?",
+                       replicatedAccession);
+        long newAccession = getOrCreateAccession(createVariant("contig_2"));
+
+        Map<Long, ISubmittedVariant> variants = service.getByAccessions(Arrays.asList(replicatedAccession,
+                                                                                      newAccession));
+
+        assertEquals(2, variants.size());
+        assertFalse(variants.get(replicatedAccession).isSupportedByEvidence());
+        assertTrue(variants.get(newAccession).isSupportedByEvidence());
+    }
+
+    @Test
+    public void accessioningReadsFromThePrimary() throws AccessionCouldNotBeGeneratedException {
+        ISubmittedVariant variant = createVariant("contig_1");
+        long accession = getOrCreateAccession(variant);
+
+        assertEquals(accession, getOrCreateAccession(variant));
+        assertEquals(1, repository.count());
+        // lookups by hash are served by the replica, which has not received the variant yet
+        assertTrue(service.findAccessions(Collections.singletonList(variant)).isEmpty());
+        replicate();
+        assertEquals(Collections.singleton(accession),
+                     service.findAccessions(Collections.singletonList(variant)).keySet());
+    }
+
+    @Test
+    public void transactionsStartedBeforeReadingFromTheReplicaUseThePrimary()
+            throws AccessionCouldNotBeGeneratedException {
+        ISubmittedVariant variant = createVariant("contig_1");
+        long accession = getOrCreateAccession(variant);
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        // the replica lags behind, but the transaction was started on the primary
+        assertTrue(service.findAccessions(Collections.singletonList(variant)).isEmpty());
+        assertEquals(Collections.singleton(accession), readOnlyTransaction.execute(
+                status -> service.findAccessions(Collections.singletonList(variant)).keySet()));
+    }
+
+    private long getOrCreateAccession(ISubmittedVariant variant) throws AccessionCouldNotBeGeneratedException {
+        return service.getOrCreateAccessions(Collections.singletonList(variant)).getAccession(0);
+    }
+
+    private ISubmittedVariant createVariant(String contig) {
+        return new SubmittedVariant("assembly", "taxonomy", "project", contig, 100, "ref", "alt", true);
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SubmittedVariantAccessionCacheTest {
+
+    private static final ISubmittedVariant VARIANT = new SubmittedVariant("assembly", "taxonomy", "project", "contig",
+                                                                          100, "A", "T", true);
+
+    @Test
+    public void returnCachedVariantsAndMissingHashes() {
+        SubmittedVariantAccessionCache cache = new SubmittedVariantAccessionCache(10);
+        cache.put("hash1", 1L, VARIANT);
+
+        Map<Long, ISubmittedVariant> accessionedVariants = new HashMap<>();
+        List<String> missingHashes = cache.getAll(Arrays.asList("hash1", "hash2"), accessionedVariants);
+
+        assertEquals(Collections.singletonMap(1L, VARIANT), accessionedVariants);
+        assertEquals(Collections.singletonList("hash2"), missingHashes);
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(1, cache.getStats().missCount());
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        SubmittedVariantAccessionCache cache = new SubmittedVariantAccessionCache(10);
+        for (long accession = 0; accession < 100; accession++) {
+            cache.put("hash" + accession, accession, VARIANT);
+        }
+
+        assertTrue(cache.size() <= 10);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import io.micrometer.core.instrument.Metrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+import uk.ac.ebi.ampt2d.commons.accession.generators.monotonic.MonotonicAccessionGenerator;
+import uk.ac.ebi.ampt2d.commons.accession.persistence.monotonic.service.ContiguousIdBlockService;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.metrics.AccessioningMetrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The index reads committed variants, so these tests do not run inside a transaction
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource("classpath:accession-test.properties")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SubmittedVariantAccessionIndexTest {
+
+    private static final String CATEGORY_ID = "test-ss";
+
+    /**
+     * Smaller than the batches, so that refreshing merges several runs
+     */
+    private static final int RUN_SIZE = 3;
+
+    private static final long INACTIVE_BLOCK_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Autowired
+    private SubmittedVariantAccessioningService accessioningService;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private ContiguousIdBlockService blockService;
+
+    private SubmittedVariantHashingFunction hashingFunction;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        hashingFunction = new SubmittedVariantHashingFunction();
+        directory = temporaryFolder.newFolder().toPath();
+    }
+
+    @After
+    public void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    public void accessionedVariantsAreIndexed() throws Exception {
+        Map<Long, ISubmittedVariant> accessions = accessioningService.getOrCreateAccessions(createVariants(0, 10));
+        SubmittedVariantAccessionIndex index = createIndex();
+
+        index.refresh();
+
+        assertEquals(10, index.size());
+        assertIndexed(index, accessions);
+        assertEquals(SubmittedVariantAccessionIndex.NOT_FOUND,
+                     index.getAccession(hashingFunction.apply(createVariants(10, 1).get(0))));
+    }
+
+    @Test
+    public void refreshAddsNewVariants() throws Exception {
+        Map<Long, ISubmittedVariant> accessions = accessioningService.getOrCreateAccessions(createVariants(0, 10));
+        SubmittedVariantAccessionIndex index = createIndex();
+        index.refresh();
+
+        accessions.putAll(accessioningService.getOrCreateAccessions(createVariants(5, 10)));
+        assertEquals(15, accessions.size());
+        index.refresh();
+
+        assertEquals(15, index.size());
+        assertIndexed(index, accessions);
+        assertEquals(1, countIndexFiles());
+    }
+
+    @Test
+    public void indexIsReopenedFromItsDirectory() throws Exception {
+        Map<Long, ISubmittedVariant> accessions = accessioningService.getOrCreateAccessions(createVariants(0, 10));
+        createIndex().refresh();
+
+        SubmittedVariantAccessionIndex reopenedIndex = createIndex();
+
+        assertEquals(10, reopenedIndex.size());
+        assertIndexed(reopenedIndex, accessions);
+    }
+
+    @Test
+    public void databaseServiceLooksUpTheIndexFirst() throws Exception {
+        SubmittedVariantAccessionIndex index = createIndex();
+        SubmittedVariantAccessioningDatabaseService databaseService = new SubmittedVariantAccessioningDatabaseService(
+                SubmittedVariantSchema.ORIGINAL, repository, null, null, null, index, null, null,
+                new AccessioningMetrics(Metrics.globalRegistry));
+        ISubmittedVariant indexedVariant = createVariants(0, 1).get(0);
+        ISubmittedVariant newVariant = createVariants(1, 1).get(0);
+        long indexedAccession = accessioningService.getOrCreateAccessions(
+                Collections.singletonList(indexedVariant)).keySet().iterator().next();
+        index.refresh();
+        long newAccession = accessioningService.getOrCreateAccessions(
+                Collections.singletonList(newVariant)).keySet().iterator().next();
+
+        Map<String, Long> foundAccessions = databaseService.findAccessionsOfHashes(
+                Stream.of(indexedVariant, newVariant).map(hashingFunction).collect(Collectors.toList()));
+
+        assertEquals(2, foundAccessions.size());
+        assertEquals(indexedAccession, (long) foundAccessions.get(hashingFunction.apply(indexedVariant)));
+        assertEquals(newAccession, (long) foundAccessions.get(hashingFunction.apply(newVariant)));
+    }
+
+    @Test
+    public void accessionsCommittedOutOfOrderAreIndexed() throws Exception {
+        MonotonicAccessionGenerator<ISubmittedVariant> generator = createGenerator("other-instance");
+        long[] accessions = generator.generateAccessions(2);
+        List<ISubmittedVariant> variants = createVariants(0, 2);
+        insert(generator, variants.get(1), accessions[1]);
+        SubmittedVariantAccessionIndex index = createIndex(INACTIVE_BLOCK_MILLIS);
+        index.refresh();
+
+        insert(generator, variants.get(0), accessions[0]);
+        index.refresh();
+
+        assertEquals(2, index.size());
+        assertEquals(accessions[0], index.getAccession(hashingFunction.apply(variants.get(0))));
+    }
+
+    @Test
+    public void inactiveBlocksAreReadAgainWhenTheyChange() throws Exception {
+        MonotonicAccessionGenerator<ISubmittedVariant> generator = createGenerator("other-instance");
+        long[] accessions = generator.generateAccessions(3);
+        List<ISubmittedVariant> variants = createVariants(0, 3);
+        insert(generator, variants.get(0), accessions[0]);
+        SubmittedVariantAccessionIndex index = createIndex(0);
+        index.refresh();
+
+        // the block is not in flight anymore, so a variant committed without changing it is not read
+        databaseService.insert(Collections.singletonList(
+                ModelHashAccession.of(variants.get(1), hashingFunction.apply(variants.get(1)), accessions[1])));
+        Thread.sleep(1);
+        index.refresh();
+        assertEquals(1, index.size());
+
+        insert(generator, variants.get(2), accessions[2]);
+        index.refresh();
+
+        assertEquals(3, index.size());
+        assertEquals(accessions[1], index.getAccession(hashingFunction.apply(variants.get(1))));
+        assertEquals(accessions[2], index.getAccession(hashingFunction.apply(variants.get(2))));
+    }
+
+    private MonotonicAccessionGenerator<ISubmittedVariant> createGenerator(String instanceId) {
+        return new MonotonicAccessionGenerator<>(1000, CATEGORY_ID, instanceId, blockService, databaseService);
+    }
+
+    private void insert(MonotonicAccessionGenerator<ISubmittedVariant> generator, ISubmittedVariant variant,
+                        long accession) {
+        databaseService.insert(Collections.singletonList(
+                ModelHashAccession.of(variant, hashingFunction.apply(variant), accession)));
+        generator.commit(accession);
+    }
+
+    private SubmittedVariantAccessionIndex createIndex() throws IOException {
+        return createIndex(INACTIVE_BLOCK_MILLIS);
+    }
+
+    private SubmittedVariantAccessionIndex createIndex(long inactiveBlockMillis) throws IOException {
+        return new SubmittedVariantAccessionIndex(directory, repository, transactionManager, CATEGORY_ID, RUN_SIZE,
+                                                  inactiveBlockMillis);
+    }
+
+    private List<ISubmittedVariant> createVariants(int first, int count) {
+        List<ISubmittedVariant> variants = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            variants.add(new SubmittedVariant("ASMACC01", "TAXACC01", "PROJACC01", "CHROM1", 1000 + i, "A", "T",
+                                              false));
+        }
+        return variants;
+    }
+
+    private void assertIndexed(SubmittedVariantAccessionIndex index, Map<Long, ISubmittedVariant> accessions) {
+        for (Map.Entry<Long, ISubmittedVariant> accession : accessions.entrySet()) {
+            assertEquals((long) accession.getKey(), index.getAccession(hashingFunction.apply(accession.getValue())));
+        }
+    }
+
+    private long countIndexFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(locations = "classpath:accession-test.properties",
+        properties = {"spring.jpa.properties.hibernate.jdbc.batch_size=100",
+                "spring.jpa.properties.hibernate.generate_statistics=true"})
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+public class SubmittedVariantAccessioningDatabaseServiceBatchInsertTest {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final int TOTAL_VARIANTS = 1000;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private final SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void newAccessionsAreInsertedInBatchesWithoutPreviousSelects() {
+        List<ModelHashAccession<ISubmittedVariant, String, Long>> accessions = new ArrayList<>();
+        for (long accession = 1; accession <= TOTAL_VARIANTS; accession++) {
+            ISubmittedVariant variant = variant(accession);
+            accessions.add(ModelHashAccession.of(variant, hashingFunction.apply(variant), accession));
+        }
+
+        databaseService.insert(accessions);
+        testEntityManager.flush();
+
+        assertEquals(TOTAL_VARIANTS, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        long preparedStatements = statistics.getPrepareStatementCount();
+        assertTrue("Expected at most " + TOTAL_VARIANTS / BATCH_SIZE + " statements, but " + preparedStatements +
+                           " were prepared", preparedStatements <= TOTAL_VARIANTS / BATCH_SIZE);
+        assertEquals(TOTAL_VARIANTS, repository.count());
+    }
+
+    @Test
+    public void loadedEntitiesAreNotNew() {
+        ISubmittedVariant variant = variant(1);
+        databaseService.insert(Collections.singletonList(
+                ModelHashAccession.of(variant, hashingFunction.apply(variant), 1L)));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        SubmittedVariantEntity loaded = repository.findOne(1L);
+
+        assertEquals(false, loaded.isNew());
+    }
+
+    private ISubmittedVariant variant(long start) {
+        return new SubmittedVariant("assembly", "taxonomy", "project", "contig", start, "A", "T", true);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.accession.core.persistence.compact.CompactSubmittedVariantEntity;
+import uk.ac.ebi.eva.accession.core.persistence.compact.SubmittedVariantTermEntity;
+import uk.ac.ebi.eva.accession.core.persistence.original.OriginalSubmittedVariantEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SubmittedVariantCopyInserterTest {
+
+    private static final String HASH = "0123456789ABCDEF0123456789ABCDEF01234567";
+
+    @Test
+    public void variantIsWrittenAsCsvLine() {
+        StringBuilder line = new StringBuilder();
+        SubmittedVariantCopyInserter.appendCsvLine(line, compactEntity("A", "T", true),
+                                                   SubmittedVariantSchema.COMPACT);
+
+        assertEquals("1,\\x" + HASH + ",11,12,13,14,100,\"A\",\"T\",true\n", line.toString());
+    }
+
+    @Test
+    public void emptyValuesAndQuotesAreEscaped() {
+        StringBuilder line = new StringBuilder();
+        SubmittedVariantCopyInserter.appendCsvLine(line, compactEntity("", "\"T,", false),
+                                                   SubmittedVariantSchema.COMPACT);
+
+        assertEquals("1,\\x" + HASH + ",11,12,13,14,100,\"\",\"\"\"T,\",false\n", line.toString());
+    }
+
+    @Test
+    public void originalVariantIsWrittenAsCsvLine() {
+        StringBuilder line = new StringBuilder();
+        SubmittedVariantCopyInserter.appendCsvLine(
+                line, new OriginalSubmittedVariantEntity(1L, HASH, "assembly", "taxonomy", "project", "contig", 100,
+                                                         "A", "T", true),
+                SubmittedVariantSchema.ORIGINAL);
+
+        assertEquals("1," + HASH + ",\"assembly\",\"taxonomy\",\"project\",\"contig\",100,\"A\",\"T\",true\n",
+                     line.toString());
+    }
+
+    private CompactSubmittedVariantEntity compactEntity(String reference, String alternate,
+                                                        boolean supportedByEvidence) {
+        CompactSubmittedVariantEntity entity = new CompactSubmittedVariantEntity(1L, HASH, "assembly", "taxonomy",
+                                                                                 "project", "contig", 100, reference,
+                                                                                 alternate, supportedByEvidence);
+        Map<String, SubmittedVariantTermEntity> terms = new HashMap<>();
+        terms.put("assembly", new SubmittedVariantTermEntity(11, "assembly"));
+        terms.put("taxonomy", new SubmittedVariantTermEntity(12, "taxonomy"));
+        terms.put("project", new SubmittedVariantTermEntity(13, "project"));
+        terms.put("contig", new SubmittedVariantTermEntity(14, "contig"));
+        entity.resolveTerms(terms);
+        return entity;
+    }
+}
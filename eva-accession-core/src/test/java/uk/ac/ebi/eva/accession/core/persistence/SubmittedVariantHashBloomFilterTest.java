@@ -0,0 +1,66 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.Test;
+
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+
+import static org.junit.Assert.assertTrue;
+
+public class SubmittedVariantHashBloomFilterTest {
+
+    private static final int EXPECTED_INSERTIONS = 10000;
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+
+    @Test
+    public void noFalseNegativesAndBoundedFalsePositives() {
+        SubmittedVariantHashBloomFilter bloomFilter = new SubmittedVariantHashBloomFilter(EXPECTED_INSERTIONS,
+                                                                                          FALSE_POSITIVE_PROBABILITY);
+        for (int start = 0; start < EXPECTED_INSERTIONS; start++) {
+            bloomFilter.put(hash(start));
+        }
+
+        for (int start = 0; start < EXPECTED_INSERTIONS; start++) {
+            assertTrue(bloomFilter.mightContain(hash(start)));
+        }
+        int falsePositives = 0;
+        for (int start = EXPECTED_INSERTIONS; start < 2 * EXPECTED_INSERTIONS; start++) {
+            if (bloomFilter.mightContain(hash(start))) {
+                falsePositives++;
+            }
+        }
+        assertTrue("False positives: " + falsePositives,
+                   falsePositives < 2 * FALSE_POSITIVE_PROBABILITY * EXPECTED_INSERTIONS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hashMustBeHexadecimal() {
+        new SubmittedVariantHashBloomFilter(EXPECTED_INSERTIONS, FALSE_POSITIVE_PROBABILITY).put(
+                "not a hexadecimal hash, but long enough");
+    }
+
+    private String hash(int start) {
+        return hashingFunction.apply(new SubmittedVariant("assembly", "taxonomy", "project", "contig", start, "A",
+                                                          "T", false));
+    }
+}
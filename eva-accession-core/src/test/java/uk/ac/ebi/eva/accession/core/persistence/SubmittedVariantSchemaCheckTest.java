@@ -0,0 +1,86 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence;
+
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SubmittedVariantSchemaCheckTest {
+
+    @Test
+    public void emptyDatabase() {
+        SubmittedVariantSchemaCheck.check(createDatabase("empty"), SubmittedVariantSchema.ORIGINAL);
+        SubmittedVariantSchemaCheck.check(createDatabase("empty"), SubmittedVariantSchema.COMPACT);
+    }
+
+    @Test
+    public void compactSchema() {
+        DataSource dataSource = createDatabase("compact");
+        new JdbcTemplate(dataSource).execute(
+                "CREATE TABLE submitted_variant_entity (accession bigint PRIMARY KEY, assembly_id integer, " +
+                        "hashed_message binary(20))");
+        SubmittedVariantSchemaCheck.check(dataSource, SubmittedVariantSchema.COMPACT);
+    }
+
+    @Test
+    public void compactSchemaNotSelected() {
+        DataSource dataSource = createDatabase("compactNotSelected");
+        new JdbcTemplate(dataSource).execute(
+                "CREATE TABLE submitted_variant_entity (accession bigint PRIMARY KEY, assembly_id integer, " +
+                        "hashed_message binary(20))");
+        try {
+            SubmittedVariantSchemaCheck.check(dataSource, SubmittedVariantSchema.ORIGINAL);
+            fail("The compact schema should have been rejected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("accessioning.variant.schema=compact"));
+        }
+    }
+
+    @Test
+    public void originalSchema() {
+        DataSource dataSource = createDatabase("original");
+        new JdbcTemplate(dataSource).execute(
+                "CREATE TABLE submitted_variant_entity (accession bigint PRIMARY KEY, " +
+                        "assembly_accession varchar(255), hashed_message varchar(255))");
+        SubmittedVariantSchemaCheck.check(dataSource, SubmittedVariantSchema.ORIGINAL);
+    }
+
+    @Test
+    public void originalSchemaNotMigrated() {
+        DataSource dataSource = createDatabase("legacy");
+        new JdbcTemplate(dataSource).execute(
+                "CREATE TABLE submitted_variant_entity (accession bigint PRIMARY KEY, " +
+                        "assembly_accession varchar(255), hashed_message varchar(255))");
+        try {
+            SubmittedVariantSchemaCheck.check(dataSource, SubmittedVariantSchema.COMPACT);
+            fail("The original schema should have been rejected");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(SubmittedVariantSchemaCheck.MIGRATION_SCRIPT));
+        }
+    }
+
+    private DataSource createDatabase(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+    }
+}
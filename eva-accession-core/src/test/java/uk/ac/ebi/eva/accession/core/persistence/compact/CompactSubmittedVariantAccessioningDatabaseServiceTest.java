@@ -0,0 +1,119 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(locations = "classpath:accession-test.properties",
+        properties = "accessioning.variant.schema=compact")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+public class CompactSubmittedVariantAccessioningDatabaseServiceTest {
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private SubmittedVariantTermDictionary termDictionary;
+
+    private final SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+
+    @Test
+    public void streamRegionAcrossPages() {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                variant("contig", 100, "T"), variant("contig", 100, "C"), variant("contig", 100, "G"),
+                variant("contig", 150, "T"), variant("contig", 199, "T"), variant("contig", 200, "T"),
+                variant("contig", 99, "T"), variant("contig", 201, "T"), variant("other_contig", 150, "T"),
+                new SubmittedVariant("other_assembly", "taxonomy", "project", "contig", 150, "A", "T", true));
+        List<ModelHashAccession<ISubmittedVariant, String, Long>> objects = new ArrayList<>();
+        // accessions not sorted like the variants, to check that pages are sorted by start and accession
+        long[] accessions = {3, 1, 2, 4, 6, 5, 7, 8, 9, 10};
+        for (int i = 0; i < variants.size(); i++) {
+            objects.add(ModelHashAccession.of(variants.get(i), hashingFunction.apply(variants.get(i)),
+                                              accessions[i]));
+        }
+        databaseService.insert(objects);
+
+        List<Long> regionAccessions = databaseService.streamRegion("assembly", "contig", 100, 200, 2)
+                                                     .map(SubmittedVariantEntity::getAccession)
+                                                     .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 6L, 5L), regionAccessions);
+    }
+
+    @Test
+    public void streamRegionOfUnknownContig() {
+        assertEquals(0, databaseService.streamRegion("assembly", "unknown_contig", 1, 1000, 10).count());
+    }
+
+    @Test
+    public void forEachInAssemblyAndProject() {
+        // terms created out of the order of their names, to check that contigs are sorted by name and not by id
+        termDictionary.getOrCreate(Collections.singletonList("contig_2"));
+        termDictionary.getOrCreate(Collections.singletonList("contig_1"));
+        List<ISubmittedVariant> variants = Arrays.asList(
+                variant("contig_2", 100, "T"), variant("contig_1", 200, "T"), variant("contig_1", 100, "T"),
+                new SubmittedVariant("assembly", "taxonomy", "other_project", "contig_1", 150, "A", "T", true),
+                new SubmittedVariant("other_assembly", "taxonomy", "project", "contig_1", 150, "A", "T", true));
+        List<ModelHashAccession<ISubmittedVariant, String, Long>> objects = new ArrayList<>();
+        for (int i = 0; i < variants.size(); i++) {
+            objects.add(ModelHashAccession.of(variants.get(i), hashingFunction.apply(variants.get(i)), i + 1L));
+        }
+        databaseService.insert(objects);
+
+        List<Long> assemblyAccessions = new ArrayList<>();
+        databaseService.forEachInAssembly("assembly", variant -> assemblyAccessions.add(variant.getAccession()));
+        List<ISubmittedVariant> projectVariants = new ArrayList<>();
+        databaseService.forEachInProject("project", projectVariants::add);
+        List<Long> unknownProjectAccessions = new ArrayList<>();
+        databaseService.forEachInProject("unknown_project",
+                                         variant -> unknownProjectAccessions.add(variant.getAccession()));
+
+        assertEquals(Arrays.asList(3L, 4L, 2L, 1L), assemblyAccessions);
+        assertEquals(Arrays.asList(variants.get(0), variants.get(1), variants.get(2), variants.get(4)),
+                     projectVariants.stream().map(SubmittedVariant::new).collect(Collectors.toList()));
+        assertEquals(Collections.emptyList(), unknownProjectAccessions);
+    }
+
+    private ISubmittedVariant variant(String contig, long start, String alternate) {
+        return new SubmittedVariant("assembly", "taxonomy", "project", contig, start, "A", alternate, true);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class Sha1HashConverterTest {
+
+    private final Sha1HashConverter converter = new Sha1HashConverter();
+
+    @Test
+    public void hashIsStoredAsRawBytes() {
+        String hash = "0123456789ABCDEF0123456789ABCDEF01234567";
+
+        byte[] bytes = converter.convertToDatabaseColumn(hash);
+
+        assertEquals(20, bytes.length);
+        assertEquals((byte) 0xEF, bytes[7]);
+        assertEquals(hash, converter.convertToEntityAttribute(bytes));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void hashMustBeSha1() {
+        converter.convertToDatabaseColumn("0123456789ABCDEF");
+    }
+}
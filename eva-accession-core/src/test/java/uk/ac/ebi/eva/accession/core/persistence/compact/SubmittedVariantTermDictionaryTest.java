@@ -0,0 +1,100 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.core.persistence.compact;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.generators.ModelHashAccession;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(locations = "classpath:accession-test.properties",
+        properties = "accessioning.variant.schema=compact")
+@ContextConfiguration(classes = {SubmittedVariantAccessioningConfiguration.class})
+public class SubmittedVariantTermDictionaryTest {
+
+    @Autowired
+    private SubmittedVariantTermDictionary termDictionary;
+
+    @Autowired
+    private SubmittedVariantTermRepository termRepository;
+
+    @Autowired
+    private SubmittedVariantAccessioningDatabaseService databaseService;
+
+    @Autowired
+    private CompactSubmittedVariantRepository repository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private final SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+
+    @Test
+    public void termsAreCreatedOnce() {
+        Map<String, SubmittedVariantTermEntity> terms = termDictionary.getOrCreate(Arrays.asList("GCA_1", "9606"));
+        Map<String, SubmittedVariantTermEntity> sameTerms = termDictionary.getOrCreate(
+                Arrays.asList("9606", "GCA_1", "PRJEB1"));
+
+        assertEquals(3, termRepository.count());
+        assertNotNull(terms.get("GCA_1").getId());
+        assertEquals(terms.get("GCA_1").getId(), sameTerms.get("GCA_1").getId());
+        assertEquals(terms.get("9606").getId(), sameTerms.get("9606").getId());
+    }
+
+    @Test
+    public void variantsShareTerms() {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("GCA_1", "9606", "PRJEB1", "1", 100, "A", "T", true),
+                new SubmittedVariant("GCA_1", "9606", "PRJEB1", "2", 100, "A", "T", true));
+        databaseService.insert(Arrays.asList(ModelHashAccession.of(variants.get(0),
+                                                                   hashingFunction.apply(variants.get(0)), 1L),
+                                             ModelHashAccession.of(variants.get(1),
+                                                                   hashingFunction.apply(variants.get(1)), 2L)));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        assertEquals(5, termRepository.count());
+        SubmittedVariantEntity variant = repository.findOne(2L);
+        assertEquals(new SubmittedVariant(variants.get(1)), new SubmittedVariant(variant));
+        assertEquals(hashingFunction.apply(variants.get(1)), variant.getHashedMessage());
+        assertEquals(Collections.singletonList(variant), repository.findByHashedMessageIn(
+                Collections.singletonList(hashingFunction.apply(variants.get(1)))));
+    }
+}
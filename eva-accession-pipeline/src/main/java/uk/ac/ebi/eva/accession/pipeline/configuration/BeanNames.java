@@ -0,0 +1,34 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+public class BeanNames {
+
+    public static final String VCF_READER = "VCF_READER";
+
+    public static final String ACCESSION_WRITER = "ACCESSION_WRITER";
+
+    public static final String CREATE_SUBMITTED_VARIANTS_STEP = "CREATE_SUBMITTED_VARIANTS_STEP";
+
+    public static final String CREATE_SUBMITTED_VARIANTS_JOB = "CREATE_SUBMITTED_VARIANTS_JOB";
+
+    public static final String EXPORT_SUBMITTED_VARIANTS_STEP = "EXPORT_SUBMITTED_VARIANTS_STEP";
+
+    public static final String EXPORT_SUBMITTED_VARIANTS_JOB = "EXPORT_SUBMITTED_VARIANTS_JOB";
+
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.ACCESSION_WRITER;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.CREATE_SUBMITTED_VARIANTS_STEP;
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VCF_READER;
+
+/**
+ * Reads the VCF in chunks of {@link InputParameters#getChunkSize()} variants and accessions each chunk at once, so
+ * that no more than one chunk is held in memory regardless of the size of the input file.
+ */
+@Configuration
+@Import({VcfReaderConfiguration.class, AccessionWriterConfiguration.class})
+public class CreateSubmittedVariantsStepConfiguration {
+
+    @Autowired
+    @Qualifier(VCF_READER)
+    private ItemStreamReader<ISubmittedVariant> vcfReader;
+
+    @Autowired
+    @Qualifier(ACCESSION_WRITER)
+    private ItemWriter<ISubmittedVariant> accessionWriter;
+
+    @Bean(CREATE_SUBMITTED_VARIANTS_STEP)
+    public Step createSubmittedVariantsStep(StepBuilderFactory stepBuilderFactory, InputParameters parameters) {
+        return stepBuilderFactory.get(CREATE_SUBMITTED_VARIANTS_STEP)
+                                 .<ISubmittedVariant, ISubmittedVariant>chunk(parameters.getChunkSize())
+                                 .reader(vcfReader)
+                                 .writer(accessionWriter)
+                                 .build();
+    }
+
+}
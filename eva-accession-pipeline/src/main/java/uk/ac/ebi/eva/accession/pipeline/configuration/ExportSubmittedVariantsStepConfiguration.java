@@ -0,0 +1,49 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepBuilderFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantExporter;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+import uk.ac.ebi.eva.accession.pipeline.steps.tasklets.ExportSubmittedVariantsTasklet;
+
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.EXPORT_SUBMITTED_VARIANTS_STEP;
+
+/**
+ * The export is written in a single step that reads the variants with a database cursor, so it is not restartable
+ * but it does not hold the variants in memory either.
+ */
+@Configuration
+@Import({InputParametersConfiguration.class, SubmittedVariantAccessioningConfiguration.class})
+public class ExportSubmittedVariantsStepConfiguration {
+
+    @Bean(EXPORT_SUBMITTED_VARIANTS_STEP)
+    public Step exportSubmittedVariantsStep(StepBuilderFactory stepBuilderFactory, SubmittedVariantExporter exporter,
+                                            InputParameters parameters) {
+        return stepBuilderFactory.get(EXPORT_SUBMITTED_VARIANTS_STEP)
+                                 .tasklet(new ExportSubmittedVariantsTasklet(exporter, parameters))
+                                 .build();
+    }
+
+}
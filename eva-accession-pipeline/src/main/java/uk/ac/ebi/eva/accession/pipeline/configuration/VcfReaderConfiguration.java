@@ -0,0 +1,52 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import uk.ac.ebi.eva.accession.pipeline.io.VcfLineMapper;
+import uk.ac.ebi.eva.accession.pipeline.io.VcfReader;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+
+import java.io.File;
+import java.io.IOException;
+
+import static uk.ac.ebi.eva.accession.pipeline.configuration.BeanNames.VCF_READER;
+
+@Configuration
+@Import({InputParametersConfiguration.class})
+public class VcfReaderConfiguration {
+
+    private static final Logger logger = LoggerFactory.getLogger(VcfReaderConfiguration.class);
+
+    @Bean(VCF_READER)
+    @StepScope
+    public VcfReader vcfReader(InputParameters parameters) throws IOException {
+        logger.info("Injecting VcfReader with parameters: {}", parameters);
+        VcfLineMapper lineMapper = new VcfLineMapper(parameters.getAssemblyAccession(),
+                                                     parameters.getTaxonomyAccession(),
+                                                     parameters.getProjectAccession());
+        return new VcfReader(lineMapper, new File(parameters.getVcf()));
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamSupport;
+import org.springframework.batch.item.ItemStreamWriter;
+
+import uk.ac.ebi.eva.accession.core.AccessionMap;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+
+import java.util.List;
+
+/**
+ * Accessions a whole chunk of variants with a single call to the accessioning service.
+ *
+ * The number of variants accessioned so far is saved as part of the chunk checkpoint, so a restarted job reports where
+ * it resumes from. The accessions are not committed atomically with the checkpoint: the accessioning service inserts
+ * each partition of a chunk in its own transaction, and the block service reserves blocks in their own transactions,
+ * so a chunk that fails may leave some of its variants accessioned. After a restart, the reader resumes from the last
+ * checkpoint, and the variants of the failed chunk that were already accessioned are found by their hash and get the
+ * same accession again, instead of being rolled back and accessioned anew.
+ *
+ * No accession block state is saved: the blocks reserved but not completed by this instance are recovered from the
+ * database when the generator starts.
+ */
+public class AccessionWriter extends ItemStreamSupport implements ItemStreamWriter<ISubmittedVariant> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessionWriter.class);
+
+    private static final String ACCESSIONED_VARIANTS_KEY = "accessioned.variants";
+
+    private final SubmittedVariantAccessioningService service;
+
+    private long accessionedVariants;
+
+    public AccessionWriter(SubmittedVariantAccessioningService service) {
+        this.service = service;
+        setName("accession-writer");
+    }
+
+    @Override
+    public void write(List<? extends ISubmittedVariant> variants) throws Exception {
+        AccessionMap<ISubmittedVariant> accessions = service.getOrCreateAccessions(variants);
+        logger.debug("Accessioned {} variants, {} distinct accessions", variants.size(), accessions.size());
+        accessionedVariants += variants.size();
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        accessionedVariants = executionContext.getLong(getExecutionContextKey(ACCESSIONED_VARIANTS_KEY), 0);
+        if (accessionedVariants > 0) {
+            logger.info("Resuming accessioning after {} variants already committed", accessionedVariants);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(getExecutionContextKey(ACCESSIONED_VARIANTS_KEY), accessionedVariants);
+    }
+
+    public long getAccessionedVariants() {
+        return accessionedVariants;
+    }
+}
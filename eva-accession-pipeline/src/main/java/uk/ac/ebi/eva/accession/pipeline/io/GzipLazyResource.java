@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Resource that decompresses a gzipped file as it is read, instead of inflating it on disk beforehand.
+ *
+ * {@link GZIPInputStream} reads concatenated gzip members, so this works for bgzipped files as well.
+ */
+public class GzipLazyResource extends FileSystemResource {
+
+    private static final int GZIP_MAGIC_FIRST_BYTE = 0x1f;
+
+    private static final int GZIP_MAGIC_SECOND_BYTE = 0x8b;
+
+    public GzipLazyResource(File file) {
+        super(file);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(super.getInputStream());
+    }
+
+    public static boolean isGzipped(File file) throws IOException {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return inputStream.read() == GZIP_MAGIC_FIRST_BYTE && inputStream.read() == GZIP_MAGIC_SECOND_BYTE;
+        }
+    }
+}
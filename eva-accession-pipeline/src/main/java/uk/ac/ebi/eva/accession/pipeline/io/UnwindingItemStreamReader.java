@@ -0,0 +1,116 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.batch.item.support.AbstractItemStreamItemReader;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reader that flattens the lists returned by another reader, returning their elements one by one. This way a chunk
+ * contains a fixed number of elements, no matter how many of them come from each line of the input.
+ *
+ * A chunk may end in the middle of a list. In that case the checkpoint points to the list before it, plus the number
+ * of elements of the list that were already returned, so that a restarted execution neither skips nor repeats
+ * elements.
+ */
+public class UnwindingItemStreamReader<T> extends AbstractItemStreamItemReader<T> {
+
+    private static final String LIST_COUNT_KEY = "list.count";
+
+    private static final String CONSUMED_ELEMENTS_KEY = "consumed.elements";
+
+    private final AbstractItemCountingItemStreamItemReader<List<T>> reader;
+
+    private Iterator<T> buffer;
+
+    private int listCount;
+
+    private int consumedElements;
+
+    public UnwindingItemStreamReader(AbstractItemCountingItemStreamItemReader<List<T>> reader) {
+        this.reader = reader;
+        this.buffer = Collections.emptyIterator();
+    }
+
+    @Override
+    public T read() throws Exception {
+        while (!buffer.hasNext()) {
+            if (!readNextList()) {
+                return null;
+            }
+        }
+        consumedElements++;
+        return buffer.next();
+    }
+
+    private boolean readNextList() throws Exception {
+        List<T> items = reader.read();
+        if (items == null) {
+            return false;
+        }
+        listCount++;
+        consumedElements = 0;
+        buffer = items.iterator();
+        return true;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        reader.open(executionContext);
+        listCount = executionContext.getInt(getExecutionContextKey(LIST_COUNT_KEY), 0);
+        int elementsToSkip = executionContext.getInt(getExecutionContextKey(CONSUMED_ELEMENTS_KEY), 0);
+        buffer = Collections.emptyIterator();
+        consumedElements = 0;
+        try {
+            if (elementsToSkip > 0 && readNextList()) {
+                while (consumedElements < elementsToSkip && buffer.hasNext()) {
+                    buffer.next();
+                    consumedElements++;
+                }
+            }
+        } catch (Exception e) {
+            throw new ItemStreamException("Could not restore the position in the current list of elements", e);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (buffer.hasNext()) {
+            reader.setCurrentItemCount(listCount - 1);
+            reader.update(executionContext);
+            reader.setCurrentItemCount(listCount);
+            executionContext.putInt(getExecutionContextKey(LIST_COUNT_KEY), listCount - 1);
+            executionContext.putInt(getExecutionContextKey(CONSUMED_ELEMENTS_KEY), consumedElements);
+        } else {
+            reader.update(executionContext);
+            executionContext.putInt(getExecutionContextKey(LIST_COUNT_KEY), listCount);
+            executionContext.putInt(getExecutionContextKey(CONSUMED_ELEMENTS_KEY), 0);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        reader.close();
+    }
+}
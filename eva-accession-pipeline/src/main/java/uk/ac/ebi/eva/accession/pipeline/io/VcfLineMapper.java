@@ -0,0 +1,129 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.LineMapper;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.StringPool;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps a data line of a VCF file into one {@link ISubmittedVariant} per alternate allele.
+ *
+ * Alternate alleles that do not describe a sequence are skipped: the missing value ".", the spanning deletion "*",
+ * and symbolic alleles like {@code <DEL>} or breakends. A line with only such alleles maps to an empty list.
+ *
+ * A variant is considered supported by evidence if the line contains genotypes, or if the INFO column contains
+ * allele counts or frequencies.
+ *
+ * The contigs and alleles are canonicalized with a {@link StringPool} that lives as long as the mapper, so all the
+ * variants of a file share the instances of their repeated values.
+ */
+public class VcfLineMapper implements LineMapper<List<ISubmittedVariant>> {
+
+    private static final String FIELD_SEPARATOR = "\t";
+
+    private static final String ALTERNATE_ALLELE_SEPARATOR = ",";
+
+    private static final String INFO_SEPARATOR = ";";
+
+    private static final String MISSING_ALLELE = ".";
+
+    private static final String SPANNING_DELETION_ALLELE = "*";
+
+    private static final int CHROMOSOME_COLUMN = 0;
+
+    private static final int POSITION_COLUMN = 1;
+
+    private static final int REFERENCE_COLUMN = 3;
+
+    private static final int ALTERNATE_COLUMN = 4;
+
+    private static final int INFO_COLUMN = 7;
+
+    private static final int FIRST_SAMPLE_COLUMN = 9;
+
+    private static final int MANDATORY_COLUMNS = INFO_COLUMN + 1;
+
+    private final String assemblyAccession;
+
+    private final String taxonomyAccession;
+
+    private final String projectAccession;
+
+    private final StringPool stringPool;
+
+    public VcfLineMapper(String assemblyAccession, String taxonomyAccession, String projectAccession) {
+        this.assemblyAccession = assemblyAccession;
+        this.taxonomyAccession = taxonomyAccession;
+        this.projectAccession = projectAccession;
+        this.stringPool = new StringPool();
+    }
+
+    @Override
+    public List<ISubmittedVariant> mapLine(String line, int lineNumber) {
+        String[] fields = line.split(FIELD_SEPARATOR);
+        if (fields.length < MANDATORY_COLUMNS) {
+            throw new FlatFileParseException("VCF line has " + fields.length + " columns but at least "
+                                                     + MANDATORY_COLUMNS + " are required", line, lineNumber);
+        }
+
+        long start;
+        try {
+            start = Long.parseLong(fields[POSITION_COLUMN]);
+        } catch (NumberFormatException e) {
+            throw new FlatFileParseException("VCF position is not a number: " + fields[POSITION_COLUMN], e, line,
+                                             lineNumber);
+        }
+        boolean supportedByEvidence = fields.length >= FIRST_SAMPLE_COLUMN + 1 || hasFrequencies(
+                fields[INFO_COLUMN]);
+
+        String contig = stringPool.canonicalize(fields[CHROMOSOME_COLUMN]);
+        String referenceAllele = stringPool.canonicalize(fields[REFERENCE_COLUMN]);
+        String[] alternateAlleles = fields[ALTERNATE_COLUMN].split(ALTERNATE_ALLELE_SEPARATOR);
+        List<ISubmittedVariant> variants = new ArrayList<>(alternateAlleles.length);
+        for (String alternateAllele : alternateAlleles) {
+            if (!isSequenceAllele(alternateAllele)) {
+                continue;
+            }
+            variants.add(new SubmittedVariant(assemblyAccession, taxonomyAccession, projectAccession, contig, start,
+                                              referenceAllele, stringPool.canonicalize(alternateAllele),
+                                              supportedByEvidence));
+        }
+        return variants;
+    }
+
+    private boolean isSequenceAllele(String allele) {
+        return !allele.equals(MISSING_ALLELE) && !allele.equals(SPANNING_DELETION_ALLELE) && !allele.startsWith("<")
+                && allele.indexOf('[') < 0 && allele.indexOf(']') < 0;
+    }
+
+    private boolean hasFrequencies(String info) {
+        for (String field : info.split(INFO_SEPARATOR)) {
+            if (field.startsWith("AF=") || field.startsWith("AC=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
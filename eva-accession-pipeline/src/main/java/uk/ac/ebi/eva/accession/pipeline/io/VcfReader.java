@@ -0,0 +1,64 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads a VCF file line by line, either plain or (b)gzipped, returning one {@link ISubmittedVariant} per alternate
+ * allele. The file is streamed, so its size doesn't affect the memory used.
+ *
+ * The position in the file is saved on every chunk commit, so a failed job can be restarted from the last committed
+ * chunk.
+ */
+public class VcfReader extends UnwindingItemStreamReader<ISubmittedVariant> {
+
+    private static final String HEADER_PREFIX = "#";
+
+    private static final String NAME = "vcf-reader";
+
+    public VcfReader(VcfLineMapper lineMapper, File file) throws IOException {
+        super(buildFlatFileReader(lineMapper, file));
+        setName(NAME);
+    }
+
+    private static FlatFileItemReader<List<ISubmittedVariant>> buildFlatFileReader(VcfLineMapper lineMapper,
+                                                                                   File file) throws IOException {
+        FlatFileItemReader<List<ISubmittedVariant>> reader = new FlatFileItemReader<>();
+        reader.setResource(getResource(file));
+        reader.setLineMapper(lineMapper);
+        reader.setComments(new String[]{HEADER_PREFIX});
+        reader.setName(NAME + "-lines");
+        return reader;
+    }
+
+    private static Resource getResource(File file) throws IOException {
+        if (GzipLazyResource.isGzipped(file)) {
+            return new GzipLazyResource(file);
+        }
+        return new FileSystemResource(file);
+    }
+}
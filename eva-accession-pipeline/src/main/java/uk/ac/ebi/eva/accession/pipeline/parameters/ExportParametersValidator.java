@@ -0,0 +1,57 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+package uk.ac.ebi.eva.accession.pipeline.parameters;
+
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+import org.springframework.batch.core.JobParametersValidator;
+
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantExportFormat;
+
+import java.util.Arrays;
+
+/**
+ * Rejects an export run before it starts if the export file or format are missing, or the format is unknown, so that
+ * the job fails with a clear message instead of an exception in the middle of the step
+ */
+public class ExportParametersValidator implements JobParametersValidator {
+
+    private final InputParameters parameters;
+
+    public ExportParametersValidator(InputParameters parameters) {
+        this.parameters = parameters;
+    }
+
+    @Override
+    public void validate(JobParameters jobParameters) throws JobParametersInvalidException {
+        if (parameters.getExportFile() == null || parameters.getExportFile().isEmpty()) {
+            throw new JobParametersInvalidException("parameters.exportFile is required");
+        }
+        String exportFormat = parameters.getExportFormat();
+        if (exportFormat == null || exportFormat.isEmpty()) {
+            throw new JobParametersInvalidException("parameters.exportFormat is required, expected one of " +
+                                                            Arrays.toString(SubmittedVariantExportFormat.values()));
+        }
+        try {
+            SubmittedVariantExportFormat.valueOf(exportFormat.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new JobParametersInvalidException("Unknown parameters.exportFormat '" + exportFormat +
+                                                            "', expected one of " +
+                                                            Arrays.toString(SubmittedVariantExportFormat.values()));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.parameters;
+
+/**
+ * Parameters of a VCF accessioning run. The assembly, taxonomy and project accessions are not present in the VCF
+ * records, so they are provided once for the whole file.
+ *
+ * An export run writes all the variants of the project into {@link #getExportFile()}, or all the variants of the
+ * assembly if no project is provided.
+ */
+public class InputParameters {
+
+    private String vcf;
+
+    private String assemblyAccession;
+
+    private String taxonomyAccession;
+
+    private String projectAccession;
+
+    private int chunkSize;
+
+    private String exportFile;
+
+    private String exportFormat;
+
+    public String getVcf() {
+        return vcf;
+    }
+
+    public void setVcf(String vcf) {
+        this.vcf = vcf;
+    }
+
+    public String getAssemblyAccession() {
+        return assemblyAccession;
+    }
+
+    public void setAssemblyAccession(String assemblyAccession) {
+        this.assemblyAccession = assemblyAccession;
+    }
+
+    public String getTaxonomyAccession() {
+        return taxonomyAccession;
+    }
+
+    public void setTaxonomyAccession(String taxonomyAccession) {
+        this.taxonomyAccession = taxonomyAccession;
+    }
+
+    public String getProjectAccession() {
+        return projectAccession;
+    }
+
+    public void setProjectAccession(String projectAccession) {
+        this.projectAccession = projectAccession;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public String getExportFile() {
+        return exportFile;
+    }
+
+    public void setExportFile(String exportFile) {
+        this.exportFile = exportFile;
+    }
+
+    /**
+     * @return ndjson or vcf
+     */
+    public String getExportFormat() {
+        return exportFormat;
+    }
+
+    public void setExportFormat(String exportFormat) {
+        this.exportFormat = exportFormat;
+    }
+
+    @Override
+    public String toString() {
+        return "InputParameters{" +
+                "vcf='" + vcf + '\'' +
+                ", assemblyAccession='" + assemblyAccession + '\'' +
+                ", taxonomyAccession='" + taxonomyAccession + '\'' +
+                ", projectAccession='" + projectAccession + '\'' +
+                ", chunkSize=" + chunkSize +
+                ", exportFile='" + exportFile + '\'' +
+                ", exportFormat='" + exportFormat + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.steps.tasklets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantExportFormat;
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantExporter;
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantWriter;
+import uk.ac.ebi.eva.accession.pipeline.parameters.ExportParametersValidator;
+import uk.ac.ebi.eva.accession.pipeline.parameters.InputParameters;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports all the variants of a project or an assembly into a file, compressed with gzip if its name ends with .gz.
+ * The file and format have been checked by {@link ExportParametersValidator} before the job started.
+ */
+public class ExportSubmittedVariantsTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportSubmittedVariantsTasklet.class);
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final SubmittedVariantExporter exporter;
+
+    private final InputParameters parameters;
+
+    public ExportSubmittedVariantsTasklet(SubmittedVariantExporter exporter, InputParameters parameters) {
+        this.exporter = exporter;
+        this.parameters = parameters;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        SubmittedVariantExportFormat format = SubmittedVariantExportFormat.valueOf(
+                parameters.getExportFormat().toUpperCase());
+        String exportFile = parameters.getExportFile();
+        long exportedVariants;
+        // the file is closed even if the compressed stream or the writer can't be created
+        try (FileOutputStream fileOutputStream = new FileOutputStream(exportFile);
+             OutputStream outputStream = exportFile.endsWith(GZIP_EXTENSION)
+                     ? new GZIPOutputStream(new BufferedOutputStream(fileOutputStream))
+                     : new BufferedOutputStream(fileOutputStream);
+             SubmittedVariantWriter writer = format.createWriter(outputStream)) {
+            if (parameters.getProjectAccession() != null && !parameters.getProjectAccession().isEmpty()) {
+                exportedVariants = exporter.exportProject(parameters.getProjectAccession(), writer);
+            } else {
+                exportedVariants = exporter.exportAssembly(parameters.getAssemblyAccession(), writer);
+            }
+        }
+        logger.info("{} variants exported into {}", exportedVariants, exportFile);
+        contribution.incrementWriteCount((int) Math.min(exportedVariants, Integer.MAX_VALUE));
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.pipeline.test.BatchTestConfiguration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {BatchTestConfiguration.class})
+@TestPropertySource(value = "classpath:accession-pipeline-test.properties",
+        properties = "parameters.vcf=target/restart-test.vcf")
+public class CreateSubmittedVariantsJobRestartTest {
+
+    private static final Path ORIGINAL_VCF = Paths.get("src/test/resources/input-files/vcf/small.vcf");
+
+    private static final Path VCF = Paths.get("target/restart-test.vcf");
+
+    private static final int HEADER_LINES = 4;
+
+    /**
+     * The line before it contains a multiallelic variant, and chunks have 5 variants, so the first chunk ends in
+     * the middle of a line. The chunk containing the broken line is the third one.
+     */
+    private static final int BROKEN_DATA_LINE = 12;
+
+    private static final int VARIANTS_IN_COMMITTED_CHUNKS = 10;
+
+    private static final int EXPECTED_VARIANTS = 22;
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> repository;
+
+    @Before
+    public void setUp() throws Exception {
+        List<String> lines = new ArrayList<>(Files.readAllLines(ORIGINAL_VCF));
+        lines.set(HEADER_LINES + BROKEN_DATA_LINE, "2L\tnot-a-position\t.\tA\tT\t.\tPASS\t.\tGT\t0/1\t0/1");
+        Files.write(VCF, lines);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(VCF);
+    }
+
+    @Test
+    public void restartResumesFromTheLastCommittedChunk() throws Exception {
+        JobParameters jobParameters = new JobParametersBuilder().addString("vcf", VCF.toString()).toJobParameters();
+
+        JobExecution failedExecution = jobLauncherTestUtils.launchJob(jobParameters);
+        assertEquals(BatchStatus.FAILED, failedExecution.getStatus());
+        assertEquals(VARIANTS_IN_COMMITTED_CHUNKS, repository.count());
+
+        Files.copy(ORIGINAL_VCF, VCF, StandardCopyOption.REPLACE_EXISTING);
+        JobExecution restartedExecution = jobLauncherTestUtils.launchJob(jobParameters);
+
+        assertEquals(BatchStatus.COMPLETED, restartedExecution.getStatus());
+        assertEquals(failedExecution.getJobInstance(), restartedExecution.getJobInstance());
+        StepExecution restartedStep = restartedExecution.getStepExecutions().iterator().next();
+        assertEquals(EXPECTED_VARIANTS - VARIANTS_IN_COMMITTED_CHUNKS, restartedStep.getReadCount());
+        assertEquals(EXPECTED_VARIANTS, repository.count());
+    }
+
+}
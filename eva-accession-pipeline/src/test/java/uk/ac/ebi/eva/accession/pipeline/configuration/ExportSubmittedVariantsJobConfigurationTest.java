@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.configuration;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.test.JobLauncherTestUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.pipeline.test.ExportBatchTestConfiguration;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {ExportBatchTestConfiguration.class})
+@TestPropertySource(value = "classpath:accession-pipeline-test.properties",
+        properties = {"parameters.projectAccession=", "parameters.exportFile=target/export-test.vcf.gz",
+                "parameters.exportFormat=vcf"})
+public class ExportSubmittedVariantsJobConfigurationTest {
+
+    @Autowired
+    private JobLauncherTestUtils jobLauncherTestUtils;
+
+    @Autowired
+    private SubmittedVariantAccessioningService service;
+
+    @Test
+    public void allVariantsOfTheAssemblyAreExported() throws Exception {
+        accessionVariants();
+
+        JobExecution jobExecution = jobLauncherTestUtils.launchJob();
+
+        assertEquals(BatchStatus.COMPLETED, jobExecution.getStatus());
+        List<String> lines = readLines("target/export-test.vcf.gz");
+        List<String> dataLines = lines.stream().filter(line -> !line.startsWith("#")).collect(Collectors.toList());
+        assertTrue(lines.get(0).startsWith("##fileformat=VCF"));
+        assertEquals(2, dataLines.size());
+        assertTrue(dataLines.get(0).startsWith("20\t100\tss"));
+        assertTrue(dataLines.get(1).startsWith("20\t200\tss"));
+    }
+
+    private void accessionVariants() throws AccessionCouldNotBeGeneratedException {
+        List<ISubmittedVariant> variants = Arrays.asList(
+                new SubmittedVariant("GCA_000001215.4", "7227", "PRJEB00001", "20", 200, "A", "T", true),
+                new SubmittedVariant("GCA_000001215.4", "7227", "PRJEB00002", "20", 100, "A", "T", true),
+                new SubmittedVariant("GCA_000001215.5", "7227", "PRJEB00001", "20", 100, "A", "T", true));
+        service.getOrCreateAccessions(variants);
+    }
+
+    private List<String> readLines(String file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UnwindingItemStreamReaderTest {
+
+    private static final String LINES = "a\nb,c,d\ne\nf,g\n";
+
+    private static final List<String> ALL_ELEMENTS = Arrays.asList("a", "b", "c", "d", "e", "f", "g");
+
+    @Test
+    public void unwindAllLists() throws Exception {
+        UnwindingItemStreamReader<String> reader = buildReader();
+        reader.open(new ExecutionContext());
+
+        assertEquals(ALL_ELEMENTS, readAll(reader));
+        assertNull(reader.read());
+    }
+
+    @Test
+    public void restartInTheMiddleOfAList() throws Exception {
+        for (int checkpoint = 0; checkpoint <= ALL_ELEMENTS.size(); checkpoint++) {
+            ExecutionContext executionContext = new ExecutionContext();
+            UnwindingItemStreamReader<String> reader = buildReader();
+            reader.open(executionContext);
+            List<String> elements = new ArrayList<>();
+            for (int i = 0; i < checkpoint; i++) {
+                elements.add(reader.read());
+            }
+            reader.update(executionContext);
+            reader.close();
+
+            UnwindingItemStreamReader<String> restartedReader = buildReader();
+            restartedReader.open(executionContext);
+            elements.addAll(readAll(restartedReader));
+            restartedReader.close();
+
+            assertEquals("Restart after " + checkpoint + " elements", ALL_ELEMENTS, elements);
+        }
+    }
+
+    private UnwindingItemStreamReader<String> buildReader() {
+        FlatFileItemReader<List<String>> lineReader = new FlatFileItemReader<>();
+        lineReader.setResource(new ByteArrayResource(LINES.getBytes()));
+        lineReader.setLineMapper((line, lineNumber) -> Arrays.asList(line.split(",")));
+        UnwindingItemStreamReader<String> reader = new UnwindingItemStreamReader<>(lineReader);
+        reader.setName("unwinding-reader-test");
+        return reader;
+    }
+
+    private List<String> readAll(UnwindingItemStreamReader<String> reader) throws Exception {
+        List<String> elements = new ArrayList<>();
+        String element;
+        while ((element = reader.read()) != null) {
+            elements.add(element);
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.item.file.FlatFileParseException;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VcfLineMapperTest {
+
+    private static final String ASSEMBLY = "assembly";
+
+    private static final String TAXONOMY = "taxonomy";
+
+    private static final String PROJECT = "project";
+
+    private VcfLineMapper lineMapper;
+
+    @Before
+    public void setUp() {
+        lineMapper = new VcfLineMapper(ASSEMBLY, TAXONOMY, PROJECT);
+    }
+
+    @Test
+    public void biallelicLine() {
+        List<ISubmittedVariant> variants = lineMapper.mapLine("20\t1000\t.\tA\tT\t.\tPASS\t.\tGT\t0/1", 1);
+
+        assertEquals(1, variants.size());
+        assertEquals(new SubmittedVariant(ASSEMBLY, TAXONOMY, PROJECT, "20", 1000, "A", "T", true), variants.get(0));
+    }
+
+    @Test
+    public void multiallelicLineReturnsOneVariantPerAlternate() {
+        List<ISubmittedVariant> variants = lineMapper.mapLine("20\t1000\t.\tA\tT,CG\t.\tPASS\t.\tGT\t1/2", 1);
+
+        assertEquals(2, variants.size());
+        assertEquals("T", variants.get(0).getAlternateAllele());
+        assertEquals("CG", variants.get(1).getAlternateAllele());
+    }
+
+    @Test
+    public void missingAlternateIsSkipped() {
+        assertTrue(lineMapper.mapLine("20\t1000\t.\tA\t.\t.\tPASS\t.\tGT\t0/0", 1).isEmpty());
+    }
+
+    @Test
+    public void spanningDeletionIsSkipped() {
+        List<ISubmittedVariant> variants = lineMapper.mapLine("20\t1000\t.\tA\tT,*\t.\tPASS\t.\tGT\t1/2", 1);
+
+        assertEquals(1, variants.size());
+        assertEquals("T", variants.get(0).getAlternateAllele());
+    }
+
+    @Test
+    public void symbolicAllelesAreSkipped() {
+        List<ISubmittedVariant> variants = lineMapper.mapLine(
+                "20\t1000\t.\tA\t<DEL>,G,A[20:2000[,<CN0>\t.\tPASS\t.\tGT\t1/2", 1);
+
+        assertEquals(1, variants.size());
+        assertEquals("G", variants.get(0).getAlternateAllele());
+    }
+
+    @Test
+    public void evidenceFromFrequenciesWithoutGenotypes() {
+        assertTrue(lineMapper.mapLine("20\t1000\t.\tA\tT\t.\tPASS\tDP=3;AF=0.5", 1).get(0).isSupportedByEvidence());
+        assertFalse(lineMapper.mapLine("20\t1000\t.\tA\tT\t.\tPASS\tDP=3", 1).get(0).isSupportedByEvidence());
+    }
+
+    @Test
+    public void repeatedValuesShareInstances() {
+        ISubmittedVariant first = lineMapper.mapLine("20\t1000\t.\tA\tT\t.\tPASS\t.", 1).get(0);
+        ISubmittedVariant second = lineMapper.mapLine("20\t2000\t.\tT\tA\t.\tPASS\t.", 2).get(0);
+
+        assertSame(first.getContig(), second.getContig());
+        assertSame(first.getReferenceAllele(), second.getAlternateAllele());
+        assertSame(first.getAlternateAllele(), second.getReferenceAllele());
+    }
+
+    @Test(expected = FlatFileParseException.class)
+    public void missingColumns() {
+        lineMapper.mapLine("20\t1000\t.\tA\tT", 1);
+    }
+
+    @Test(expected = FlatFileParseException.class)
+    public void nonNumericPosition() {
+        lineMapper.mapLine("20\tabc\t.\tA\tT\t.\tPASS\t.", 1);
+    }
+}
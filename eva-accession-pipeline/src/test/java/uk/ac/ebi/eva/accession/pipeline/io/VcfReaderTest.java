@@ -0,0 +1,60 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.pipeline.io;
+
+import org.junit.Test;
+import org.springframework.batch.item.ExecutionContext;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class VcfReaderTest {
+
+    private static final String VCF = "src/test/resources/input-files/vcf/small.vcf";
+
+    private static final String BGZIPPED_VCF = "src/test/resources/input-files/vcf/small.vcf.gz";
+
+    private static final int EXPECTED_VARIANTS = 22;
+
+    @Test
+    public void readPlainVcf() throws Exception {
+        assertEquals(EXPECTED_VARIANTS, readAll(VCF).size());
+    }
+
+    @Test
+    public void bgzippedVcfReturnsSameVariants() throws Exception {
+        assertEquals(readAll(VCF), readAll(BGZIPPED_VCF));
+    }
+
+    private List<ISubmittedVariant> readAll(String path) throws Exception {
+        VcfReader reader = new VcfReader(new VcfLineMapper("assembly", "taxonomy", "project"), new File(path));
+        reader.open(new ExecutionContext());
+        List<ISubmittedVariant> variants = new ArrayList<>();
+        ISubmittedVariant variant;
+        while ((variant = reader.read()) != null) {
+            variants.add(variant);
+        }
+        reader.close();
+        return variants;
+    }
+}
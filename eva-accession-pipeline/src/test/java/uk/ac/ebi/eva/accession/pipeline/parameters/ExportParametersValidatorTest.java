@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+package uk.ac.ebi.eva.accession.pipeline.parameters;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersInvalidException;
+
+public class ExportParametersValidatorTest {
+
+    private InputParameters parameters;
+
+    private ExportParametersValidator validator;
+
+    @Before
+    public void setUp() {
+        parameters = new InputParameters();
+        parameters.setExportFile("export.vcf.gz");
+        parameters.setExportFormat("vcf");
+        validator = new ExportParametersValidator(parameters);
+    }
+
+    @Test
+    public void validParameters() throws JobParametersInvalidException {
+        validator.validate(new JobParameters());
+        parameters.setExportFormat("NDJSON");
+        validator.validate(new JobParameters());
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void missingFormat() throws JobParametersInvalidException {
+        parameters.setExportFormat(null);
+        validator.validate(new JobParameters());
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void unknownFormat() throws JobParametersInvalidException {
+        parameters.setExportFormat("csv");
+        validator.validate(new JobParameters());
+    }
+
+    @Test(expected = JobParametersInvalidException.class)
+    public void missingFile() throws JobParametersInvalidException {
+        parameters.setExportFile("");
+        validator.validate(new JobParameters());
+    }
+}
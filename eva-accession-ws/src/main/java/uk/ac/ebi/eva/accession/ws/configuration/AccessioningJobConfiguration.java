@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+import uk.ac.ebi.eva.accession.ws.jobs.AccessioningJobService;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantStreamAccessioner;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class AccessioningJobConfiguration {
+
+    @Bean
+    @ConfigurationProperties(prefix = "accessioning.jobs")
+    public AccessioningJobProperties accessioningJobProperties() {
+        return new AccessioningJobProperties();
+    }
+
+    @Bean
+    public AccessioningJobService accessioningJobService(SubmittedVariantAccessioningService service,
+                                                         ObjectMapper objectMapper) throws IOException {
+        AccessioningJobProperties properties = accessioningJobProperties();
+        SubmittedVariantStreamAccessioner streamAccessioner = new SubmittedVariantStreamAccessioner(
+                service, objectMapper, properties.getChunkSize());
+        return new AccessioningJobService(streamAccessioner, Paths.get(properties.getDirectory()),
+                                          properties.getWorkers(), properties.getQueueCapacity(),
+                                          TimeUnit.HOURS.toMillis(properties.getRetentionHours()),
+                                          properties.getMaxPayloadBytes());
+    }
+}
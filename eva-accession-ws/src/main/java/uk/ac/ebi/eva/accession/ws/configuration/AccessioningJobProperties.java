@@ -0,0 +1,111 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.configuration;
+
+public class AccessioningJobProperties {
+
+    /**
+     * Directory where the payloads and results of the jobs are stored
+     */
+    private String directory = System.getProperty("java.io.tmpdir") + "/eva-accession-jobs";
+
+    /**
+     * Maximum number of jobs run at the same time by this instance
+     */
+    private int workers = 2;
+
+    /**
+     * Maximum number of jobs waiting for a worker; further submissions are rejected
+     */
+    private int queueCapacity = 16;
+
+    /**
+     * Number of variants accessioned in each transaction
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Hours that finished jobs and their results are kept
+     */
+    private int retentionHours = 24;
+
+    /**
+     * Maximum size in bytes of the payload of a job; larger submissions are rejected
+     */
+    private long maxPayloadBytes = 1024L * 1024 * 1024;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getRetentionHours() {
+        return retentionHours;
+    }
+
+    public void setRetentionHours(int retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+
+    public long getMaxPayloadBytes() {
+        return maxPayloadBytes;
+    }
+
+    public void setMaxPayloadBytes(long maxPayloadBytes) {
+        this.maxPayloadBytes = maxPayloadBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "AccessioningJobProperties{" +
+                "directory='" + directory + '\'' +
+                ", workers=" + workers +
+                ", queueCapacity=" + queueCapacity +
+                ", chunkSize=" + chunkSize +
+                ", retentionHours=" + retentionHours +
+                ", maxPayloadBytes=" + maxPayloadBytes +
+                '}';
+    }
+}
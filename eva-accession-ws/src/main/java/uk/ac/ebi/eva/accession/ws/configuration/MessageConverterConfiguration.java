@@ -0,0 +1,46 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import uk.ac.ebi.eva.accession.ws.rest.AccessionMapJsonSerializer;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantBinaryHttpMessageConverter;
+
+/**
+ * Converters declared as beans are added by Spring Boot to the default ones, which keep handling JSON
+ */
+@Configuration
+public class MessageConverterConfiguration {
+
+    @Bean
+    public SubmittedVariantBinaryHttpMessageConverter submittedVariantBinaryHttpMessageConverter() {
+        return new SubmittedVariantBinaryHttpMessageConverter();
+    }
+
+    /**
+     * Jackson modules declared as beans are registered by Spring Boot in the object mapper of the JSON converter
+     */
+    @Bean
+    public Module accessionMapModule() {
+        return new SimpleModule("AccessionMapModule").addSerializer(new AccessionMapJsonSerializer());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.jobs;
+
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * State of an accessioning job, updated by the worker that runs it and read by the requests that poll it.
+ */
+public class AccessioningJob {
+
+    private final String id;
+
+    private final Path inputFile;
+
+    private final Path resultsFile;
+
+    private final long inputBytes;
+
+    private final Date submitted;
+
+    private final AtomicLong readBytes;
+
+    private final AtomicLong accessionedVariants;
+
+    private volatile AccessioningJobStatus status;
+
+    private volatile Date started;
+
+    private volatile Date finished;
+
+    private volatile String error;
+
+    AccessioningJob(String id, Path inputFile, Path resultsFile, long inputBytes) {
+        this.id = id;
+        this.inputFile = inputFile;
+        this.resultsFile = resultsFile;
+        this.inputBytes = inputBytes;
+        this.submitted = new Date();
+        this.readBytes = new AtomicLong();
+        this.accessionedVariants = new AtomicLong();
+        this.status = AccessioningJobStatus.QUEUED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public AccessioningJobStatus getStatus() {
+        return status;
+    }
+
+    public Date getSubmitted() {
+        return submitted;
+    }
+
+    public Date getStarted() {
+        return started;
+    }
+
+    public Date getFinished() {
+        return finished;
+    }
+
+    public long getAccessionedVariants() {
+        return accessionedVariants.get();
+    }
+
+    /**
+     * @return Fraction of the submitted payload that has been accessioned, between 0 and 1
+     */
+    public double getProgress() {
+        if (status == AccessioningJobStatus.COMPLETED) {
+            return 1;
+        }
+        return inputBytes == 0 ? 0 : Math.min(1, (double) readBytes.get() / inputBytes);
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    Path getInputFile() {
+        return inputFile;
+    }
+
+    Path getResultsFile() {
+        return resultsFile;
+    }
+
+    AtomicLong getReadBytes() {
+        return readBytes;
+    }
+
+    void start() {
+        started = new Date();
+        status = AccessioningJobStatus.RUNNING;
+    }
+
+    void addAccessionedVariants(int variants) {
+        accessionedVariants.addAndGet(variants);
+    }
+
+    void complete() {
+        finished = new Date();
+        status = AccessioningJobStatus.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        finished = new Date();
+        status = AccessioningJobStatus.FAILED;
+    }
+}
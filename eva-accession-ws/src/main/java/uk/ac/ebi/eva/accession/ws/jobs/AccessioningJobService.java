@@ -0,0 +1,242 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.jobs;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantStreamAccessioner;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs accessioning jobs in the background, so that the submission of a large number of variants does not hold a
+ * request thread until all of them are accessioned.
+ *
+ * The payload of each job is stored in a local directory and accessioned by a bounded pool of workers, which caps the
+ * number of jobs that each instance runs at the same time. When all the workers are busy and the queue is full, new
+ * submissions are rejected, as are payloads larger than the maximum size. The results are written to the same
+ * directory as newline delimited JSON, and they are deleted in the background, together with their jobs, once the
+ * retention time has passed. Jobs are only known by the instance that received them, and they are lost when it is
+ * restarted.
+ */
+public class AccessioningJobService implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessioningJobService.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final long MAX_SWEEP_PERIOD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final SubmittedVariantStreamAccessioner streamAccessioner;
+
+    private final Path directory;
+
+    private final long retentionMillis;
+
+    private final long maxPayloadBytes;
+
+    private final ThreadPoolExecutor executor;
+
+    private final ConcurrentMap<String, AccessioningJob> jobs;
+
+    private final ScheduledExecutorService sweepExecutor;
+
+    public AccessioningJobService(SubmittedVariantStreamAccessioner streamAccessioner, Path directory, int workers,
+                                  int queueCapacity, long retentionMillis, long maxPayloadBytes) throws IOException {
+        this.streamAccessioner = streamAccessioner;
+        this.directory = Files.createDirectories(directory);
+        this.retentionMillis = retentionMillis;
+        this.maxPayloadBytes = maxPayloadBytes;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity),
+                                               runnable -> new Thread(runnable, "accessioning-job-"
+                                                       + threadNumber.incrementAndGet()));
+        this.jobs = new ConcurrentHashMap<>();
+        this.sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "accessioning-job-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long sweepPeriodMillis = Math.max(1, Math.min(retentionMillis, MAX_SWEEP_PERIOD_MILLIS));
+        sweepExecutor.scheduleWithFixedDelay(this::removeExpiredJobs, sweepPeriodMillis, sweepPeriodMillis,
+                                             TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stores the payload, a JSON array or newline delimited JSON of variants, and queues its accessioning
+     *
+     * @throws RejectedExecutionException If the maximum number of jobs are already queued
+     * @throws PayloadTooLargeException If the payload is larger than the maximum size; nothing is stored then
+     */
+    public AccessioningJob submit(InputStream payload) throws IOException {
+        removeExpiredJobs();
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Too many accessioning jobs queued");
+        }
+        String id = UUID.randomUUID().toString();
+        Path inputFile = directory.resolve(id + ".json");
+        try {
+            copy(payload, inputFile);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(inputFile);
+            throw e;
+        }
+        AccessioningJob job = new AccessioningJob(id, inputFile, directory.resolve(id + ".ndjson"),
+                                                  Files.size(inputFile));
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            Files.deleteIfExists(inputFile);
+            throw e;
+        }
+        return job;
+    }
+
+    private void copy(InputStream payload, Path inputFile) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(inputFile, StandardOpenOption.CREATE_NEW)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long size = 0;
+            int read;
+            while ((read = payload.read(buffer)) != -1) {
+                size += read;
+                if (size > maxPayloadBytes) {
+                    throw new PayloadTooLargeException(maxPayloadBytes);
+                }
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * @return The job, or null if there is no job with that identifier
+     */
+    public AccessioningJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * @return File with the results of the job, or null if the job is unknown or has not completed
+     */
+    public Path getResults(String id) {
+        AccessioningJob job = jobs.get(id);
+        if (job == null || job.getStatus() != AccessioningJobStatus.COMPLETED) {
+            return null;
+        }
+        return job.getResultsFile();
+    }
+
+    private void run(AccessioningJob job) {
+        job.start();
+        try (InputStream inputStream = new CountingInputStream(Files.newInputStream(job.getInputFile()),
+                                                               job.getReadBytes());
+             OutputStream outputStream = Files.newOutputStream(job.getResultsFile());
+             JsonGenerator generator = streamAccessioner.createNdjsonGenerator(outputStream)) {
+            streamAccessioner.accession(inputStream, accessions -> {
+                SubmittedVariantStreamAccessioner.writeAccessions(accessions, generator);
+                job.addAccessionedVariants(accessions.size());
+            });
+            generator.flush();
+            job.complete();
+        } catch (Exception e) {
+            logger.error("Accessioning job " + job.getId() + " failed", e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(job.getInputFile());
+        }
+    }
+
+    /**
+     * Called on every submission and periodically in the background, so that the results are deleted even if the
+     * instance stops receiving jobs
+     */
+    private void removeExpiredJobs() {
+        long oldestFinishedTime = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> {
+            if (job.getFinished() == null || job.getFinished().getTime() >= oldestFinishedTime) {
+                return false;
+            }
+            deleteQuietly(job.getResultsFile());
+            return true;
+        });
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete " + file, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        sweepExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final AtomicLong count;
+
+        CountingInputStream(InputStream inputStream, AtomicLong count) {
+            super(inputStream);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read != -1) {
+                count.incrementAndGet();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count.addAndGet(read);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import uk.ac.ebi.eva.accession.core.AccessionMap;
+
+import java.io.IOException;
+
+/**
+ * Writes an {@link AccessionMap} as a JSON object from accession to value, like any other map, but reading the
+ * accessions as primitives instead of iterating over boxed entries
+ */
+public class AccessionMapJsonSerializer extends StdSerializer<AccessionMap<?>> {
+
+    @SuppressWarnings("unchecked")
+    public AccessionMapJsonSerializer() {
+        super((Class<AccessionMap<?>>) (Class<?>) AccessionMap.class);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, AccessionMap<?> accessions) {
+        return accessions.isEmpty();
+    }
+
+    @Override
+    public void serialize(AccessionMap<?> accessions, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < accessions.size(); i++) {
+            provider.defaultSerializeField(Long.toString(accessions.getAccession(i)), accessions.getValue(i),
+                                           generator);
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import uk.ac.ebi.eva.accession.ws.jobs.AccessioningJob;
+import uk.ac.ebi.eva.accession.ws.jobs.AccessioningJobService;
+import uk.ac.ebi.eva.accession.ws.jobs.PayloadTooLargeException;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Accessions variants asynchronously: a submission returns a job straight away, whose status can be polled until the
+ * results are ready to be downloaded.
+ */
+@RestController
+@RequestMapping(value = "/v1/jobs")
+public class AccessioningJobRestController {
+
+    private final AccessioningJobService jobService;
+
+    public AccessioningJobRestController(AccessioningJobService jobService) {
+        this.jobService = jobService;
+    }
+
+    /**
+     * Submits the variants of the body, either a JSON array or newline delimited JSON. The response is 202 with the
+     * location of the job, 413 if the payload is larger than {@code accessioning.jobs.maxPayloadBytes}, or 503 if
+     * this instance has too many jobs queued.
+     */
+    @RequestMapping(method = RequestMethod.POST,
+            consumes = {MediaType.APPLICATION_JSON_VALUE, VariantAccessioningRestController.NDJSON_CONTENT_TYPE})
+    public ResponseEntity<AccessioningJob> submitPayload(HttpServletRequest request) throws IOException {
+        return submit(request.getInputStream());
+    }
+
+    /**
+     * Submits the variants of an uploaded file, in the same formats as {@link #submitPayload}
+     */
+    @RequestMapping(method = RequestMethod.POST, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<AccessioningJob> submitFile(@RequestParam MultipartFile file) throws IOException {
+        try (InputStream inputStream = file.getInputStream()) {
+            return submit(inputStream);
+        }
+    }
+
+    private ResponseEntity<AccessioningJob> submit(InputStream payload) throws IOException {
+        AccessioningJob job;
+        try {
+            job = jobService.submit(payload);
+        } catch (PayloadTooLargeException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{id}").buildAndExpand(job.getId())
+                                                  .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<AccessioningJob> getJob(@PathVariable String id) {
+        AccessioningJob job = jobService.getJob(id);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    /**
+     * Returns the accessions of a completed job as newline delimited JSON, each line with a JSON object from the
+     * accession to the variant. The response is 409 if the job has not completed.
+     */
+    @RequestMapping(value = "/{id}/results", method = RequestMethod.GET)
+    public ResponseEntity<Resource> getResults(@PathVariable String id) {
+        if (jobService.getJob(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Path results = jobService.getResults(id);
+        if (results == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        MediaType ndjson = MediaType.parseMediaType(VariantAccessioningRestController.NDJSON_CONTENT_TYPE);
+        return ResponseEntity.ok().contentType(ndjson).body(new FileSystemResource(results.toFile()));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
+
+import uk.ac.ebi.eva.accession.core.AccessionMap;
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.StringPool;
+import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accessions the variants of a JSON array or newline delimited JSON in chunks while they are parsed, so that only one
+ * chunk is held in memory regardless of the size of the input.
+ */
+public class SubmittedVariantStreamAccessioner {
+
+    public interface ChunkListener {
+
+        /**
+         * Called after each chunk is accessioned
+         *
+         * @param accessions Accessions of the variants of the chunk
+         */
+        void accept(AccessionMap<ISubmittedVariant> accessions) throws IOException;
+
+    }
+
+    private final SubmittedVariantAccessioningService service;
+
+    private final ObjectMapper objectMapper;
+
+    private final int chunkSize;
+
+    public SubmittedVariantStreamAccessioner(SubmittedVariantAccessioningService service, ObjectMapper objectMapper,
+                                             int chunkSize) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return Number of variants read
+     * @throws com.fasterxml.jackson.core.JsonProcessingException If the input is not valid JSON, after accessioning
+     * the chunks read before the error
+     */
+    public long accession(InputStream inputStream, ChunkListener listener)
+            throws IOException, AccessionCouldNotBeGeneratedException {
+        long variants = 0;
+        // a single pool for the whole input, instead of one per variant
+        ObjectReader variantReader = objectMapper.readerFor(SubmittedVariantDTO.class).withAttribute(
+                CanonicalStringDeserializer.POOL_ATTRIBUTE, new StringPool());
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            JsonToken firstToken = parser.nextToken();
+            boolean array = firstToken == JsonToken.START_ARRAY;
+            JsonToken token = array ? parser.nextToken() : firstToken;
+            List<SubmittedVariantDTO> chunk = new ArrayList<>(chunkSize);
+            while (token != null && token != JsonToken.END_ARRAY) {
+                chunk.add(variantReader.readValue(parser));
+                variants++;
+                if (chunk.size() == chunkSize) {
+                    accessionChunk(chunk, listener);
+                    chunk.clear();
+                }
+                token = parser.nextToken();
+            }
+            if (array && token == null) {
+                throw new JsonParseException(parser, "Unexpected end of the JSON array");
+            }
+            accessionChunk(chunk, listener);
+        }
+        return variants;
+    }
+
+    private void accessionChunk(List<SubmittedVariantDTO> chunk, ChunkListener listener)
+            throws AccessionCouldNotBeGeneratedException, IOException {
+        if (!chunk.isEmpty()) {
+            listener.accept(service.getOrCreateAccessions(chunk));
+        }
+    }
+
+    /**
+     * @return Generator of newline delimited JSON, to be used with {@link #writeAccessions}
+     */
+    public JsonGenerator createNdjsonGenerator(OutputStream outputStream) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        return generator;
+    }
+
+    /**
+     * Writes each accession in its own line, as a JSON object from the accession to the variant
+     */
+    public static void writeAccessions(AccessionMap<? extends ISubmittedVariant> accessions, JsonGenerator generator)
+            throws IOException {
+        for (int i = 0; i < accessions.size(); i++) {
+            generator.writeStartObject();
+            generator.writeFieldName(Long.toString(accessions.getAccession(i)));
+            generator.writeObject(new SubmittedVariantDTO(accessions.getValue(i)));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+}
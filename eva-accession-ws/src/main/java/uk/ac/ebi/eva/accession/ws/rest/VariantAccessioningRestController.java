@@ -17,19 +17,222 @@
  */
 package uk.ac.ebi.eva.accession.ws.rest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.ac.ebi.eva.accession.core.AccessionMap;
 import uk.ac.ebi.eva.accession.core.SubmittedVariantAccessioningService;
 import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantExportFormat;
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantExporter;
+import uk.ac.ebi.eva.accession.core.io.SubmittedVariantWriter;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningDatabaseService;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantEntity;
+import uk.ac.ebi.ampt2d.commons.accession.generators.exceptions.AccessionCouldNotBeGeneratedException;
 import uk.ac.ebi.ampt2d.commons.accession.rest.BasicRestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
 @RestController
 @RequestMapping(value = "/v1/variant")
 public class VariantAccessioningRestController extends BasicRestController<ISubmittedVariant, SubmittedVariantDTO, Long> {
 
-    public VariantAccessioningRestController(SubmittedVariantAccessioningService service) {
+    static final int REGION_PAGE_SIZE = 1000;
+
+    static final int STREAM_CHUNK_SIZE = 1000;
+
+    static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9A-Fa-f]{40}");
+
+    private final SubmittedVariantAccessioningService service;
+
+    private final SubmittedVariantAccessioningDatabaseService databaseService;
+
+    private final SubmittedVariantExporter exporter;
+
+    private final ObjectMapper objectMapper;
+
+    private final SubmittedVariantStreamAccessioner streamAccessioner;
+
+    public VariantAccessioningRestController(SubmittedVariantAccessioningService service,
+                                             SubmittedVariantAccessioningDatabaseService databaseService,
+                                             SubmittedVariantExporter exporter, ObjectMapper objectMapper) {
         super(service, SubmittedVariantDTO::new);
+        this.service = service;
+        this.databaseService = databaseService;
+        this.exporter = exporter;
+        this.objectMapper = objectMapper;
+        this.streamAccessioner = new SubmittedVariantStreamAccessioner(service, objectMapper, STREAM_CHUNK_SIZE);
     }
 
-}
+    /**
+     * Same as the inherited endpoint, but the request and the response can be either JSON or
+     * {@link SubmittedVariantBinaryFormat}, as requested in the Content-Type and Accept headers. The response is JSON
+     * unless the binary format is explicitly accepted. The accessions are not boxed, neither in the response nor while
+     * it is written.
+     */
+    @Override
+    @RequestMapping(method = RequestMethod.POST,
+            consumes = {MediaType.APPLICATION_JSON_VALUE, SubmittedVariantBinaryFormat.CONTENT_TYPE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, SubmittedVariantBinaryFormat.CONTENT_TYPE})
+    public AccessionMap<SubmittedVariantDTO> generateAccessions(@RequestBody List<SubmittedVariantDTO> variants)
+            throws AccessionCouldNotBeGeneratedException {
+        return service.getOrCreateAccessions(variants).mapValues(SubmittedVariantDTO::new);
+    }
 
+    /**
+     * Same as the inherited endpoint, but the response can be either JSON or {@link SubmittedVariantBinaryFormat}, as
+     * requested in the Accept header.
+     */
+    @Override
+    @RequestMapping(value = "/{accessions}", method = RequestMethod.GET,
+            produces = {MediaType.APPLICATION_JSON_VALUE, SubmittedVariantBinaryFormat.CONTENT_TYPE})
+    public AccessionMap<SubmittedVariantDTO> get(@PathVariable List<Long> accessions) {
+        return service.getByAccessions(accessions).mapValues(SubmittedVariantDTO::new);
+    }
+
+    /**
+     * Finds the accessions of the variants that are already accessioned, as a map from accession to variant like
+     * {@code POST /v1/variant}, leaving out the variants without accession. No accession is ever created nor
+     * reserved, and the lookup only reads, from the cache, the accession index or a read-only transaction.
+     */
+    @RequestMapping(value = "/lookup", method = RequestMethod.POST,
+            consumes = {MediaType.APPLICATION_JSON_VALUE, SubmittedVariantBinaryFormat.CONTENT_TYPE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, SubmittedVariantBinaryFormat.CONTENT_TYPE})
+    public AccessionMap<SubmittedVariantDTO> lookup(@RequestBody List<SubmittedVariantDTO> variants) {
+        return service.findAccessions(variants).mapValues(SubmittedVariantDTO::new);
+    }
+
+    /**
+     * Same as {@link #lookup}, but for the hashes of the variants, i.e. the SHA-1 of their summaries as hexadecimal
+     * strings
+     *
+     * @return Accession of each hash that is accessioned, by hash in upper case
+     */
+    @RequestMapping(value = "/lookup/hashes", method = RequestMethod.POST,
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Long>> lookupHashes(@RequestBody List<String> hashes) {
+        List<String> upperCaseHashes = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+                return ResponseEntity.badRequest().build();
+            }
+            upperCaseHashes.add(hash.toUpperCase());
+        }
+        return ResponseEntity.ok(databaseService.findAccessionsOfHashes(upperCaseHashes));
+    }
+
+    /**
+     * Returns the variants of a contig between {@code start} and {@code end} (both included), as a map from
+     * accession to variant like the rest of the endpoints, sorted by start and accession. The response is written
+     * while the variants are read from the database, so regions of any size can be requested.
+     */
+    @RequestMapping(value = "/region", method = RequestMethod.GET, produces = "application/json")
+    public ResponseEntity<StreamingResponseBody> getByRegion(@RequestParam String assemblyAccession,
+                                                             @RequestParam String contig,
+                                                             @RequestParam long start,
+                                                             @RequestParam long end) {
+        if (start > end) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<SubmittedVariantEntity> variants = databaseService.streamRegion(assemblyAccession, contig,
+                                                                                        start, end,
+                                                                                        REGION_PAGE_SIZE);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                Iterator<SubmittedVariantEntity> iterator = variants.iterator();
+                while (iterator.hasNext()) {
+                    SubmittedVariantEntity variant = iterator.next();
+                    generator.writeFieldName(variant.getAccession().toString());
+                    generator.writeObject(new SubmittedVariantDTO(variant));
+                }
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Exports all the variants of either an assembly or a project, as newline delimited JSON or as VCF. The response
+     * is written while the variants are read from the database.
+     */
+    @RequestMapping(value = "/export", method = RequestMethod.GET)
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) String assemblyAccession,
+            @RequestParam(required = false) String projectAccession,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        if ((assemblyAccession == null) == (projectAccession == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        SubmittedVariantExportFormat exportFormat;
+        try {
+            exportFormat = SubmittedVariantExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (SubmittedVariantWriter writer = exportFormat.createWriter(outputStream)) {
+                if (assemblyAccession != null) {
+                    exporter.exportAssembly(assemblyAccession, writer);
+                } else {
+                    exporter.exportProject(projectAccession, writer);
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(exportFormat.getContentType())).body(body);
+    }
+
+    /**
+     * Accessions the variants of the body, either a JSON array or newline delimited JSON, in chunks of
+     * {@link #STREAM_CHUNK_SIZE} while they are read. Each accessioned variant is written back as soon as its chunk is
+     * accessioned, in a line with a JSON object from the accession to the variant, so the memory used does not depend
+     * on the size of the body.
+     *
+     * If the body is not valid JSON, the response is a 400 error only if nothing has been written yet; otherwise the
+     * response is aborted, and the variants already returned keep their accessions.
+     */
+    @RequestMapping(value = "/stream", method = RequestMethod.POST,
+            consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_CONTENT_TYPE})
+    public void generateAccessionsStream(HttpServletRequest request, HttpServletResponse response)
+            throws IOException, AccessionCouldNotBeGeneratedException {
+        JsonGenerator[] generator = {null};
+        try {
+            streamAccessioner.accession(request.getInputStream(), accessions -> {
+                if (generator[0] == null) {
+                    response.setContentType(NDJSON_CONTENT_TYPE);
+                    generator[0] = streamAccessioner.createNdjsonGenerator(response.getOutputStream());
+                }
+                SubmittedVariantStreamAccessioner.writeAccessions(accessions, generator[0]);
+                generator[0].flush();
+            });
+        } catch (JsonProcessingException e) {
+            if (generator[0] != null) {
+                throw e;
+            }
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getOriginalMessage());
+        } finally {
+            if (generator[0] != null) {
+                generator[0].close();
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.client;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.embedded.LocalServerPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import uk.ac.ebi.eva.accession.core.ISubmittedVariant;
+import uk.ac.ebi.eva.accession.core.SubmittedVariant;
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.ws.EvaAccessionApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = EvaAccessionApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import({SubmittedVariantAccessioningConfiguration.class})
+@TestPropertySource("classpath:accession-ws-test.properties")
+public class SubmittedVariantAccessioningClientTest {
+
+    private static final int TOTAL_VARIANTS = 2500;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> accessioningRepository;
+
+    private SubmittedVariantAccessioningClient client;
+
+    @Before
+    public void setUp() {
+        AccessioningClientProperties properties = new AccessioningClientProperties();
+        properties.setConcurrency(4);
+        properties.setLookupBatchSize(200);
+        client = new SubmittedVariantAccessioningClient("http://localhost:" + port, properties);
+    }
+
+    @After
+    public void tearDown() {
+        client.close();
+        accessioningRepository.deleteAll();
+    }
+
+    @Test
+    public void bigListsAreAccessionedInSeveralRequests() {
+        List<ISubmittedVariant> variants = createVariants();
+
+        Map<Long, ISubmittedVariant> accessions = client.getOrCreateAccessions(variants);
+
+        assertEquals(TOTAL_VARIANTS, accessions.size());
+        assertEquals(TOTAL_VARIANTS, accessioningRepository.count());
+        assertEquals(accessions.keySet(), client.getOrCreateAccessionsAsync(variants).join().keySet());
+        assertEquals(TOTAL_VARIANTS, accessioningRepository.count());
+    }
+
+    @Test
+    public void variantsAreRetrievedInSeveralRequests() {
+        Map<Long, ISubmittedVariant> accessions = client.getOrCreateAccessions(createVariants());
+
+        Map<Long, ISubmittedVariant> variants = client.getByAccessionsAsync(new ArrayList<>(accessions.keySet()))
+                                                      .join();
+
+        assertEquals(TOTAL_VARIANTS, variants.size());
+        for (Map.Entry<Long, ISubmittedVariant> variant : variants.entrySet()) {
+            ISubmittedVariant accessioned = accessions.get(variant.getKey());
+            assertEquals(accessioned.getStart(), variant.getValue().getStart());
+            assertEquals(accessioned.getContig(), variant.getValue().getContig());
+        }
+    }
+
+    @Test
+    public void emptyListsAreNotSent() {
+        assertTrue(client.getOrCreateAccessions(new ArrayList<>()).isEmpty());
+        assertTrue(client.getByAccessions(new ArrayList<>()).isEmpty());
+    }
+
+    private List<ISubmittedVariant> createVariants() {
+        List<ISubmittedVariant> variants = new ArrayList<>();
+        for (int i = 0; i < TOTAL_VARIANTS; i++) {
+            variants.add(new SubmittedVariant("ASMACC01", "TAXACC01", "PROJACC01", "CHROM" + (i % 3), 1000 + i,
+                                              "A", "T", false));
+        }
+        return variants;
+    }
+}
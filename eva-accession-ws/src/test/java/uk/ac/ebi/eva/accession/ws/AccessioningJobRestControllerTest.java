@@ -0,0 +1,214 @@
+/*
+ *
+ * Copyright 2018 EMBL - European Bioinformatics Institute
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.ebi.eva.accession.ws;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
+import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import({SubmittedVariantAccessioningConfiguration.class})
+@TestPropertySource(value = "classpath:accession-ws-test.properties", properties = {
+        "accessioning.jobs.directory=target/accessioning-jobs", "accessioning.jobs.chunkSize=100",
+        "accessioning.jobs.maxPayloadBytes=100000"})
+public class AccessioningJobRestControllerTest {
+
+    private static final String JOBS_URL = "/v1/jobs";
+
+    private static final String JOBS_DIRECTORY = "target/accessioning-jobs";
+
+    private static final long TIMEOUT_MILLIS = 30000;
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private SubmittedVariantAccessioningRepository<?> accessioningRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @After
+    public void tearDown() {
+        accessioningRepository.deleteAll();
+    }
+
+    @Test
+    public void submitPayloadAndFetchResults() throws Exception {
+        int totalVariants = 250;
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<Map> response = testRestTemplate.exchange(
+                JOBS_URL, HttpMethod.POST, new HttpEntity<>(getVariants(totalVariants), headers), Map.class);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertNotNull(response.getHeaders().getLocation());
+        String id = (String) response.getBody().get("id");
+
+        Map job = waitForJob(id);
+        assertEquals("COMPLETED", job.get("status"));
+        assertEquals(totalVariants, job.get("accessionedVariants"));
+        assertEquals(1.0, job.get("progress"));
+
+        Map<Long, SubmittedVariantDTO> accessions = getResults(id);
+        assertEquals(totalVariants, accessions.size());
+        assertEquals(totalVariants, accessioningRepository.count());
+    }
+
+    @Test
+    public void submitFileAndFetchResults() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (SubmittedVariantDTO variant : getVariants(3)) {
+            ndjson.append(objectMapper.writeValueAsString(variant)).append('\n');
+        }
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+        parts.add("file", new ByteArrayResource(ndjson.toString().getBytes()) {
+            @Override
+            public String getFilename() {
+                return "variants.ndjson";
+            }
+        });
+        ResponseEntity<Map> response = testRestTemplate.postForEntity(JOBS_URL, parts, Map.class);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        String id = (String) response.getBody().get("id");
+
+        assertEquals("COMPLETED", waitForJob(id).get("status"));
+        assertEquals(3, getResults(id).size());
+    }
+
+    @Test
+    public void invalidPayloadFailsTheJob() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<Map> response = testRestTemplate.exchange(
+                JOBS_URL, HttpMethod.POST, new HttpEntity<>("[{\"contig\": ", headers), Map.class);
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        String id = (String) response.getBody().get("id");
+
+        Map job = waitForJob(id);
+        assertEquals("FAILED", job.get("status"));
+        assertNotNull(job.get("error"));
+        assertEquals(HttpStatus.CONFLICT,
+                     testRestTemplate.getForEntity(JOBS_URL + "/" + id + "/results", String.class).getStatusCode());
+    }
+
+    @Test
+    public void payloadTooLarge() throws Exception {
+        Set<Path> filesBefore = listJobFiles();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<Map> response = testRestTemplate.exchange(
+                JOBS_URL, HttpMethod.POST, new HttpEntity<>(getVariants(1000), headers), Map.class);
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        assertTrue(filesBefore.containsAll(listJobFiles()));
+        assertEquals(0, accessioningRepository.count());
+    }
+
+    @Test
+    public void unknownJob() {
+        assertEquals(HttpStatus.NOT_FOUND,
+                     testRestTemplate.getForEntity(JOBS_URL + "/unknown", String.class).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND,
+                     testRestTemplate.getForEntity(JOBS_URL + "/unknown/results", String.class).getStatusCode());
+    }
+
+    private Map waitForJob(String id) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            ResponseEntity<Map> response = testRestTemplate.getForEntity(JOBS_URL + "/" + id, Map.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            Object status = response.getBody().get("status");
+            if ("COMPLETED".equals(status) || "FAILED".equals(status)) {
+                return response.getBody();
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        fail("Job " + id + " did not finish");
+        return null;
+    }
+
+    private Map<Long, SubmittedVariantDTO> getResults(String id) throws Exception {
+        ResponseEntity<String> response = testRestTemplate.getForEntity(JOBS_URL + "/" + id + "/results",
+                                                                        String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<Long, SubmittedVariantDTO> accessions = new HashMap<>();
+        for (String line : response.getBody().split("\n")) {
+            accessions.putAll(objectMapper.readValue(line, new TypeReference<Map<Long, SubmittedVariantDTO>>() {
+            }));
+        }
+        return accessions;
+    }
+
+    private Set<Path> listJobFiles() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(JOBS_DIRECTORY))) {
+            return files.collect(Collectors.toSet());
+        }
+    }
+
+    private List<SubmittedVariantDTO> getVariants(int totalVariants) {
+        List<SubmittedVariantDTO> variants = new ArrayList<>();
+        for (int i = 0; i < totalVariants; i++) {
+            variants.add(new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM1", i, "REF", "ALT",
+                                                 false));
+        }
+        return variants;
+    }
+}
@@ -17,6 +17,9 @@
  */
 package uk.ac.ebi.eva.accession.ws;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,22 +27,36 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import uk.ac.ebi.eva.accession.core.SubmittedVariantHashingFunction;
 import uk.ac.ebi.eva.accession.core.configuration.SubmittedVariantAccessioningConfiguration;
 import uk.ac.ebi.eva.accession.core.persistence.SubmittedVariantAccessioningRepository;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantBinaryFormat;
+import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantBinaryHttpMessageConverter;
 import uk.ac.ebi.eva.accession.ws.rest.SubmittedVariantDTO;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -51,7 +68,15 @@ public class VariantAccessioningRestControllerTest {
     private TestRestTemplate testRestTemplate;
 
     @Autowired
-    private SubmittedVariantAccessioningRepository accessioningRepository;
+    private SubmittedVariantAccessioningRepository<?> accessioningRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @After
+    public void tearDown() {
+        accessioningRepository.deleteAll();
+    }
 
     @Test
     public void testRestApi() {
@@ -93,6 +118,285 @@ public class VariantAccessioningRestControllerTest {
         assertEquals(2, getVariantsResponse.getBody().size());
     }
 
+    @Test
+    public void testLookupRestApi() {
+        List<SubmittedVariantDTO> variants = getListOfVariantMessages();
+        ResponseEntity<Map> lookupResponse = testRestTemplate.exchange("/v1/variant/lookup", HttpMethod.POST,
+                                                                       new HttpEntity<>(variants), Map.class);
+        assertEquals(HttpStatus.OK, lookupResponse.getStatusCode());
+        assertTrue(lookupResponse.getBody().isEmpty());
+        assertEquals(0, accessioningRepository.count());
+
+        ResponseEntity<Map> accessionsResponse = testRestTemplate.exchange("/v1/variant", HttpMethod.POST,
+                                                                           new HttpEntity<>(variants), Map.class);
+        List<SubmittedVariantDTO> lookedUpVariants = new ArrayList<>(variants);
+        lookedUpVariants.add(new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM1", 9999, "REF",
+                                                     "ALT", false));
+        lookupResponse = testRestTemplate.exchange("/v1/variant/lookup", HttpMethod.POST,
+                                                   new HttpEntity<>(lookedUpVariants), Map.class);
+
+        assertEquals(HttpStatus.OK, lookupResponse.getStatusCode());
+        assertEquals(accessionsResponse.getBody().keySet(), lookupResponse.getBody().keySet());
+        assertEquals(2, accessioningRepository.count());
+    }
+
+    @Test
+    public void testLookupHashesRestApi() {
+        List<SubmittedVariantDTO> variants = getListOfVariantMessages();
+        ResponseEntity<Map> accessionsResponse = testRestTemplate.exchange("/v1/variant", HttpMethod.POST,
+                                                                           new HttpEntity<>(variants), Map.class);
+        SubmittedVariantHashingFunction hashingFunction = new SubmittedVariantHashingFunction();
+        String hash = hashingFunction.apply(variants.get(0));
+        String unknownHash = hashingFunction.apply(new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01",
+                                                                           "CHROM1", 9999, "REF", "ALT", false));
+
+        ResponseEntity<Map> lookupResponse = testRestTemplate.exchange(
+                "/v1/variant/lookup/hashes", HttpMethod.POST,
+                new HttpEntity<>(asList(hash.toLowerCase(), unknownHash)), Map.class);
+
+        assertEquals(HttpStatus.OK, lookupResponse.getStatusCode());
+        assertEquals(1, lookupResponse.getBody().size());
+        assertTrue(accessionsResponse.getBody().containsKey(lookupResponse.getBody().get(hash).toString()));
+    }
+
+    @Test
+    public void testLookupInvalidHashes() {
+        ResponseEntity<Map> lookupResponse = testRestTemplate.exchange(
+                "/v1/variant/lookup/hashes", HttpMethod.POST, new HttpEntity<>(asList("not a hash")), Map.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, lookupResponse.getStatusCode());
+    }
+
+    @Test
+    public void testGetVariantsByRegionRestApi() {
+        List<SubmittedVariantDTO> variants = asList(
+                new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM3", 1500, "REF", "ALT", false),
+                new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM3", 1000, "REF", "ALT", false),
+                new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM3", 2500, "REF", "ALT", false),
+                new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM4", 1500, "REF", "ALT", false));
+        ResponseEntity<Map> accessionsResponse = testRestTemplate.exchange("/v1/variant", HttpMethod.POST,
+                                                                           new HttpEntity<>(variants), Map.class);
+        assertEquals(HttpStatus.OK, accessionsResponse.getStatusCode());
+
+        String getRegionUrl = "/v1/variant/region?assemblyAccession=ASMACC01&contig=CHROM3&start=1000&end=2000";
+        ResponseEntity<LinkedHashMap> regionResponse = testRestTemplate.getForEntity(getRegionUrl,
+                                                                                     LinkedHashMap.class);
+
+        assertEquals(HttpStatus.OK, regionResponse.getStatusCode());
+        assertEquals(2, regionResponse.getBody().size());
+        List<Map<String, Object>> regionVariants = new ArrayList<>(regionResponse.getBody().values());
+        assertEquals(1000, regionVariants.get(0).get("start"));
+        assertEquals(1500, regionVariants.get(1).get("start"));
+    }
+
+    @Test
+    public void testGetVariantsByInvalidRegion() {
+        String getRegionUrl = "/v1/variant/region?assemblyAccession=ASMACC01&contig=CHROM1&start=2000&end=1000";
+        ResponseEntity<Map> regionResponse = testRestTemplate.getForEntity(getRegionUrl, Map.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, regionResponse.getStatusCode());
+    }
+
+    @Test
+    public void testExportRestApi() {
+        List<SubmittedVariantDTO> variants = asList(
+                new SubmittedVariantDTO("ASMACC03", "TAXACC01", "PROJACC03", "CHROM1", 2000, "REF", "ALT", false),
+                new SubmittedVariantDTO("ASMACC03", "TAXACC01", "PROJACC03", "CHROM1", 1000, "REF", "ALT", true));
+        ResponseEntity<Map> accessionsResponse = testRestTemplate.exchange("/v1/variant", HttpMethod.POST,
+                                                                           new HttpEntity<>(variants), Map.class);
+        assertEquals(HttpStatus.OK, accessionsResponse.getStatusCode());
+
+        ResponseEntity<String> ndjsonResponse = testRestTemplate.getForEntity(
+                "/v1/variant/export?assemblyAccession=ASMACC03", String.class);
+        assertEquals(HttpStatus.OK, ndjsonResponse.getStatusCode());
+        String[] ndjsonLines = ndjsonResponse.getBody().split("\n");
+        assertEquals(2, ndjsonLines.length);
+        assertTrue(ndjsonLines[0].contains("\"start\":1000"));
+        assertTrue(ndjsonLines[1].contains("\"start\":2000"));
+
+        ResponseEntity<String> vcfResponse = testRestTemplate.getForEntity(
+                "/v1/variant/export?projectAccession=PROJACC03&format=vcf", String.class);
+        assertEquals(HttpStatus.OK, vcfResponse.getStatusCode());
+        List<String> vcfDataLines = Arrays.stream(vcfResponse.getBody().split("\n"))
+                                          .filter(line -> !line.startsWith("#"))
+                                          .collect(Collectors.toList());
+        assertEquals(2, vcfDataLines.size());
+        assertTrue(vcfDataLines.get(0).startsWith("CHROM1\t"));
+    }
+
+    @Test
+    public void testExportRequiresEitherAssemblyOrProject() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                     testRestTemplate.getForEntity("/v1/variant/export", String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                     testRestTemplate.getForEntity("/v1/variant/export?assemblyAccession=ASMACC03&projectAccession" +
+                                                           "=PROJACC03", String.class).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                     testRestTemplate.getForEntity("/v1/variant/export?assemblyAccession=ASMACC03&format=bam",
+                                                   String.class).getStatusCode());
+    }
+
+    @Test
+    public void testStreamRestApiWithJsonArray() throws Exception {
+        // more than two chunks
+        int totalVariants = 2500;
+        List<SubmittedVariantDTO> variants = new ArrayList<>();
+        for (int i = 0; i < totalVariants; i++) {
+            variants.add(new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM1", i, "REF", "ALT",
+                                                 false));
+        }
+        String body = objectMapper.writeValueAsString(variants);
+
+        Map<Long, SubmittedVariantDTO> accessions = postStream(body, MediaType.APPLICATION_JSON);
+        assertEquals(totalVariants, accessions.size());
+        assertEquals(totalVariants, accessioningRepository.count());
+
+        assertEquals(accessions.keySet(), postStream(body, MediaType.APPLICATION_JSON).keySet());
+        assertEquals(totalVariants, accessioningRepository.count());
+    }
+
+    @Test
+    public void testStreamRestApiWithNdjson() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (SubmittedVariantDTO variant : getListOfVariantMessages()) {
+            body.append(objectMapper.writeValueAsString(variant)).append('\n');
+        }
+
+        Map<Long, SubmittedVariantDTO> accessions = postStream(body.toString(),
+                                                               MediaType.parseMediaType("application/x-ndjson"));
+
+        assertEquals(2, accessions.size());
+        assertEquals(2, accessioningRepository.count());
+    }
+
+    @Test
+    public void testStreamRestApiWithInvalidJson() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> response = testRestTemplate.exchange(
+                "/v1/variant/stream", HttpMethod.POST, new HttpEntity<>("[{\"contig\": ", headers), String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(0, accessioningRepository.count());
+    }
+
+    @Test
+    public void testAccessioningMetricsAreExposedForPrometheus() {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(getListOfVariantMessages());
+        testRestTemplate.exchange("/v1/variant", HttpMethod.POST, requestEntity, Map.class);
+
+        ResponseEntity<String> response = testRestTemplate.getForEntity("/prometheus", String.class);
+
+        // other tests share the registry, so only the presence of the meters is checked
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("accessioning_batch_seconds_count"));
+        assertTrue(response.getBody().contains("accessioning_batch_size_variants_bucket"));
+        assertTrue(response.getBody().contains("accessioning_variants_total{outcome=\"created\",}"));
+        assertTrue(response.getBody().contains("http_server_requests_seconds_count"));
+    }
+
+    @Test
+    public void testBinaryRestApi() throws Exception {
+        Map<Long, SubmittedVariantDTO> accessions = postBinary(getListOfVariantMessages());
+        assertEquals(2, accessions.size());
+        assertEquals(2, accessioningRepository.count());
+        assertEquals(accessions.keySet(), postBinary(getListOfVariantMessages()).keySet());
+        assertEquals(2, accessioningRepository.count());
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(asList(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE));
+        Object[] accessionArray = accessions.keySet().toArray();
+        ResponseEntity<byte[]> response = testRestTemplate.exchange(
+                "/v1/variant/" + accessionArray[0] + "," + accessionArray[1], HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<Long, SubmittedVariantDTO> variants = SubmittedVariantBinaryFormat.readAccessions(
+                new ByteArrayInputStream(response.getBody()));
+        assertEquals(2, variants.size());
+        for (Map.Entry<Long, SubmittedVariantDTO> accession : accessions.entrySet()) {
+            SubmittedVariantDTO variant = variants.get(accession.getKey());
+            assertEquals(accession.getValue().getContig(), variant.getContig());
+            assertEquals(accession.getValue().getAssemblyAccession(), variant.getAssemblyAccession());
+            assertEquals(1234, variant.getStart());
+        }
+    }
+
+    @Test
+    public void testBinaryResponseToJsonRequest() throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(asList(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE));
+        HttpEntity<String> requestEntity = new HttpEntity<>(objectMapper.writeValueAsString(getListOfVariantMessages()),
+                                                            headers);
+
+        ResponseEntity<byte[]> response = testRestTemplate.exchange("/v1/variant", HttpMethod.POST, requestEntity,
+                                                                    byte[].class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE.isCompatibleWith(
+                response.getHeaders().getContentType()));
+        assertEquals(2, SubmittedVariantBinaryFormat.readAccessions(new ByteArrayInputStream(response.getBody()))
+                                                    .size());
+    }
+
+    @Test
+    public void testJsonIsReturnedByDefault() {
+        HttpEntity<Object> requestEntity = new HttpEntity<>(getListOfVariantMessages());
+        ResponseEntity<Map> accessionsResponse = testRestTemplate.exchange("/v1/variant", HttpMethod.POST,
+                                                                           requestEntity, Map.class);
+        Object accession = accessionsResponse.getBody().keySet().iterator().next();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(asList(MediaType.ALL));
+
+        ResponseEntity<String> response = testRestTemplate.exchange("/v1/variant/" + accession, HttpMethod.GET,
+                                                                    new HttpEntity<>(headers), String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(response.getHeaders().getContentType()));
+    }
+
+    @Test
+    public void testInvalidBinaryRequest() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE);
+        HttpEntity<byte[]> requestEntity = new HttpEntity<>(new byte[]{'E', 'V', 'A', 1, 0, 5}, headers);
+
+        ResponseEntity<String> response = testRestTemplate.exchange("/v1/variant", HttpMethod.POST, requestEntity,
+                                                                    String.class);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(0, accessioningRepository.count());
+    }
+
+    private Map<Long, SubmittedVariantDTO> postBinary(List<SubmittedVariantDTO> variants) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        SubmittedVariantBinaryFormat.writeVariants(variants, body);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE);
+        headers.setAccept(asList(SubmittedVariantBinaryHttpMessageConverter.MEDIA_TYPE));
+        ResponseEntity<byte[]> response = testRestTemplate.exchange("/v1/variant", HttpMethod.POST,
+                                                                    new HttpEntity<>(body.toByteArray(), headers),
+                                                                    byte[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return SubmittedVariantBinaryFormat.readAccessions(new ByteArrayInputStream(response.getBody()));
+    }
+
+    private Map<Long, SubmittedVariantDTO> postStream(String body, MediaType contentType) throws Exception {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        ResponseEntity<String> response = testRestTemplate.exchange("/v1/variant/stream", HttpMethod.POST,
+                                                                    new HttpEntity<>(body, headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Map<Long, SubmittedVariantDTO> accessions = new HashMap<>();
+        for (String line : response.getBody().split("\n")) {
+            Map<Long, SubmittedVariantDTO> accession = objectMapper.readValue(
+                    line, new TypeReference<Map<Long, SubmittedVariantDTO>>() {
+                    });
+            accessions.putAll(accession);
+        }
+        return accessions;
+    }
+
     public List<SubmittedVariantDTO> getListOfVariantMessages() {
         SubmittedVariantDTO variant1 = new SubmittedVariantDTO("ASMACC01", "TAXACC01", "PROJACC01", "CHROM1", 1234,
                                                                "REF", "ALT", false);